@@ -1,23 +1,30 @@
 package com.is442.backend.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
-import java.util.concurrent.Executor;
-
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
-    @Bean(name = "appointmentTaskExecutor")
-    public Executor appointmentTaskExecutor() {
+    /**
+     * Bounded pool for PDF report jobs; submissions beyond the queue are rejected
+     * rather than piling up behind slow uploads.
+     */
+    @Bean(name = "reportTaskExecutor")
+    public ThreadPoolTaskExecutor reportTaskExecutor(
+            @Value("${app.reports.workers:2}") int workers,
+            @Value("${app.reports.queue-capacity:20}") int queueCapacity) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("appointment-async-");
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-worker-");
         executor.initialize();
         return executor;
     }
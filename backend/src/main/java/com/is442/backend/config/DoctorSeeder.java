@@ -17,8 +17,6 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.is442.backend.model.Doctor;
 
 @Component
@@ -27,13 +25,13 @@ import com.is442.backend.model.Doctor;
 public class DoctorSeeder implements CommandLineRunner {
 
     private final WebClient supabaseClient;
-    private final ObjectMapper om = new ObjectMapper();
 
     @Value("${seeder.enabled:true}")
     private boolean seederEnabled;
 
     private static final int NUM_DOCTORS = 3;
     private static final int SLOT_MINUTES = 60;
+    private static final int SLOT_POST_CHUNK = 1000;
     private int doctorCounter = 1;
     private final Set<String> usedDoctorNames = new HashSet<>();
 
@@ -164,6 +162,7 @@ public class DoctorSeeder implements CommandLineRunner {
             doctors.add(doctor);
         }
 
+        List<Map<String, Object>> slots = new ArrayList<>();
         for (String day : DAY_ORDER) {
             LocalTime open = null, close = null;
             String[] cols;
@@ -188,11 +187,11 @@ public class DoctorSeeder implements CommandLineRunner {
             if (open == null || close == null) continue;
 
             for (Doctor doctor : doctors) {
-                generateSlotsForDoctor(doctor, open, close, day);
+                addSlotsForDoctor(slots, doctor, open, close, day);
             }
-
-
         }
+
+        postSlots(slots);
     }
 
     private void createDoctorsAndSlots(Map<String, Object> clinic, String clinicName, String clinicAddress, String speciality,
@@ -225,11 +224,13 @@ public class DoctorSeeder implements CommandLineRunner {
             doctors.add(doctor);
         }
 
+        List<Map<String, Object>> slots = new ArrayList<>();
         for (String day : days) {
             for (Doctor doctor : doctors) {
-                generateSlotsForDoctor(doctor, open, close, day);
+                addSlotsForDoctor(slots, doctor, open, close, day);
             }
         }
+        postSlots(slots);
     }
 
     private String generateDoctorName(Random rand) {
@@ -280,15 +281,14 @@ public class DoctorSeeder implements CommandLineRunner {
         }
     }
 
-    private void generateSlotsForDoctor(Doctor doctor, LocalTime start, LocalTime end, String dayOfWeek) {
+    private void addSlotsForDoctor(List<Map<String, Object>> slots, Doctor doctor, LocalTime start, LocalTime end,
+                                   String dayOfWeek) {
         LocalTime slotStart = start;
 
-
         while (slotStart.isBefore(end)) {
             LocalTime slotEnd = slotStart.plusMinutes(SLOT_MINUTES);
             if (slotEnd.isAfter(end)) break;
 
-
             // Prepare payload with start/end as strings to avoid serialization issues
             Map<String, Object> slotPayload = new HashMap<>();
             slotPayload.put("doctor_id", doctor.getDoctorId());
@@ -296,46 +296,33 @@ public class DoctorSeeder implements CommandLineRunner {
             slotPayload.put("day_of_week", dayOfWeek);
             slotPayload.put("start_time", slotStart.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
             slotPayload.put("end_time", slotEnd.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
+            slots.add(slotPayload);
 
+            slotStart = slotEnd;
+        }
+    }
+
+    // PostgREST inserts a JSON array as one multi-row INSERT, so send slots in chunks instead of one request each
+    private void postSlots(List<Map<String, Object>> slots) {
+        for (int from = 0; from < slots.size(); from += SLOT_POST_CHUNK) {
+            List<Map<String, Object>> chunk = slots.subList(from, Math.min(from + SLOT_POST_CHUNK, slots.size()));
             try {
-                String resp = supabaseClient.post()
+                supabaseClient.post()
                         .uri("/time_slot")
-                        .header("Prefer", "return=representation")
-                        .bodyValue(slotPayload)
+                        .header("Prefer", "return=minimal")
+                        .bodyValue(chunk)
                         .retrieve()
                         .bodyToMono(String.class)
                         .block();
-
-                System.out.println("Slot: " + doctor.getDoctorId() + " | " + dayOfWeek
-                        + " | " + slotStart + "-" + slotEnd);
-
-                // If server returned the created row(s), parse the id and print it
-                if (resp != null && !resp.isBlank()) {
-                    try {
-                        JsonNode arr = om.readTree(resp);
-                        if (arr.isArray() && arr.size() > 0) {
-                            JsonNode first = arr.get(0);
-                            if (first.has("id") && !first.get("id").isNull()) {
-                                System.out.println("Inserted slot id: " + first.get("id").asLong());
-                            }
-                        }
-                    } catch (Exception ex) {
-                        // ignore parsing errors but log for debug
-                        System.err.println("Failed to parse insert response: " + ex.getMessage());
-                    }
-                }
+                System.out.println("Inserted " + chunk.size() + " slots");
             } catch (Exception e) {
-                System.err.println("Failed to insert slot for "
-                        + doctor.getDoctorId() + " on " + dayOfWeek
-                        + " at " + slotStart);
+                System.err.println("Failed to insert " + chunk.size() + " slots");
                 // If it's an HTTP error, print the response body (useful for Supabase errors)
                 if (e instanceof org.springframework.web.reactive.function.client.WebClientResponseException w) {
                     System.err.println("Response body: " + w.getResponseBodyAsString());
                 }
                 e.printStackTrace();
             }
-
-            slotStart = slotEnd;
         }
     }
 
@@ -1,21 +1,47 @@
 package com.is442.backend.config;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
+import java.util.Properties;
+
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Serializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import com.is442.backend.util.EventCodec;
+import com.is442.backend.util.EventSerializer;
 
 @Configuration
 @EnableKafka
 public class KafkaConfig {
 
+    public static final String QUEUE_UPDATES_TOPIC = "clinic-queue-updates";
+    public static final String NOTIFICATION_EVENTS_TOPIC = "notification-events";
+    public static final String NOTIFICATION_EVENTS_DLT = NOTIFICATION_EVENTS_TOPIC + ".DLT";
+
+    // Listener concurrency (spring.kafka.listener.concurrency) above this leaves consumer threads idle
+    public static final int TOPIC_PARTITIONS = 20;
+
     @Bean
     public KafkaAdmin kafkaAdmin(
             @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers) {
@@ -26,16 +52,94 @@ public class KafkaConfig {
 
     @Bean
     public NewTopic queueUpdatesTopic() {
-        return TopicBuilder.name("clinic-queue-updates")
-                .partitions(20)
+        return TopicBuilder.name(QUEUE_UPDATES_TOPIC)
+                .partitions(TOPIC_PARTITIONS)
                 .replicas(1)
                 .build();
     }
 
     @Bean
     public NewTopic notificationEventsTopic() {
-        return TopicBuilder.name("notification-events")
-                .partitions(20)
+        return TopicBuilder.name(NOTIFICATION_EVENTS_TOPIC)
+                .partitions(TOPIC_PARTITIONS)
+                .replicas(1)
+                .build();
+    }
+
+    // Same partition count as notification-events: dead letters keep the partition they failed on
+    @Bean
+    public NewTopic notificationEventsDeadLetterTopic() {
+        return TopicBuilder.name(NOTIFICATION_EVENTS_DLT)
+                .partitions(TOPIC_PARTITIONS)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Gives every producer an EventSerializer set to {@code app.kafka.event-format}. The
+     * format lives in application config rather than the producer properties, which
+     * Kafka would log as an unknown config.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer eventSerializerCustomizer(
+            @Value("${app.kafka.event-format:binary}") String eventFormat) {
+        EventCodec.Format format = EventCodec.Format.valueOf(eventFormat.trim().toUpperCase(Locale.ROOT));
+        return factory -> useEventSerializer(factory, format);
+    }
+
+    // The template is KafkaTemplate<String, Object>, and EventSerializer takes any value
+    @SuppressWarnings("unchecked")
+    private static <K, V> void useEventSerializer(DefaultKafkaProducerFactory<K, V> factory, EventCodec.Format format) {
+        factory.setValueSerializerSupplier(() -> (Serializer<V>) new EventSerializer(format));
+    }
+
+    /**
+     * Publishes a failed notification record to notification-events.DLT, with the
+     * exception in the record headers. Waits for the broker ack, so a record is never
+     * committed past before its dead letter is stored.
+     */
+    @Bean
+    public DeadLetterPublishingRecoverer notificationDeadLetterRecoverer(KafkaTemplate<String, Object> kafkaTemplate) {
+        // Named explicitly: the recoverer's default destination is <topic>-dlt, not the topic declared above
+        return new DeadLetterPublishingRecoverer(kafkaTemplate,
+                (rec, e) -> new TopicPartition(NOTIFICATION_EVENTS_DLT, rec.partition()));
+    }
+
+    /**
+     * Batch listener containers for the notification dispatcher. Offsets are committed
+     * once the whole poll has been handled. When the dispatcher cannot dead-letter a
+     * record it throws BatchListenerFailedException with its index: the records before
+     * it are committed and the poll is redelivered from it with backoff; once retries
+     * run out the error handler dead-letters that record itself.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> notificationBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            DeadLetterPublishingRecoverer notificationDeadLetterRecoverer,
+            @Value("${app.notifications.email.batch-size:100}") int batchSize,
+            @Value("${app.notifications.email.retry-max-elapsed-ms:60000}") long retryMaxElapsedMillis) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+
+        Properties consumerProperties = new Properties();
+        consumerProperties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(15000L);
+        backOff.setMaxElapsedTime(retryMaxElapsedMillis);
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(notificationDeadLetterRecoverer, backOff);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    @Bean
+    public NewTopic appointmentEventsTopic() {
+        return TopicBuilder.name("appointment-events")
+                .partitions(TOPIC_PARTITIONS)
                 .replicas(1)
                 .build();
     }
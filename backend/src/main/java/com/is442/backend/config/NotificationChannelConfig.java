@@ -0,0 +1,72 @@
+package com.is442.backend.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.is442.backend.service.EmailNotificationChannel;
+import com.is442.backend.service.HttpNotificationChannel;
+import com.is442.backend.service.NotificationChannelWorker;
+
+/**
+ * One worker pool per notification channel, each with its own concurrency, queue,
+ * timeout and circuit breaker (app.notifications.channels.*). SMS, PUSH and WEBHOOK
+ * post to an HTTP gateway when a URL is set and log instead when it is not.
+ */
+@Configuration
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class NotificationChannelConfig {
+
+    @Value("${app.notifications.channels.breaker-failures:5}")
+    private int breakerFailures;
+
+    @Value("${app.notifications.channels.breaker-open-ms:30000}")
+    private long breakerOpenMillis;
+
+    @Bean
+    public NotificationChannelWorker emailChannelWorker(
+            EmailNotificationChannel emailNotificationChannel,
+            @Value("${app.notifications.channels.email.workers:4}") int workers,
+            @Value("${app.notifications.channels.email.queue-capacity:200}") int queueCapacity,
+            @Value("${app.notifications.channels.email.timeout-ms:30000}") long timeoutMillis) {
+        return new NotificationChannelWorker(emailNotificationChannel, workers, queueCapacity, timeoutMillis,
+                breakerFailures, breakerOpenMillis);
+    }
+
+    @Bean
+    public NotificationChannelWorker smsChannelWorker(
+            @Value("${app.notifications.channels.sms.url:}") String url,
+            @Value("${app.notifications.channels.sms.workers:4}") int workers,
+            @Value("${app.notifications.channels.sms.queue-capacity:200}") int queueCapacity,
+            @Value("${app.notifications.channels.sms.timeout-ms:10000}") long timeoutMillis) {
+        return httpWorker("SMS", url, workers, queueCapacity, timeoutMillis);
+    }
+
+    @Bean
+    public NotificationChannelWorker pushChannelWorker(
+            @Value("${app.notifications.channels.push.url:}") String url,
+            @Value("${app.notifications.channels.push.workers:2}") int workers,
+            @Value("${app.notifications.channels.push.queue-capacity:200}") int queueCapacity,
+            @Value("${app.notifications.channels.push.timeout-ms:5000}") long timeoutMillis) {
+        return httpWorker("PUSH", url, workers, queueCapacity, timeoutMillis);
+    }
+
+    @Bean
+    public NotificationChannelWorker webhookChannelWorker(
+            @Value("${app.notifications.channels.webhook.url:}") String url,
+            @Value("${app.notifications.channels.webhook.workers:2}") int workers,
+            @Value("${app.notifications.channels.webhook.queue-capacity:100}") int queueCapacity,
+            @Value("${app.notifications.channels.webhook.timeout-ms:5000}") long timeoutMillis) {
+        return httpWorker("WEBHOOK", url, workers, queueCapacity, timeoutMillis);
+    }
+
+    private NotificationChannelWorker httpWorker(String name, String url, int workers, int queueCapacity,
+                                                 long timeoutMillis) {
+        HttpNotificationChannel channel = new HttpNotificationChannel(name, url, Duration.ofMillis(timeoutMillis));
+        return new NotificationChannelWorker(channel, workers, queueCapacity, timeoutMillis,
+                breakerFailures, breakerOpenMillis);
+    }
+}
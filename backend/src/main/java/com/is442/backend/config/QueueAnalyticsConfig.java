@@ -0,0 +1,42 @@
+package com.is442.backend.config;
+
+import java.time.Duration;
+
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.KStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+
+import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.service.QueueAnalyticsTopology;
+
+/**
+ * Runs QueueAnalyticsTopology as a Kafka Streams application (spring.kafka.streams.*).
+ * Each instance owns the stores for the queue-updates partitions assigned to it and
+ * advertises itself as {@code application.server}, so QueueAnalyticsService can send a
+ * query for another instance's clinic to that instance.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = {"kafka.enabled", "app.queue-analytics.enabled"}, havingValue = "true")
+public class QueueAnalyticsConfig {
+
+    @Bean
+    public KStream<String, QueueEvent> queueAnalyticsStream(
+            StreamsBuilder streamsBuilder,
+            @Value("${app.queue-analytics.wait-window-minutes:30}") long waitWindowMinutes,
+            @Value("${app.queue-analytics.retention-hours:24}") long retentionHours) {
+        return QueueAnalyticsTopology.build(streamsBuilder, KafkaConfig.QUEUE_UPDATES_TOPIC,
+                Duration.ofMinutes(waitWindowMinutes), Duration.ofHours(retentionHours));
+    }
+
+    @Bean
+    public KafkaStreamsInteractiveQueryService queueAnalyticsQueries(StreamsBuilderFactoryBean streamsBuilderFactoryBean) {
+        return new KafkaStreamsInteractiveQueryService(streamsBuilderFactoryBean);
+    }
+}
@@ -12,6 +12,7 @@ public class QueueScriptsConfig {
     private static final String LUA_DEQUEUE = """
               local qkey    = KEYS[1]
               local nskey   = KEYS[2]        -- clinic:{id}:nowServing
+              local vkey    = KEYS[3]        -- clinic:{id}:version
               local pprefix = ARGV[1]
             
               local popped = redis.call('ZPOPMIN', qkey, 1)
@@ -32,9 +33,12 @@ public class QueueScriptsConfig {
               -- set nowServing := seq (preferred over INCR so it always matches ticket numbers)
               redis.call('SET', nskey, tostring(seq))
             
-              -- return [pid, nowServing, ...pdata as k1,v1,k2,v2,...]
+              -- bump the clinic version in the same step, so it orders this dequeue exactly
+              local version = redis.call('INCR', vkey)
+            
+              -- return [pid, nowServing, version, ...pdata as k1,v1,k2,v2,...]
               -- pdata includes all appointment fields including doctor info (updated in Java before dequeue)
-              local result = { pid, tostring(seq) }
+              local result = { pid, tostring(seq), tostring(version) }
               for i=1,#pdata,2 do
                 table.insert(result, pdata[i])
                 table.insert(result, pdata[i+1])
@@ -42,27 +46,161 @@ public class QueueScriptsConfig {
               return result
             """;
 
+    /**
+     * Check-in: allocates the ticket number, writes the appointment hash, queues it and
+     * bumps the clinic version in one step. ARGV[3] key/value pairs of hash fields
+     * follow. Returns [seq, position, version].
+     */
     private static final String LUA_ENQUEUE = """
-              local seqKey   = KEYS[1]
-              local queueKey = KEYS[2]
-              local hashKey  = KEYS[3]
+              local seqKey     = KEYS[1]
+              local queueKey   = KEYS[2]
+              local hashKey    = KEYS[3]
+              local clinicsKey = KEYS[4]     -- clinics (set of clinic ids with activity)
+              local versionKey = KEYS[5]     -- clinic:{id}:version
             
               local appointmentId = ARGV[1]
-              local payloadCount  = tonumber(ARGV[2]) -- number of key/value pairs following
+              local clinicId      = ARGV[2]
+              local payloadCount  = tonumber(ARGV[3]) -- number of key/value pairs following
             
               -- 1) allocate sequence
               local seq = redis.call('INCR', seqKey)
             
               -- 2) write hash fields
               for i=1,payloadCount*2,2 do
-                redis.call('HSET', hashKey, ARGV[2+i], ARGV[3+i])
+                redis.call('HSET', hashKey, ARGV[3+i], ARGV[4+i])
               end
               redis.call('HSET', hashKey, 'seq', tostring(seq))
             
-              -- 3) enqueue in ZSET
+              -- 3) enqueue in ZSET and read back the 1-based position
               redis.call('ZADD', queueKey, seq, appointmentId)
+              local position = redis.call('ZRANK', queueKey, appointmentId) + 1
+            
+              redis.call('SADD', clinicsKey, clinicId)
+              local version = redis.call('INCR', versionKey)
+              return { tostring(seq), tostring(position), tostring(version) }
+            """;
+
+    /**
+     * Moves a queued appointment ahead of the current head (score min - 1, or 0.5 once
+     * the head is at 1 or below) and bumps the clinic version. Returns [position, version],
+     * or nil when the appointment is not queued.
+     */
+    private static final String LUA_FAST_TRACK = """
+              local queueKey   = KEYS[1]
+              local versionKey = KEYS[2]     -- clinic:{id}:version
+              local appointmentId = ARGV[1]
+            
+              if not redis.call('ZSCORE', queueKey, appointmentId) then
+                return false
+              end
+            
+              local head = redis.call('ZRANGE', queueKey, 0, 0, 'WITHSCORES')
+              local minScore = tonumber(head[2]) or 1
+              local score = 0.5
+              if minScore > 1 then
+                score = minScore - 1
+              end
+              redis.call('ZADD', queueKey, score, appointmentId)
+              local position = redis.call('ZRANK', queueKey, appointmentId) + 1
             
-              return tostring(seq)
+              local version = redis.call('INCR', versionKey)
+              return { tostring(position), tostring(version) }
+            """;
+
+    /**
+     * Takes an appointment out of the queue, deletes its hash and bumps the clinic
+     * version. Returns the version, or nil when the appointment is not queued.
+     */
+    private static final String LUA_REMOVE = """
+              local queueKey   = KEYS[1]
+              local hashKey    = KEYS[2]
+              local versionKey = KEYS[3]     -- clinic:{id}:version
+            
+              if redis.call('ZREM', queueKey, ARGV[1]) == 0 then
+                return false
+              end
+              redis.call('DEL', hashKey)
+              return redis.call('INCR', versionKey)
+            """;
+
+    /** Resets the ticket sequence and nowServing and bumps the clinic version; returns the version. */
+    private static final String LUA_RESET = """
+              redis.call('SET', KEYS[1], '0')  -- clinic:{id}:seq
+              redis.call('SET', KEYS[2], '0')  -- clinic:{id}:nowServing
+              return redis.call('INCR', KEYS[3])
+            """;
+
+    /**
+     * Admission check for one notification; see NotificationGate. Nothing is recorded
+     * unless all three checks pass, so a suppressed event does not use up the patient's
+     * or the clinic's allowance. Returns 0 admitted, 1 duplicate, 2 patient over limit,
+     * 3 clinic bucket empty.
+     */
+    private static final String LUA_NOTIFICATION_GATE = """
+              local dedupeKey  = KEYS[1]     -- notif:dedupe:{appointmentId}:{type}
+              local patientKey = KEYS[2]     -- notif:patient:{patientId} (zset of send times)
+              local bucketKey  = KEYS[3]     -- notif:bucket:{clinicId} (tokens, ts)
+            
+              local now          = tonumber(ARGV[1])
+              local dedupeMs     = tonumber(ARGV[2])
+              local patientLimit = tonumber(ARGV[3])
+              local patientMs    = tonumber(ARGV[4])
+              local capacity     = tonumber(ARGV[5])
+              local refillPerMs  = tonumber(ARGV[6])
+              local member       = ARGV[7]
+            
+              -- 1) same appointment and type already sent within the window
+              if redis.call('EXISTS', dedupeKey) == 1 then
+                return 1
+              end
+            
+              -- 2) sliding window of sends per patient
+              redis.call('ZREMRANGEBYSCORE', patientKey, '-inf', now - patientMs)
+              if redis.call('ZCARD', patientKey) >= patientLimit then
+                return 2
+              end
+            
+              -- 3) clinic token bucket, refilled for the time since it was last touched
+              local bucket = redis.call('HMGET', bucketKey, 'tokens', 'ts')
+              local tokens = tonumber(bucket[1]) or capacity
+              local ts     = tonumber(bucket[2]) or now
+              tokens = math.min(capacity, tokens + math.max(0, now - ts) * refillPerMs)
+              local bucketTtl = math.ceil(capacity / refillPerMs)
+              if tokens < 1 then
+                redis.call('HSET', bucketKey, 'tokens', tostring(tokens), 'ts', tostring(now))
+                redis.call('PEXPIRE', bucketKey, bucketTtl)
+                return 3
+              end
+            
+              redis.call('SET', dedupeKey, '1', 'PX', dedupeMs)
+              redis.call('ZADD', patientKey, now, member)
+              redis.call('PEXPIRE', patientKey, patientMs)
+              redis.call('HSET', bucketKey, 'tokens', tostring(tokens - 1), 'ts', tostring(now))
+              redis.call('PEXPIRE', bucketKey, bucketTtl)
+              return 0
+            """;
+
+    /**
+     * Takes over write-behind entries another consumer read but has not acknowledged for
+     * ARGV[3] ms (its container died or was replaced), so the caller's next read from
+     * '0' replays them. Claims at most ARGV[4] entries and returns how many it claimed.
+     */
+    private static final String LUA_WRITE_BEHIND_CLAIM = """
+              local stream = KEYS[1]
+              local group  = ARGV[1]
+              local owner  = ARGV[2]
+              local idleMs = ARGV[3]
+              local limit  = tonumber(ARGV[4])
+            
+              local cursor  = '0-0'
+              local claimed = 0
+              repeat
+                local r = redis.call('XAUTOCLAIM', stream, group, owner, idleMs, cursor,
+                                     'COUNT', limit - claimed, 'JUSTID')
+                cursor  = r[1]
+                claimed = claimed + #r[2]
+              until cursor == '0-0' or claimed >= limit
+              return claimed
             """;
 
     @Bean
@@ -71,7 +209,37 @@ public class QueueScriptsConfig {
     }
 
     @Bean
-    public DefaultRedisScript<Long> enqueueScript() {
-        return new DefaultRedisScript<>(LUA_ENQUEUE, Long.class);
+    public DefaultRedisScript<List<Object>> enqueueScript() {
+        return listScript(LUA_ENQUEUE);
+    }
+
+    @Bean
+    public DefaultRedisScript<List<Object>> fastTrackScript() {
+        return listScript(LUA_FAST_TRACK);
+    }
+
+    @Bean
+    public DefaultRedisScript<Long> removeFromQueueScript() {
+        return new DefaultRedisScript<>(LUA_REMOVE, Long.class);
+    }
+
+    @Bean
+    public DefaultRedisScript<Long> resetQueueScript() {
+        return new DefaultRedisScript<>(LUA_RESET, Long.class);
+    }
+
+    @Bean
+    public DefaultRedisScript<Long> notificationGateScript() {
+        return new DefaultRedisScript<>(LUA_NOTIFICATION_GATE, Long.class);
+    }
+
+    @Bean
+    public DefaultRedisScript<Long> writeBehindClaimScript() {
+        return new DefaultRedisScript<>(LUA_WRITE_BEHIND_CLAIM, Long.class);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static DefaultRedisScript<List<Object>> listScript(String lua) {
+        return new DefaultRedisScript<>(lua, (Class) List.class);
     }
 }
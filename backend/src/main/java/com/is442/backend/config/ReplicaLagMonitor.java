@@ -0,0 +1,48 @@
+package com.is442.backend.config;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Polls the replica's replay lag and tells the routing DataSource whether
+ * read-only transactions may use it.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    // A caught-up replica with no recent writes reports a stale replay timestamp, so compare LSNs first
+    private static final String LAG_SQL = "SELECT CASE " +
+            "WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final ReplicaRoutingDataSource routingDataSource;
+    private final long maxLagMillis;
+
+    public ReplicaLagMonitor(DataSource replicaDataSource, ReplicaRoutingDataSource routingDataSource, long maxLagMillis) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.routingDataSource = routingDataSource;
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-ms:2000}")
+    public void checkLag() {
+        try {
+            Number lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Number.class);
+            long lagMillis = lag == null ? 0 : lag.longValue();
+            routingDataSource.replicaHealthy(lagMillis, maxLagMillis);
+            if (lagMillis > maxLagMillis) {
+                logger.warn("Replica lag {}ms exceeds {}ms, routing reads to primary", lagMillis, maxLagMillis);
+            }
+        } catch (Exception e) {
+            routingDataSource.replicaUnavailable(e.getMessage());
+            logger.warn("Replica lag check failed, routing reads to primary: {}", e.getMessage());
+        }
+    }
+}
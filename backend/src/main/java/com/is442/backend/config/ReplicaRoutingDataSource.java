@@ -0,0 +1,121 @@
+package com.is442.backend.config;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to the replica pool and everything else to the
+ * primary. The replica is only used while ReplicaLagMonitor reports it healthy and
+ * within the lag budget; otherwise reads fall back to the primary.
+ * <p>
+ * Must sit behind a LazyConnectionDataSourceProxy so the route is chosen once the
+ * transaction's read-only flag is known, not when the transaction begins.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final Map<Route, RouteStats> stats = new EnumMap<>(Route.class);
+    private final LongAdder fallbacks = new LongAdder();
+
+    private volatile boolean replicaAvailable;
+    private volatile long replicaLagMillis = -1;
+    private volatile String replicaError;
+
+    public ReplicaRoutingDataSource() {
+        for (Route route : Route.values()) {
+            stats.put(route, new RouteStats());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Route route = Route.PRIMARY;
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaAvailable) {
+                route = Route.REPLICA;
+            } else {
+                fallbacks.increment();
+            }
+        }
+        track(route);
+        return route;
+    }
+
+    void replicaHealthy(long lagMillis, long maxLagMillis) {
+        replicaLagMillis = lagMillis;
+        replicaError = lagMillis > maxLagMillis ? "lag " + lagMillis + "ms exceeds " + maxLagMillis + "ms" : null;
+        replicaAvailable = replicaError == null;
+    }
+
+    void replicaUnavailable(String error) {
+        replicaAvailable = false;
+        replicaLagMillis = -1;
+        replicaError = error;
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("replica_available", replicaAvailable);
+        metrics.put("replica_lag_ms", replicaLagMillis);
+        metrics.put("replica_error", replicaError);
+        metrics.put("read_only_fallbacks_to_primary", fallbacks.sum());
+        Map<String, Object> routes = new LinkedHashMap<>();
+        stats.forEach((route, s) -> routes.put(route.name().toLowerCase(), s.snapshot()));
+        metrics.put("routes", routes);
+        return metrics;
+    }
+
+    // Times the transaction from first connection use to completion, per route
+    private void track(Route route) {
+        RouteStats routeStats = stats.get(route);
+        routeStats.connections.increment();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        long started = System.nanoTime();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                routeStats.record(System.nanoTime() - started, status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    private static final class RouteStats {
+        private final LongAdder connections = new LongAdder();
+        private final LongAdder transactions = new LongAdder();
+        private final LongAdder rolledBack = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos, boolean committed) {
+            transactions.increment();
+            if (!committed) {
+                rolledBack.increment();
+            }
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Map<String, Object> snapshot() {
+            long count = transactions.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("connections", connections.sum());
+            snapshot.put("transactions", count);
+            snapshot.put("rolled_back", rolledBack.sum());
+            snapshot.put("avg_latency_ms", count == 0 ? 0.0 : totalNanos.sum() / 1e6 / count);
+            snapshot.put("max_latency_ms", maxNanos.get() / 1e6);
+            return snapshot;
+        }
+    }
+}
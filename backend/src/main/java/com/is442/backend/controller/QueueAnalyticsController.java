@@ -0,0 +1,52 @@
+package com.is442.backend.controller;
+
+import com.is442.backend.dto.ErrorResponse;
+import com.is442.backend.service.QueueAnalyticsService;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.client.RestClientException;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/queue/analytics")
+public class QueueAnalyticsController {
+
+    // only present when kafka.enabled=true and app.queue-analytics.enabled=true
+    @Autowired(required = false)
+    private QueueAnalyticsService queueAnalyticsService;
+
+    /**
+     * GET /api/queue/analytics/{clinicId}?positions=1,3,5,10
+     * Arrivals and service rate per minute, rolling average wait and predicted wait per
+     * queue position, served from the Kafka Streams stores instead of Postgres/Redis scans.
+     */
+    @GetMapping("/{clinicId}")
+    public ResponseEntity<?> getClinicAnalytics(
+            @PathVariable String clinicId,
+            @RequestParam(defaultValue = "1,3,5,10") List<Integer> positions,
+            @RequestHeader(value = QueueAnalyticsService.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (queueAnalyticsService == null) {
+            return ResponseEntity.ok(Map.of("queue_analytics_enabled", false));
+        }
+        if (positions.stream().anyMatch(p -> p == null || p < 1)) {
+            return ResponseEntity.badRequest()
+                    .body(new ErrorResponse("positions must be 1 or more"));
+        }
+        try {
+            return ResponseEntity.ok(queueAnalyticsService.getClinicAnalytics(clinicId, positions, forwarded));
+        } catch (InvalidStateStoreException | IllegalStateException e) {
+            // Streams not running yet, or its partitions are being rebalanced
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(new ErrorResponse("Queue analytics not available yet: " + e.getMessage()));
+        } catch (RestClientException e) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                    .body(new ErrorResponse("Queue analytics instance for clinic " + clinicId
+                            + " did not answer: " + e.getMessage()));
+        }
+    }
+}
@@ -3,14 +3,12 @@ package com.is442.backend.controller;
 import com.is442.backend.dto.AppointmentResponse;
 import com.is442.backend.dto.ErrorResponse;
 import com.is442.backend.service.AppointmentService;
-import com.is442.backend.service.KafkaQueueEventProducer;
+import com.is442.backend.service.AppointmentWriteBehindService;
 import com.is442.backend.service.RedisQueueService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
-import com.is442.backend.dto.QueueEvent;
 import com.is442.backend.dto.CallNextResult;
 import com.is442.backend.dto.PositionSnapshot;
 
@@ -25,15 +23,16 @@ import java.util.UUID;
 public class RedisQueueController {
 
     private final RedisQueueService redisQueueService;
-    private final KafkaQueueEventProducer events;
 
     @Autowired(required = false)
     private AppointmentService appointmentService;
 
-    public RedisQueueController(RedisQueueService redisQueueService,
-                                @Nullable KafkaQueueEventProducer events) {
+    @Autowired
+    private AppointmentWriteBehindService writeBehind;
+
+    // Queue events go to Kafka from RedisQueueService, alongside each queue change
+    public RedisQueueController(RedisQueueService redisQueueService) {
         this.redisQueueService = redisQueueService;
-        this.events = events;
     }
 
     // POST /checkin — returns dynamic position + stable queueNumber
@@ -81,30 +80,23 @@ public class RedisQueueController {
             RedisQueueService.CheckinResult result = redisQueueService.checkIn(
                     clinicId, appointmentId, patientId, appointmentProvided, doctorId);
 
-            // If appointment was auto-generated (walk-in), create it asynchronously in the
-            // background
-            if (!appointmentProvided && appointmentService != null) {
+            // Persist the appointment side through the write-behind stream: walk-ins are
+            // created, booked appointments are marked CHECKED-IN
+            if (!appointmentProvided) {
                 try {
-                    UUID appointmentUuid = UUID.fromString(appointmentId);
-                    // Use provided doctorId or default to UNASSIGNED
-                    String doctorIdForAppointment = (doctorId != null && !doctorId.trim().isEmpty())
-                            ? doctorId
-                            : "UNASSIGNED";
-                    appointmentService.createWalkInAppointmentAsync(appointmentUuid, patientId, clinicId,
-                            doctorIdForAppointment);
+                    writeBehind.enqueueWalkIn(UUID.fromString(appointmentId), patientId, clinicId, doctorId);
                 } catch (IllegalArgumentException e) {
                     // Log but don't fail the check-in if UUID parsing fails
                     // This shouldn't happen since we just generated it, but handle gracefully
                 }
-            } else if (appointmentProvided && appointmentService != null) {
-                // For booked appointments, update status to CHECKED-IN asynchronously
+            } else {
                 try {
-                    UUID appointmentUuid = UUID.fromString(appointmentId);
-                    appointmentService.updateAppointmentStatusToCheckedInAsync(appointmentUuid);
+                    writeBehind.enqueueCheckIn(UUID.fromString(appointmentId));
                 } catch (IllegalArgumentException e) {
                     // Log but don't fail the check-in if UUID parsing fails
                 }
-
+            }
+            if (appointmentProvided && appointmentService != null) {
                 // Also update doctor_id if provided
                 if (doctorId != null && !doctorId.trim().isEmpty()) {
                     try {
@@ -121,14 +113,6 @@ public class RedisQueueController {
                 }
             }
 
-            // Publish real-time event (keeps same payload shape)
-            if (events != null) {
-                events.publishQueueEvent(new QueueEvent(
-                                "POSITION_CHANGED", clinicId, appointmentId, patientId,
-                                result.position(), result.queueNumber(), System.currentTimeMillis()),
-                        doctorId); // Pass doctorId for Kafka headers
-            }
-
             return ResponseEntity.ok(Map.of(
                     "status", "ok",
                     "position", result.position(), // live place in line
@@ -208,25 +192,6 @@ public class RedisQueueController {
                 System.out.println("[RedisQueueController] Skipping status update - appointmentService: " + (appointmentService != null) + ", appointmentId: " + result.appointmentId());
             }
 
-            // Get final doctorId (from request or from Redis metadata)
-            String finalDoctorId = doctorId;
-            if (finalDoctorId == null || finalDoctorId.trim().isEmpty()) {
-                finalDoctorId = redisQueueService.getDoctorIdFromAppointment(result.appointmentId());
-            }
-
-            // Publish event using the actual nowServing ticket number
-            if (events != null) {
-                events.publishQueueEvent(new QueueEvent(
-                                "NOW_SERVING",
-                                clinicId,
-                                result.appointmentId(),
-                                result.patientId(),
-                                (int) result.nowServing(),
-                                result.queueNumber(),
-                                System.currentTimeMillis()),
-                        finalDoctorId); // Pass doctorId for Kafka headers
-            }
-
             return ResponseEntity.ok(Map.of(
                     "status", "ok",
                     "nowServing", result.nowServing(), // clinic-wide current ticket
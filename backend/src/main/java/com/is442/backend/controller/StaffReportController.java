@@ -1,14 +1,18 @@
 package com.is442.backend.controller;
 
+import com.is442.backend.dto.ReportJobResponse;
 import com.is442.backend.dto.StaffReportRequest;
 import com.is442.backend.dto.StaffReportResponse;
+import com.is442.backend.service.ReportJobService;
 import com.is442.backend.service.StaffReportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -20,6 +24,9 @@ public class StaffReportController {
     @Autowired
     private StaffReportService staffReportService;
 
+    @Autowired
+    private ReportJobService reportJobService;
+
     /**
      * Generate a new daily report
      * POST /api/staff/reports/generate
@@ -53,6 +60,53 @@ public class StaffReportController {
         }
     }
 
+    /**
+     * Queue a daily report for background generation
+     * POST /api/staff/reports/jobs
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitReportJob(
+            @RequestBody StaffReportRequest request,
+            @RequestHeader(value = "X-User-Id", required = false) String userId) {
+        if (request.getClinicId() == null || request.getClinicId().isBlank()) {
+            return ResponseEntity.badRequest().body("Clinic ID is required");
+        }
+        if (request.getReportDate() == null) {
+            return ResponseEntity.badRequest().body("Report date is required");
+        }
+        if (userId == null || userId.isBlank()) {
+            return ResponseEntity.badRequest().body("User ID is required in X-User-Id header");
+        }
+        try {
+            ReportJobResponse job = reportJobService.submit(request.getClinicId(), request.getReportDate(), userId);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Poll a report job
+     * GET /api/staff/reports/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getReportJob(@PathVariable String jobId) {
+        return reportJobService.getJob(jobId)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).body("Report job not found: " + jobId));
+    }
+
+    /**
+     * Follow a report job over SSE until it completes or fails
+     * GET /api/staff/reports/jobs/{jobId}/stream
+     */
+    @GetMapping(value = "/jobs/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<ReportJobResponse>>> streamReportJob(@PathVariable String jobId) {
+        return reportJobService.streamJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     /**
      * Get report for a specific date
      * GET /api/staff/reports/{date}
@@ -1,6 +1,15 @@
 package com.is442.backend.controller;
 
+import com.is442.backend.config.ReplicaRoutingDataSource;
 import com.is442.backend.dto.ErrorResponse;
+import com.is442.backend.service.AppointmentWriteBehindService;
+import com.is442.backend.service.KafkaConsumerLagService;
+import com.is442.backend.service.KafkaEventPublisher;
+import com.is442.backend.service.KafkaQueueEventProducer;
+import com.is442.backend.service.NotificationDeadLetterReplayer;
+import com.is442.backend.service.NotificationDispatcher;
+import com.is442.backend.service.NotificationGate;
+import com.is442.backend.service.ReferenceDataCache;
 import com.is442.backend.service.SystemMonitoringService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,10 +24,39 @@ import java.util.Map;
 public class SystemMonitoringController {
 
     private final SystemMonitoringService systemMonitoringService;
+    private final AppointmentWriteBehindService appointmentWriteBehindService;
+    private final ReferenceDataCache referenceDataCache;
+
+    // only present when a read replica is configured
+    @Autowired(required = false)
+    private ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    // only present when kafka.enabled=true
+    @Autowired(required = false)
+    private KafkaEventPublisher kafkaEventPublisher;
+
+    @Autowired(required = false)
+    private KafkaQueueEventProducer kafkaQueueEventProducer;
+
+    @Autowired(required = false)
+    private KafkaConsumerLagService kafkaConsumerLagService;
+
+    @Autowired(required = false)
+    private NotificationGate notificationGate;
+
+    @Autowired(required = false)
+    private NotificationDispatcher notificationDispatcher;
+
+    @Autowired(required = false)
+    private NotificationDeadLetterReplayer notificationDeadLetterReplayer;
 
     @Autowired
-    public SystemMonitoringController(SystemMonitoringService systemMonitoringService) {
+    public SystemMonitoringController(SystemMonitoringService systemMonitoringService,
+                                      AppointmentWriteBehindService appointmentWriteBehindService,
+                                      ReferenceDataCache referenceDataCache) {
         this.systemMonitoringService = systemMonitoringService;
+        this.appointmentWriteBehindService = appointmentWriteBehindService;
+        this.referenceDataCache = referenceDataCache;
     }
 
     /**
@@ -45,6 +83,144 @@ public class SystemMonitoringController {
         }
     }
 
+    /**
+     * GET /api/admin/system/write-behind
+     * Backlog, lag and retry counters for the check-in appointment write-behind.
+     */
+    @GetMapping("/write-behind")
+    public ResponseEntity<?> getWriteBehindMetrics() {
+        try {
+            return ResponseEntity.ok(appointmentWriteBehindService.getMetrics());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving write-behind metrics: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/admin/system/datasource-routes
+     * Primary vs replica routing counts, transaction latency and replica lag.
+     */
+    @GetMapping("/datasource-routes")
+    public ResponseEntity<?> getDataSourceRouteMetrics() {
+        if (replicaRoutingDataSource == null) {
+            return ResponseEntity.ok(Map.of("replica_configured", false));
+        }
+        return ResponseEntity.ok(replicaRoutingDataSource.getMetrics());
+    }
+
+    /**
+     * GET /api/admin/system/kafka-producer
+     * Acked/failed/dropped counts per topic, in-flight records and producer batching metrics,
+     * plus queue events dropped before reaching the publisher.
+     */
+    @GetMapping("/kafka-producer")
+    public ResponseEntity<?> getKafkaProducerMetrics() {
+        if (kafkaEventPublisher == null) {
+            return ResponseEntity.ok(Map.of("kafka_enabled", false));
+        }
+        try {
+            Map<String, Object> metrics = kafkaEventPublisher.getMetrics();
+            if (kafkaQueueEventProducer != null) {
+                metrics.put("queue_events_dropped", kafkaQueueEventProducer.droppedCount());
+            }
+            return ResponseEntity.ok(metrics);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving Kafka producer metrics: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/admin/system/kafka-consumers
+     * Per-listener concurrency, partition assignment per consumer thread and lag per partition.
+     */
+    @GetMapping("/kafka-consumers")
+    public ResponseEntity<?> getKafkaConsumerLag() {
+        if (kafkaConsumerLagService == null) {
+            return ResponseEntity.ok(Map.of("kafka_enabled", false));
+        }
+        try {
+            return ResponseEntity.ok(kafkaConsumerLagService.getMetrics());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving Kafka consumer lag: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/admin/system/notification-gate
+     * Notifications sent and suppressed (duplicate, patient rate limit, clinic throttle) per type.
+     */
+    @GetMapping("/notification-gate")
+    public ResponseEntity<?> getNotificationGateMetrics() {
+        if (notificationGate == null) {
+            return ResponseEntity.ok(Map.of("kafka_enabled", false));
+        }
+        return ResponseEntity.ok(notificationGate.getMetrics());
+    }
+
+    /**
+     * GET /api/admin/system/notification-channels
+     * Per channel: circuit state, worker pool and queue usage, delivered/failed/timed out/rejected counts.
+     */
+    @GetMapping("/notification-channels")
+    public ResponseEntity<?> getNotificationChannelMetrics() {
+        if (notificationDispatcher == null) {
+            return ResponseEntity.ok(Map.of("kafka_enabled", false));
+        }
+        return ResponseEntity.ok(notificationDispatcher.getMetrics());
+    }
+
+    /**
+     * POST /api/admin/system/notification-dlt/replay?max=500
+     * Republish up to max dead-lettered notifications, e.g. once a channel's circuit has closed.
+     */
+    @PostMapping("/notification-dlt/replay")
+    public ResponseEntity<?> replayNotificationDeadLetters(@RequestParam(defaultValue = "500") int max) {
+        if (notificationDeadLetterReplayer == null) {
+            return ResponseEntity.ok(Map.of("kafka_enabled", false));
+        }
+        if (max <= 0) {
+            return ResponseEntity.badRequest().body(new ErrorResponse("max must be positive"));
+        }
+        try {
+            return ResponseEntity.ok(notificationDeadLetterReplayer.replay(max));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error replaying notification dead letters: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/admin/system/cache
+     * Second-level and query cache hit/miss/put counts per region.
+     */
+    @GetMapping("/cache")
+    public ResponseEntity<?> getCacheStatistics() {
+        try {
+            return ResponseEntity.ok(referenceDataCache.getStatistics());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error retrieving cache statistics: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * DELETE /api/admin/system/cache
+     * Evict all cached reference data, e.g. after editing rows directly in Supabase.
+     */
+    @DeleteMapping("/cache")
+    public ResponseEntity<?> evictCache() {
+        try {
+            referenceDataCache.evictAll();
+            return ResponseEntity.noContent().build();
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse("Error evicting cache: " + e.getMessage()));
+        }
+    }
+
     /**
      * GET /api/admin/system/queues
      * Get all queue states for all active clinics.
@@ -16,6 +16,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.is442.backend.dto.AvailableDateSlotsDto;
+import com.is442.backend.dto.ScheduleGenerationResult;
+import com.is442.backend.dto.ScheduleTemplateRequest;
 import com.is442.backend.dto.TimeSlotDto;
 import com.is442.backend.dto.TimeSlotRequest;
 import com.is442.backend.service.TimeSlotService;
@@ -102,6 +104,21 @@ public class TimeSlotController {
         }
     }
 
+    /**
+     * Generate slots from weekly schedule templates for many doctors at once (admin only)
+     */
+    @PostMapping("/admin/generate")
+    public ResponseEntity<?> generateSchedule(@RequestBody ScheduleTemplateRequest request) {
+        try {
+            ScheduleGenerationResult result = timeSlotService.generateSchedule(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(result);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error generating time slots: " + e.getMessage());
+        }
+    }
+
     /**
      * Update a time slot (admin only)
      */
@@ -34,8 +34,9 @@ public class UserController {
 
     // Search patients by partial email for autocomplete suggestions
     @GetMapping("/patients/search")
-    public ResponseEntity<List<PatientResponse>> searchPatients(@RequestParam("q") String query) {
-        List<PatientResponse> matches = userService.searchPatientsByEmail(query);
+    public ResponseEntity<List<PatientResponse>> searchPatients(@RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "" + UserService.DEFAULT_SEARCH_LIMIT) int limit) {
+        List<PatientResponse> matches = userService.searchPatientsByEmail(query, limit);
         return ResponseEntity.ok(matches);
     }
 
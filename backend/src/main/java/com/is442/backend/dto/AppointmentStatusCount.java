@@ -0,0 +1,14 @@
+package com.is442.backend.dto;
+
+/**
+ * One row of the per-status appointment rollup used by the admin statistics.
+ */
+public interface AppointmentStatusCount {
+    String getStatus();
+
+    Long getTotal();
+
+    Long getWalkIns();
+
+    Long getToday();
+}
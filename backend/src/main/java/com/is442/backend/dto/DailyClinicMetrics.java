@@ -0,0 +1,21 @@
+package com.is442.backend.dto;
+
+/**
+ * One clinic-day of appointment metrics, aggregated in the database for staff reports.
+ * Waiting time is minutes from the slot start to completion, for completed appointments only.
+ */
+public interface DailyClinicMetrics {
+    Long getTotalAppointments();
+
+    Long getPatientsSeen();
+
+    Long getNoShowCount();
+
+    Long getWaitMinutesSum();
+
+    Long getWaitCount();
+
+    Double getWaitP50();
+
+    Double getWaitP90();
+}
@@ -1,5 +1,7 @@
 package com.is442.backend.dto;
 
+import java.util.UUID;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.is442.backend.model.Patient;
 
@@ -39,6 +41,15 @@ public class PatientResponse extends UserResponse {
         this.gender = gender;
     }
 
+    // Built from PatientRepository's native projections through the Patient.RESPONSE_MAPPING result mapping
+    public PatientResponse(UUID supabaseUserId, String email, String firstName, String lastName, String role,
+                           String status, String phone, String dateOfBirth, String gender) {
+        super(supabaseUserId, email, firstName, lastName, role, status);
+        this.phone = phone;
+        this.dateOfBirth = dateOfBirth;
+        this.gender = gender;
+    }
+
     public PatientResponse(Patient patient) {
         super(patient);
 
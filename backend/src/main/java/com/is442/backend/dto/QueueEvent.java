@@ -1,12 +1,13 @@
 package com.is442.backend.dto;
 
 public record QueueEvent(
-        String type,        // "POSITION_CHANGED" | "NOW_SERVING" | "CHECKED_IN" | "SKIPPED"
+        String type,        // "CHECKED_IN" | "NOW_SERVING" | "FAST_TRACKED" | "REMOVED" | "QUEUE_RESET" | "POSITION_CHANGED" | "SKIPPED"
         String clinicId,
         String appointmentId,
         String patientId,
         Integer position,   // null when not applicable
         Long queueNumber,
-        Long ts
+        Long ts,
+        Long version        // clinic:{id}:version after this change; null on events published before it existed
 ) {
 }
@@ -0,0 +1,25 @@
+package com.is442.backend.dto;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Snapshot of a queued report generation job, returned on submit and when polled.
+ */
+public record ReportJobResponse(
+        @JsonProperty("job_id") String jobId,
+        @JsonProperty("clinic_id") String clinicId,
+        @JsonProperty("report_date") @JsonFormat(pattern = "yyyy-MM-dd") LocalDate reportDate,
+        @JsonProperty("status") String status,      // QUEUED | RUNNING | COMPLETED | FAILED
+        @JsonProperty("submitted_at") OffsetDateTime submittedAt,
+        @JsonProperty("finished_at") OffsetDateTime finishedAt,
+        @JsonProperty("report") StaffReportResponse report,
+        @JsonProperty("error") String error
+) {
+    public boolean isFinished() {
+        return "COMPLETED".equals(status) || "FAILED".equals(status);
+    }
+}
@@ -0,0 +1,16 @@
+package com.is442.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Outcome of a bulk slot generation run. Slots that overlap an existing slot
+ * for the same doctor and day are skipped rather than failing the run.
+ */
+public record ScheduleGenerationResult(
+        @JsonProperty("doctors") int doctors,
+        @JsonProperty("requested_slots") int requestedSlots,
+        @JsonProperty("inserted_slots") int insertedSlots,
+        @JsonProperty("skipped_overlaps") int skippedOverlaps,
+        @JsonProperty("elapsed_ms") long elapsedMillis,
+        @JsonProperty("slots_per_second") double slotsPerSecond) {
+}
@@ -0,0 +1,82 @@
+package com.is442.backend.dto;
+
+import java.util.List;
+
+/**
+ * Weekly schedule templates for bulk slot generation. Each template expands to
+ * back-to-back slots of slotMinutes between startTime and endTime on every listed day.
+ */
+public class ScheduleTemplateRequest {
+    private List<DoctorTemplate> templates;
+
+    public ScheduleTemplateRequest() {
+    }
+
+    public List<DoctorTemplate> getTemplates() {
+        return templates;
+    }
+
+    public void setTemplates(List<DoctorTemplate> templates) {
+        this.templates = templates;
+    }
+
+    public static class DoctorTemplate {
+        private String doctorId;
+        private List<String> daysOfWeek;
+        private String startTime; // "HH:mm" or "HH:mm:ss"
+        private String endTime;
+        private Integer slotMinutes; // defaults to 15
+
+        public DoctorTemplate() {
+        }
+
+        public DoctorTemplate(String doctorId, List<String> daysOfWeek, String startTime, String endTime,
+                              Integer slotMinutes) {
+            this.doctorId = doctorId;
+            this.daysOfWeek = daysOfWeek;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.slotMinutes = slotMinutes;
+        }
+
+        public String getDoctorId() {
+            return doctorId;
+        }
+
+        public void setDoctorId(String doctorId) {
+            this.doctorId = doctorId;
+        }
+
+        public List<String> getDaysOfWeek() {
+            return daysOfWeek;
+        }
+
+        public void setDaysOfWeek(List<String> daysOfWeek) {
+            this.daysOfWeek = daysOfWeek;
+        }
+
+        public String getStartTime() {
+            return startTime;
+        }
+
+        public void setStartTime(String startTime) {
+            this.startTime = startTime;
+        }
+
+        public String getEndTime() {
+            return endTime;
+        }
+
+        public void setEndTime(String endTime) {
+            this.endTime = endTime;
+        }
+
+        public Integer getSlotMinutes() {
+            return slotMinutes;
+        }
+
+        public void setSlotMinutes(Integer slotMinutes) {
+            this.slotMinutes = slotMinutes;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.is442.backend.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class SlotUpdateDto {
@@ -20,7 +21,16 @@ public class SlotUpdateDto {
     private String endTime; // HH:mm:ss
 
     @JsonProperty("action")
-    private String action; // e.g., REMOVE
+    private String action; // e.g., REMOVE, SCHEDULE_REPLACED
+
+    // Set only on schedule changes (TimeSlotService), which cover a weekday rather than a dated slot
+    @JsonProperty("day_of_week")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String dayOfWeek;
+
+    @JsonProperty("slot_count")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer slotCount;
 
     public SlotUpdateDto() {
     }
@@ -81,4 +91,20 @@ public class SlotUpdateDto {
     public void setAction(String action) {
         this.action = action;
     }
+
+    public String getDayOfWeek() {
+        return dayOfWeek;
+    }
+
+    public void setDayOfWeek(String dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+
+    public Integer getSlotCount() {
+        return slotCount;
+    }
+
+    public void setSlotCount(Integer slotCount) {
+        this.slotCount = slotCount;
+    }
 }
@@ -26,6 +26,12 @@ public class StaffReportResponse {
     @JsonProperty("average_waiting_time_minutes")
     private BigDecimal averageWaitingTimeMinutes;
 
+    @JsonProperty("waiting_time_p50_minutes")
+    private BigDecimal waitingTimeP50Minutes;
+
+    @JsonProperty("waiting_time_p90_minutes")
+    private BigDecimal waitingTimeP90Minutes;
+
     @JsonProperty("no_show_rate")
     private BigDecimal noShowRate;
 
@@ -100,6 +106,22 @@ public class StaffReportResponse {
         this.averageWaitingTimeMinutes = averageWaitingTimeMinutes;
     }
 
+    public BigDecimal getWaitingTimeP50Minutes() {
+        return waitingTimeP50Minutes;
+    }
+
+    public void setWaitingTimeP50Minutes(BigDecimal waitingTimeP50Minutes) {
+        this.waitingTimeP50Minutes = waitingTimeP50Minutes;
+    }
+
+    public BigDecimal getWaitingTimeP90Minutes() {
+        return waitingTimeP90Minutes;
+    }
+
+    public void setWaitingTimeP90Minutes(BigDecimal waitingTimeP90Minutes) {
+        this.waitingTimeP90Minutes = waitingTimeP90Minutes;
+    }
+
     public BigDecimal getNoShowRate() {
         return noShowRate;
     }
@@ -1,5 +1,7 @@
 package com.is442.backend.dto;
 
+import java.util.UUID;
+
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.is442.backend.model.ClinicStaff;;
 
@@ -39,6 +41,15 @@ public class StaffResponse extends UserResponse {
         this.position = position;
     }
 
+    // Used by the constructor-expression query in UserRepository.findAllStaffResponses
+    public StaffResponse(UUID supabaseUserId, String email, String firstName, String lastName, String role,
+                         String status, String clinicName, String clinicId, String position) {
+        super(supabaseUserId, email, firstName, lastName, role, status);
+        this.clinicName = clinicName;
+        this.clinicId = clinicId;
+        this.position = position;
+    }
+
     public StaffResponse(ClinicStaff staff) {
         super(staff);
         this.clinicName = staff.getClinicName();
@@ -27,6 +27,25 @@ public class TreatmentNoteResponse {
     public TreatmentNoteResponse() {
     }
 
+    // Used by the constructor-expression queries in TreatmentNoteRepository; appointment and doctor
+    // columns are null when the outer join finds no row
+    public TreatmentNoteResponse(Long id, UUID appointmentId, String patientId, String doctorId, String clinicId,
+                                 String doctorName, String clinicName, String noteType, String notes,
+                                 String createdBy, OffsetDateTime createdAt, OffsetDateTime updatedAt) {
+        this.id = id;
+        this.appointmentId = appointmentId;
+        this.patientId = patientId != null ? UUID.fromString(patientId) : null;
+        this.doctorId = doctorId;
+        this.clinicId = clinicId;
+        this.doctorName = doctorName != null ? doctorName : "Unknown Doctor";
+        this.clinicName = clinicName != null ? clinicName : "Unknown Clinic";
+        this.noteType = noteType;
+        this.notes = notes;
+        this.createdBy = createdBy;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Getters and Setters
     public Long getId() {
         return id;
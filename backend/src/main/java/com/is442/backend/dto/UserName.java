@@ -0,0 +1,14 @@
+package com.is442.backend.dto;
+
+import java.util.UUID;
+
+/**
+ * Display name of a user, for resolving created-by ids in bulk without loading users.
+ */
+public interface UserName {
+    UUID getSupabaseUserId();
+
+    String getFirstName();
+
+    String getLastName();
+}
@@ -76,6 +76,16 @@ public class UserResponse {
         this.status = status;
     }
 
+    public UserResponse(UUID supabaseUserId, String email, String firstName, String lastName, String role,
+                        String status) {
+        this.supabaseUserId = supabaseUserId;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.role = role;
+        this.status = status;
+    }
+
     public UserResponse(User user) {
         this.supabaseUserId = user.getSupabaseUserId();
         this.email = user.getEmail();
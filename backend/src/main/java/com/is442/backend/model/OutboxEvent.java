@@ -0,0 +1,113 @@
+package com.is442.backend.model;
+
+import jakarta.persistence.*;
+
+import java.time.OffsetDateTime;
+
+/**
+ * An appointment event waiting in the outbox to be relayed (see OutboxRelay).
+ */
+@Entity
+@Table(name = "appointment_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "dedupe_key", nullable = false, unique = true)
+    private String dedupeKey;
+
+    @Column(name = "event_type", nullable = false)
+    private String eventType;
+
+    @Column(name = "appointment_id", nullable = false)
+    private String appointmentId;
+
+    @Column(name = "clinic_id")
+    private String clinicId;
+
+    @Column(name = "destination", nullable = false)
+    private String destination;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "published_at")
+    private OffsetDateTime publishedAt;
+
+    @Column(name = "broadcast_at")
+    private OffsetDateTime broadcastAt;
+
+    @Column(name = "claimed_until")
+    private OffsetDateTime claimedUntil;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    @Column(name = "last_error")
+    private String lastError;
+
+    public OutboxEvent() {
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = OffsetDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getDedupeKey() {
+        return dedupeKey;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getAppointmentId() {
+        return appointmentId;
+    }
+
+    public String getClinicId() {
+        return clinicId;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public OffsetDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public OffsetDateTime getPublishedAt() {
+        return publishedAt;
+    }
+
+    public OffsetDateTime getBroadcastAt() {
+        return broadcastAt;
+    }
+
+    public OffsetDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
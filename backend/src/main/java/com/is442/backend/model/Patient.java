@@ -1,17 +1,38 @@
 package com.is442.backend.model;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.ColumnResult;
+import jakarta.persistence.ConstructorResult;
 import jakarta.persistence.Entity;
 import jakarta.persistence.PrimaryKeyJoinColumn;
+import jakarta.persistence.SqlResultSetMapping;
 import jakarta.persistence.Table;
 
 import java.util.UUID;
 
+import com.is442.backend.dto.PatientResponse;
+
 
 @Entity
 @Table(name = "patient")
 @PrimaryKeyJoinColumn(name = "supabase_user_id")
+// Row shape of PatientRepository.PATIENT_RESPONSE_SQL
+@SqlResultSetMapping(name = Patient.RESPONSE_MAPPING, classes = @ConstructorResult(
+        targetClass = PatientResponse.class,
+        columns = {
+                @ColumnResult(name = "supabase_user_id", type = UUID.class),
+                @ColumnResult(name = "email", type = String.class),
+                @ColumnResult(name = "first_name", type = String.class),
+                @ColumnResult(name = "last_name", type = String.class),
+                @ColumnResult(name = "role", type = String.class),
+                @ColumnResult(name = "status", type = String.class),
+                @ColumnResult(name = "phone", type = String.class),
+                @ColumnResult(name = "date_of_birth", type = String.class),
+                @ColumnResult(name = "gender", type = String.class)
+        }))
 public class Patient extends User {
+    public static final String RESPONSE_MAPPING = "PatientResponse";
+
     @Column(name = "phone")
     private String phone;
 
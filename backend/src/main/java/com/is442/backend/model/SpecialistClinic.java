@@ -1,9 +1,13 @@
 package com.is442.backend.model;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import jakarta.persistence.*;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "specialist_clinic")
 @Table(name = "specialist_clinic")
 public class SpecialistClinic extends Clinic {
     @Id
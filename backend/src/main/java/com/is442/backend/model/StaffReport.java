@@ -32,6 +32,14 @@ public class StaffReport {
     @JsonProperty("average_waiting_time_minutes")
     private BigDecimal averageWaitingTimeMinutes;
 
+    @Column(name = "waiting_time_p50_minutes")
+    @JsonProperty("waiting_time_p50_minutes")
+    private BigDecimal waitingTimeP50Minutes;
+
+    @Column(name = "waiting_time_p90_minutes")
+    @JsonProperty("waiting_time_p90_minutes")
+    private BigDecimal waitingTimeP90Minutes;
+
     @Column(name = "no_show_rate")
     @JsonProperty("no_show_rate")
     private BigDecimal noShowRate;
@@ -121,6 +129,22 @@ public class StaffReport {
         this.averageWaitingTimeMinutes = averageWaitingTimeMinutes;
     }
 
+    public BigDecimal getWaitingTimeP50Minutes() {
+        return waitingTimeP50Minutes;
+    }
+
+    public void setWaitingTimeP50Minutes(BigDecimal waitingTimeP50Minutes) {
+        this.waitingTimeP50Minutes = waitingTimeP50Minutes;
+    }
+
+    public BigDecimal getWaitingTimeP90Minutes() {
+        return waitingTimeP90Minutes;
+    }
+
+    public void setWaitingTimeP90Minutes(BigDecimal waitingTimeP90Minutes) {
+        this.waitingTimeP90Minutes = waitingTimeP90Minutes;
+    }
+
     public BigDecimal getNoShowRate() {
         return noShowRate;
     }
@@ -10,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.is442.backend.dto.AppointmentStatusCount;
+import com.is442.backend.dto.DailyClinicMetrics;
 import com.is442.backend.model.Appointment;
 
 @Repository
@@ -61,4 +63,29 @@ public interface AppointmentRepository extends JpaRepository<Appointment, UUID>
     List<Appointment> findUpcomingAppointments(
             @Param("today") LocalDate today
     );
+
+    // Admin statistics: one row per status, so the table never leaves the database
+    @Query("SELECT a.status AS status, COUNT(a) AS total, " +
+            "SUM(CASE WHEN a.type = 'WALK_IN' THEN 1L ELSE 0L END) AS walkIns, " +
+            "SUM(CASE WHEN a.bookingDate = :today THEN 1L ELSE 0L END) AS today " +
+            "FROM Appointment a GROUP BY a.status")
+    List<AppointmentStatusCount> countByStatus(@Param("today") LocalDate today);
+
+    // Staff report metrics for one clinic-day; only that day's rows are read (idx_appointment_clinic_date)
+    // Aliases are snake_case: Postgres folds unquoted aliases to lower case, and the projection maps snake_case back
+    @Query(value = "SELECT COUNT(*) AS total_appointments, " +
+            "COUNT(*) FILTER (WHERE a.status = 'COMPLETED') AS patients_seen, " +
+            "COUNT(*) FILTER (WHERE a.status = 'NO_SHOW') AS no_show_count, " +
+            "COALESCE(SUM(w.minutes), 0) AS wait_minutes_sum, " +
+            "COUNT(w.minutes) AS wait_count, " +
+            "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY w.minutes) AS wait_p50, " +
+            "PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY w.minutes) AS wait_p90 " +
+            "FROM appointment a " +
+            "CROSS JOIN LATERAL (SELECT CASE WHEN a.status = 'COMPLETED' " +
+            "AND a.updated_at >= a.booking_date + a.start_time " +
+            "THEN FLOOR(EXTRACT(EPOCH FROM a.updated_at - (a.booking_date + a.start_time)) / 60)::bigint " +
+            "END AS minutes) w " +
+            "WHERE a.clinic_id = :clinicId AND a.booking_date = :date",
+            nativeQuery = true)
+    DailyClinicMetrics getDailyClinicMetrics(@Param("clinicId") String clinicId, @Param("date") LocalDate date);
 }
@@ -1,29 +1,58 @@
 package com.is442.backend.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import com.is442.backend.dto.DoctorDto;
 import com.is442.backend.model.Doctor;
 
+import jakarta.persistence.QueryHint;
+
 import java.util.Optional;
 
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
 
+    // Availability searches hit these constantly; results live in the query cache (see ehcache.xml)
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "doctor_queries")})
     List<Doctor> findBySpecialityIgnoreCase(String speciality);
 
     List<Doctor> findBySpecialityAndClinicId(String speciality, String clinicId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "doctor_queries")})
     List<Doctor> findBySpecialityIgnoreCaseAndClinicId(String speciality, String clinicId);
 
     Optional<Doctor> findByDoctorIdAndClinicId(String doctorId, String clinicId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "doctor_queries")})
     Optional<Doctor> findByDoctorId(String doctorId);
 
     List<Doctor> findByClinicId(String clinicId);
 
+    List<Doctor> findByDoctorIdIn(Collection<String> doctorIds);
+
+    // Listings: DTOs straight from the query, no managed entities to hydrate or dirty-check
+    @Query("SELECT new com.is442.backend.dto.DoctorDto(d.doctorId, d.doctorName, d.clinicId, d.clinicName, " +
+            "d.clinicAddress, d.speciality) FROM Doctor d ORDER BY d.doctorId")
+    List<DoctorDto> findAllDtos();
+
+    @Query("SELECT new com.is442.backend.dto.DoctorDto(d.doctorId, d.doctorName, d.clinicId, d.clinicName, " +
+            "d.clinicAddress, d.speciality) FROM Doctor d WHERE d.clinicId = :clinicId ORDER BY d.doctorId")
+    List<DoctorDto> findDtosByClinicId(@Param("clinicId") String clinicId);
+
 
 }
@@ -1,14 +1,22 @@
 package com.is442.backend.repository;
 
+import com.is442.backend.dto.GpClinicDto;
 import com.is442.backend.model.GpClinic;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface GpClinicRepository extends JpaRepository<GpClinic, Integer> {
     Page<GpClinic> findAll(Pageable pageable);
 
     Optional<GpClinic> findByClinicId(String clinicId);
+
+    // Returns a List, not a Page, so no count query is issued
+    @Query("SELECT new com.is442.backend.dto.GpClinicDto(g.sn, g.clinicId, g.pcn, g.clinicName, g.address, " +
+            "g.telephoneNum, g.openingHours, g.closingHours) FROM GpClinic g ORDER BY g.sn")
+    List<GpClinicDto> findDtos(Pageable pageable);
 }
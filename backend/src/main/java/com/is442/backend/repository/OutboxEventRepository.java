@@ -0,0 +1,71 @@
+package com.is442.backend.repository;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.is442.backend.model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Insert is idempotent on dedupe_key so replayed writers cannot enqueue an event twice
+    @Modifying
+    @Query(value = "INSERT INTO appointment_outbox " +
+            "(dedupe_key, event_type, appointment_id, clinic_id, destination, payload, created_at, attempts) " +
+            "VALUES (:dedupeKey, :eventType, :appointmentId, :clinicId, :destination, :payload, CURRENT_TIMESTAMP, 0) " +
+            "ON CONFLICT (dedupe_key) DO NOTHING", nativeQuery = true)
+    int insertIgnoringDuplicates(@Param("dedupeKey") String dedupeKey,
+                                 @Param("eventType") String eventType,
+                                 @Param("appointmentId") String appointmentId,
+                                 @Param("clinicId") String clinicId,
+                                 @Param("destination") String destination,
+                                 @Param("payload") String payload);
+
+    // Held until the relay's claim transaction ends, so instances take their claims one at a time
+    @Query(value = "SELECT pg_try_advisory_xact_lock(hashtext('appointment_outbox'))", nativeQuery = true)
+    boolean tryLockRelay();
+
+    // Another instance (or a pass of this one that never released) is still within its lease
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM appointment_outbox " +
+            "WHERE published_at IS NULL AND claimed_until > CURRENT_TIMESTAMP)", nativeQuery = true)
+    boolean hasLiveClaim();
+
+    @Query(value = "SELECT * FROM appointment_outbox WHERE published_at IS NULL ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<OutboxEvent> findPending(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE appointment_outbox SET claimed_until = CURRENT_TIMESTAMP + :leaseMillis * INTERVAL '1 millisecond' " +
+            "WHERE id IN (:ids)", nativeQuery = true)
+    int claim(@Param("ids") Collection<Long> ids, @Param("leaseMillis") long leaseMillis);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = NULL WHERE e.id IN :ids")
+    int releaseClaims(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.broadcastAt = :broadcastAt WHERE e.id IN :ids")
+    int markBroadcast(@Param("ids") Collection<Long> ids, @Param("broadcastAt") OffsetDateTime broadcastAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :publishedAt, e.attempts = e.attempts + 1, e.lastError = NULL " +
+            "WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("publishedAt") OffsetDateTime publishedAt);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :cutoff")
+    int deletePublishedBefore(@Param("cutoff") OffsetDateTime cutoff);
+
+    long countByPublishedAtIsNull();
+}
@@ -3,9 +3,13 @@ package com.is442.backend.repository;
 import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.is442.backend.dto.PatientResponse;
 import com.is442.backend.model.Patient;
 
 @Repository
@@ -14,5 +18,26 @@ public interface PatientRepository extends JpaRepository<Patient, UUID> {
 
     Optional<Patient> findBysupabaseUserId(UUID supabaseUserId);
 
-    java.util.List<Patient> findByEmailContainingIgnoreCase(String emailPart);
+    // Hibernate maps Patient.phone and User.phone onto the same users.phone column, so these
+    // projections are native: the patient row's phone wins, and a blank one falls back to the
+    // account's phone, as PatientResponse(Patient) does.
+    String PATIENT_RESPONSE_SQL = "SELECT u.supabase_user_id, u.email, u.first_name, u.last_name, u.role, u.status, " +
+            "COALESCE(NULLIF(TRIM(p.phone), ''), NULLIF(TRIM(u.phone), ''), p.phone) AS phone, " +
+            "p.date_of_birth, p.gender FROM patient p JOIN users u ON u.supabase_user_id = p.supabase_user_id";
+
+    // Email search for the staff typeahead. Patterns are lower-cased and LIKE-escaped by the caller;
+    // both queries filter on LOWER(email) so they can use the indexes in PatientEmailSearch.sql.
+    // No ORDER BY, so the limit stops the index scan early; the service ranks the page it gets.
+    @NativeQuery(value = PATIENT_RESPONSE_SQL + " WHERE LOWER(u.email) LIKE :prefix ESCAPE '\\'",
+            sqlResultSetMapping = Patient.RESPONSE_MAPPING)
+    java.util.List<PatientResponse> searchByEmailPrefix(@Param("prefix") String prefix, Pageable pageable);
+
+    @NativeQuery(value = PATIENT_RESPONSE_SQL + " WHERE LOWER(u.email) LIKE :infix ESCAPE '\\' " +
+            "AND LOWER(u.email) NOT LIKE :prefix ESCAPE '\\'", sqlResultSetMapping = Patient.RESPONSE_MAPPING)
+    java.util.List<PatientResponse> searchByEmailInfix(@Param("infix") String infix, @Param("prefix") String prefix,
+                                                        Pageable pageable);
+
+    // Maps columns straight into the response instead of hydrating every User subtype through findAll()
+    @NativeQuery(value = PATIENT_RESPONSE_SQL, sqlResultSetMapping = Patient.RESPONSE_MAPPING)
+    java.util.List<PatientResponse> findAllPatientResponses();
 }
@@ -1,14 +1,24 @@
 package com.is442.backend.repository;
 
+import com.is442.backend.dto.SpecialistClinicDto;
 import com.is442.backend.model.SpecialistClinic;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface SpecialistClinicRepository extends JpaRepository<SpecialistClinic, Integer> {
     Page<SpecialistClinic> findAll(Pageable pageable);
 
     Optional<SpecialistClinic> findByIhpClinicId(String ihpClinicId);
+
+    // Returns a List, not a Page, so no count query is issued
+    @Query("SELECT new com.is442.backend.dto.SpecialistClinicDto(s.sn, s.ihpClinicId, s.region, s.area, " +
+            "s.clinicName, s.address, s.telephoneNum, s.speciality, s.monToFriAm, s.monToFriPm, s.monToFriNight, " +
+            "s.satAm, s.satPm, s.satNight, s.sunAm, s.sunPm, s.sunNight, " +
+            "s.publicHolidayAm, s.publicHolidayPm, s.publicHolidayNight) FROM SpecialistClinic s ORDER BY s.sn")
+    List<SpecialistClinicDto> findDtos(Pageable pageable);
 }
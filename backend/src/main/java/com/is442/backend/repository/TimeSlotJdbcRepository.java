@@ -0,0 +1,64 @@
+package com.is442.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Time;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.is442.backend.model.TimeSlot;
+
+/**
+ * Bulk time_slot writes that bypass the JPA persistence context. IDENTITY ids
+ * stop Hibernate from batching inserts, so saveAll costs one round trip per row.
+ */
+@Repository
+public class TimeSlotJdbcRepository {
+
+    // Overlap is checked in SQL, so rows from earlier statements in the same batch are seen too
+    private static final String INSERT_IF_FREE = "INSERT INTO time_slot (doctor_id, doctor_name, day_of_week, start_time, end_time) " +
+            "SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS (" +
+            "SELECT 1 FROM time_slot t WHERE t.doctor_id = ? AND t.day_of_week = ? " +
+            "AND t.start_time < ? AND t.end_time > ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimeSlotJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the slots in JDBC batches, skipping any that overlap an existing slot
+     * for the same doctor and day. Returns the number of rows inserted.
+     */
+    public int insertSkippingOverlaps(List<TimeSlot> slots, int batchSize) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_IF_FREE, slots, batchSize, (PreparedStatement ps, TimeSlot slot) -> {
+            Time start = Time.valueOf(slot.getStartTime());
+            Time end = Time.valueOf(slot.getEndTime());
+            ps.setString(1, slot.getDoctorId());
+            ps.setString(2, slot.getDoctorName());
+            ps.setString(3, slot.getDayOfWeek());
+            ps.setTime(4, start);
+            ps.setTime(5, end);
+            ps.setString(6, slot.getDoctorId());
+            ps.setString(7, slot.getDayOfWeek());
+            ps.setTime(8, end);
+            ps.setTime(9, start);
+        });
+
+        int inserted = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    inserted += count;
+                } else if (count == Statement.SUCCESS_NO_INFO) {
+                    // only reported if the driver rewrites the batch, which pgjdbc does not do for INSERT ... SELECT
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
+}
@@ -1,7 +1,16 @@
 package com.is442.backend.repository;
 
+import com.is442.backend.dto.TimeSlotDto;
 import com.is442.backend.model.TimeSlot;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,11 +20,35 @@ import java.util.List;
 public interface TimeSlotRepository extends JpaRepository<TimeSlot, Long> {
     List<TimeSlot> findByDoctorId(String doctorId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "time_slot_queries")})
     List<TimeSlot> findByDoctorIdAndDayOfWeek(String doctorId, String dayOfWeek);
 
     List<TimeSlot> findByDayOfWeek(String dayOfWeek);
 
+    // Admin listings: DTOs straight from the query, no managed entities to hydrate or dirty-check
+    @Query("SELECT new com.is442.backend.dto.TimeSlotDto(t.id, t.doctorId, t.doctorName, t.dayOfWeek, " +
+            "t.startTime, t.endTime, true) FROM TimeSlot t ORDER BY t.doctorId, t.dayOfWeek, t.startTime")
+    List<TimeSlotDto> findAllDtos();
+
+    @Query("SELECT new com.is442.backend.dto.TimeSlotDto(t.id, t.doctorId, t.doctorName, t.dayOfWeek, " +
+            "t.startTime, t.endTime, true) FROM TimeSlot t WHERE t.doctorId = :doctorId " +
+            "ORDER BY t.dayOfWeek, t.startTime")
+    List<TimeSlotDto> findDtosByDoctorId(@Param("doctorId") String doctorId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "time_slot_queries")})
     List<TimeSlot> findByDoctorIdIn(List<String> doctorIds);
 
+    // Set-based deletes: one statement, no entities loaded into the persistence context
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM TimeSlot t WHERE t.doctorId = :doctorId")
+    int deleteAllByDoctorId(@Param("doctorId") String doctorId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM TimeSlot t WHERE t.doctorId = :doctorId AND t.dayOfWeek = :dayOfWeek")
+    int deleteAllByDoctorIdAndDayOfWeek(@Param("doctorId") String doctorId, @Param("dayOfWeek") String dayOfWeek);
 
 }
@@ -1,5 +1,6 @@
 package com.is442.backend.repository;
 
+import com.is442.backend.dto.TreatmentNoteResponse;
 import com.is442.backend.model.TreatmentNote;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -26,5 +27,20 @@ public interface TreatmentNoteRepository extends JpaRepository<TreatmentNote, Lo
     Optional<TreatmentNote> findFirstByAppointmentIdOrderByCreatedAtDesc(UUID appointmentId);
 
     List<TreatmentNote> findByAppointmentIdOrderByCreatedAtDesc(UUID appointmentId);
+
+    // Notes with their appointment and doctor joined in, in one query (creator names are resolved separately)
+    @Query("SELECT new com.is442.backend.dto.TreatmentNoteResponse(tn.id, tn.appointmentId, a.patientId, a.doctorId, " +
+            "a.clinicId, d.doctorName, d.clinicName, tn.noteType, tn.notes, tn.createdBy, tn.createdAt, tn.updatedAt) " +
+            "FROM TreatmentNote tn LEFT JOIN Appointment a ON a.appointmentId = tn.appointmentId " +
+            "LEFT JOIN Doctor d ON d.doctorId = a.doctorId " +
+            "WHERE tn.appointmentId = :appointmentId ORDER BY tn.createdAt DESC")
+    List<TreatmentNoteResponse> findResponsesByAppointmentId(@Param("appointmentId") UUID appointmentId);
+
+    @Query("SELECT new com.is442.backend.dto.TreatmentNoteResponse(tn.id, tn.appointmentId, a.patientId, a.doctorId, " +
+            "a.clinicId, d.doctorName, d.clinicName, tn.noteType, tn.notes, tn.createdBy, tn.createdAt, tn.updatedAt) " +
+            "FROM TreatmentNote tn JOIN Appointment a ON a.appointmentId = tn.appointmentId " +
+            "LEFT JOIN Doctor d ON d.doctorId = a.doctorId " +
+            "WHERE a.patientId = :patientId ORDER BY tn.createdAt DESC")
+    List<TreatmentNoteResponse> findResponsesByPatientId(@Param("patientId") String patientId);
 }
 
@@ -1,9 +1,15 @@
 package com.is442.backend.repository;
 
+import com.is442.backend.dto.StaffResponse;
+import com.is442.backend.dto.UserName;
 import com.is442.backend.model.*;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,4 +21,13 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     // Find by Supabase Auth user ID (UUID string)
     Optional<User> findBySupabaseUserId(UUID supabaseUserId);
 
+    // Queries clinic_staff joined to users only, instead of findAll() over every User subtype
+    @Query("SELECT new com.is442.backend.dto.StaffResponse(s.supabaseUserId, s.email, s.firstName, s.lastName, " +
+            "s.role, s.status, s.clinicName, s.clinicId, s.position) FROM ClinicStaff s")
+    List<StaffResponse> findAllStaffResponses();
+
+    @Query("SELECT u.supabaseUserId AS supabaseUserId, u.firstName AS firstName, u.lastName AS lastName " +
+            "FROM User u WHERE u.supabaseUserId IN :ids")
+    List<UserName> findNamesBySupabaseUserIdIn(@Param("ids") Collection<UUID> ids);
+
 }
@@ -0,0 +1,32 @@
+package com.is442.backend.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+/**
+ * Publishes relayed outbox events to the appointment-events topic, keyed by clinic.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class AppointmentEventProducer {
+    static final String TOPIC_NAME = "appointment-events";
+
+    private final KafkaEventPublisher publisher;
+
+    public AppointmentEventProducer(KafkaEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    public CompletableFuture<SendResult<String, Object>> publish(String clinicId, String eventType,
+                                                                 String dedupeKey, String json) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(TOPIC_NAME, clinicId, json);
+        record.headers().add("eventType", eventType.getBytes(StandardCharsets.UTF_8));
+        record.headers().add("dedupeKey", dedupeKey.getBytes(StandardCharsets.UTF_8));
+        return publisher.send(record);
+    }
+}
@@ -1,9 +1,12 @@
 package com.is442.backend.service;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -11,8 +14,7 @@ import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,20 +28,18 @@ import com.is442.backend.repository.AppointmentRepository;
 import com.is442.backend.repository.DoctorRepository;
 import com.is442.backend.repository.PatientRepository;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.Query;
 
 @Service
 @Transactional
 public class AppointmentService {
     private static final Logger logger = LoggerFactory.getLogger(AppointmentService.class);
 
-    private final AppointmentRepository appointmentRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    /** Exclusion constraint from AppointmentBookingConstraint.sql, and the SQLState Postgres raises for it. */
+    private static final String DOUBLE_BOOKING_CONSTRAINT = "appointment_no_double_booking";
+    private static final String EXCLUSION_VIOLATION = "23P01";
 
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final AppointmentRepository appointmentRepository;
+    private final OutboxService outboxService;
 
     @Autowired // needed so springboot know to inject this
     private DoctorRepository doctorRepository;
@@ -47,9 +47,9 @@ public class AppointmentService {
     @Autowired
     private PatientRepository patientRepository;
 
-    public AppointmentService(AppointmentRepository appointmentRepository, SimpMessagingTemplate messagingTemplate) {
+    public AppointmentService(AppointmentRepository appointmentRepository, OutboxService outboxService) {
         this.appointmentRepository = appointmentRepository;
-        this.messagingTemplate = messagingTemplate;
+        this.outboxService = outboxService;
     }
 
     /**
@@ -68,6 +68,31 @@ public class AppointmentService {
         }
     }
 
+    /**
+     * Flushes a booking straight away so the database's double-booking constraint
+     * fires here, and reports it the same way as the conflict pre-check does.
+     * The pre-check only catches conflicts that are already committed; the
+     * constraint also covers two requests racing for the same slot.
+     */
+    private Appointment saveBooking(Appointment appointment) {
+        try {
+            return appointmentRepository.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (isDoubleBooking(e)) {
+                throw new RuntimeException("Doctor already has an appointment during this time slot");
+            }
+            throw e;
+        }
+    }
+
+    private boolean isDoubleBooking(DataIntegrityViolationException e) {
+        Throwable cause = e.getMostSpecificCause();
+        if (cause instanceof SQLException sqlException && EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+            return true;
+        }
+        return cause.getMessage() != null && cause.getMessage().contains(DOUBLE_BOOKING_CONSTRAINT);
+    }
+
     public AppointmentResponse createAppointment(AppointmentRequest request) {
         List<Appointment> conflicts = appointmentRepository.findConflictingAppointments(
                 request.getDoctorId(),
@@ -96,35 +121,22 @@ public class AppointmentService {
                 appointment.getPatientId(), appointment.getDoctorId(), appointment.getClinicId(),
                 appointment.getBookingDate(), appointment.getStartTime(), appointment.getEndTime());
 
-        Appointment saved = appointmentRepository.save(appointment);
+        Appointment saved = saveBooking(appointment);
         logger.info("Saved appointment id={}, clinicId={}", saved.getAppointmentId(), saved.getClinicId());
 
         // publish slot removal so other clients can update their UI in real-time
-        try {
-            com.is442.backend.dto.SlotUpdateDto update = new com.is442.backend.dto.SlotUpdateDto(
-                    saved.getClinicId(), saved.getDoctorId(),
-                    saved.getBookingDate().toString(),
-                    saved.getStartTime().toString(),
-                    saved.getEndTime().toString(),
-                    "REMOVE");
-            // broadcast on /topic/slots — clients may filter by clinicId/doctorId
-            messagingTemplate.convertAndSend("/topic/slots", update);
-        } catch (Exception e) {
-            logger.warn("Failed to publish slot update message: {}", e.getMessage());
-        }
+        com.is442.backend.dto.SlotUpdateDto update = new com.is442.backend.dto.SlotUpdateDto(
+                saved.getClinicId(), saved.getDoctorId(),
+                saved.getBookingDate().toString(),
+                saved.getStartTime().toString(),
+                Objects.toString(saved.getEndTime(), null),
+                "REMOVE");
+        // broadcast on /topic/slots — clients may filter by clinicId/doctorId
+        outboxService.record("/topic/slots", saved.getAppointmentId(), saved.getClinicId(), update);
 
         // --- NEW: publish appointment creation so staff dashboards receive it
         // immediately ---
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.of(
-                    "appointmentId", saved.getAppointmentId().toString(),
-                    "status", saved.getStatus(),
-                    "clinicId", saved.getClinicId(),
-                    "patientId", saved.getPatientId(),
-                    "doctorId", saved.getDoctorId()));
-        } catch (Exception e) {
-            logger.warn("Failed to publish appointment creation event: {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", saved.getAppointmentId(), saved.getClinicId(), statusEvent(saved, saved.getStatus()));
 
         return new AppointmentResponse(saved);
     }
@@ -353,16 +365,7 @@ public class AppointmentService {
         appointment.setStatus(status);
         Appointment updated = appointmentRepository.save(appointment);
         // Broadcast status change so staff dashboards can update in real-time
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.of(
-                    "appointmentId", updated.getAppointmentId().toString(),
-                    "status", updated.getStatus(),
-                    "clinicId", updated.getClinicId(),
-                    "patientId", updated.getPatientId(),
-                    "doctorId", updated.getDoctorId()));
-        } catch (Exception e) {
-            logger.warn("Failed to publish appointment status update: {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", updated.getAppointmentId(), updated.getClinicId(), statusEvent(updated, updated.getStatus()));
         return new AppointmentResponse(updated);
     }
 
@@ -421,7 +424,7 @@ public class AppointmentService {
         // Keep status as SCHEDULED so it appears in upcoming appointments
 
         // Save the updated appointment
-        Appointment updated = appointmentRepository.save(appointment);
+        Appointment updated = saveBooking(appointment);
 
         // Get doctor details for response
         Optional<Doctor> docOpt = doctorRepository.findByDoctorId(updated.getDoctorId());
@@ -442,22 +445,7 @@ public class AppointmentService {
             }
         }
         // Publish reschedule event (staff) so patient dashboard / other staff update
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.ofEntries(
-                    java.util.Map.entry("appointmentId", updated.getAppointmentId().toString()),
-                    java.util.Map.entry("status", "RESCHEDULED"),
-                    java.util.Map.entry("clinicId", updated.getClinicId()),
-                    java.util.Map.entry("patientId", updated.getPatientId()),
-                    java.util.Map.entry("doctorId", updated.getDoctorId()),
-                    java.util.Map.entry("doctorName", doctorName),
-                    java.util.Map.entry("clinicName", clinicName),
-                    java.util.Map.entry("bookingDate", updated.getBookingDate().toString()),
-                    java.util.Map.entry("startTime", updated.getStartTime().toString()),
-                    java.util.Map.entry("endTime", updated.getEndTime().toString()),
-                    java.util.Map.entry("type", updated.getType() != null ? updated.getType() : "UNKNOWN")));
-        } catch (Exception e) {
-            logger.warn("Failed to publish staff reschedule event: {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", updated.getAppointmentId(), updated.getClinicId(), rescheduleEvent(updated, doctorName, clinicName));
 
         return new AppointmentResponse(updated, doctorName, clinicName, clinicType);
     }
@@ -472,16 +460,7 @@ public class AppointmentService {
 
         // Validate 24-hour advance notice
         validateAdvanceNotice(appointment);
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.of(
-                    "appointmentId", appointment.getAppointmentId().toString(),
-                    "status", "CANCELLED",
-                    "clinicId", appointment.getClinicId(),
-                    "patientId", appointment.getPatientId(),
-                    "doctorId", appointment.getDoctorId()));
-        } catch (Exception e) {
-            logger.warn("Failed to publish appointment cancellation: {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", appointment.getAppointmentId(), appointment.getClinicId(), statusEvent(appointment, "CANCELLED"));
 
         appointmentRepository.deleteById(id);
     }
@@ -490,16 +469,7 @@ public class AppointmentService {
     public void deleteAppt(UUID id) {
         Appointment appointment = appointmentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Appointment not found with id: " + id));
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.of(
-                    "appointmentId", appointment.getAppointmentId().toString(),
-                    "status", "CANCELLED",
-                    "clinicId", appointment.getClinicId(),
-                    "patientId", appointment.getPatientId(),
-                    "doctorId", appointment.getDoctorId()));
-        } catch (Exception e) {
-            logger.warn("Failed to publish appointment cancellation (staff): {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", appointment.getAppointmentId(), appointment.getClinicId(), statusEvent(appointment, "CANCELLED"));
         appointmentRepository.deleteById(id);
     }
 
@@ -534,7 +504,7 @@ public class AppointmentService {
         // Keep status as SCHEDULED so it appears in upcoming appointments
 
         // Save the updated appointment
-        Appointment updated = appointmentRepository.save(appointment);
+        Appointment updated = saveBooking(appointment);
 
         // Get doctor details for response
         Optional<Doctor> docOpt = doctorRepository.findByDoctorId(updated.getDoctorId());
@@ -556,190 +526,11 @@ public class AppointmentService {
         }
 
         // Publish reschedule event (staff) so patient dashboard / other staff update
-        try {
-            messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.ofEntries(
-                    java.util.Map.entry("appointmentId", updated.getAppointmentId().toString()),
-                    java.util.Map.entry("status", "RESCHEDULED"),
-                    java.util.Map.entry("clinicId", updated.getClinicId()),
-                    java.util.Map.entry("patientId", updated.getPatientId()),
-                    java.util.Map.entry("doctorId", updated.getDoctorId()),
-                    java.util.Map.entry("doctorName", doctorName),
-                    java.util.Map.entry("clinicName", clinicName),
-                    java.util.Map.entry("bookingDate", updated.getBookingDate().toString()),
-                    java.util.Map.entry("startTime", updated.getStartTime().toString()),
-                    java.util.Map.entry("endTime", updated.getEndTime().toString()),
-                    java.util.Map.entry("type", updated.getType() != null ? updated.getType() : "UNKNOWN")));
-        } catch (Exception e) {
-            logger.warn("Failed to publish staff reschedule event: {}", e.getMessage());
-        }
+        outboxService.record("/topic/appointments/status", updated.getAppointmentId(), updated.getClinicId(), rescheduleEvent(updated, doctorName, clinicName));
 
         return new AppointmentResponse(updated, doctorName, clinicName, clinicType);
     }
 
-    /**
-     * Creates a walk-in appointment asynchronously in the background.
-     * This method is called when a patient checks in without a pre-existing
-     * appointment.
-     *
-     * @param appointmentId the UUID of the appointment (already generated)
-     * @param patientId     the patient's UUID
-     * @param clinicId      the clinic identifier
-     * @param doctorId      the doctor ID to assign (can be "UNASSIGNED" if not
-     *                      provided)
-     */
-    @Async("appointmentTaskExecutor")
-    public void createWalkInAppointmentAsync(UUID appointmentId, String patientId, String clinicId, String doctorId) {
-        try {
-            logger.info("Creating walk-in appointment: appointmentId={}, patientId={}, clinicId={}, doctorId={}",
-                    appointmentId, patientId, clinicId, doctorId);
-
-            // Use provided doctorId or default to UNASSIGNED
-            String doctorIdToUse = (doctorId != null && !doctorId.trim().isEmpty()) ? doctorId : "UNASSIGNED";
-            createWalkInAppointmentWithDoctor(appointmentId, patientId, clinicId, doctorIdToUse);
-
-        } catch (Exception e) {
-            logger.error("Error creating walk-in appointment: appointmentId={}, patientId={}, clinicId={}, error={}",
-                    appointmentId, patientId, clinicId, e.getMessage(), e);
-            // Don't throw exception - this is async and we don't want to break the check-in
-            // flow
-        }
-    }
-
-    /**
-     * Helper method to create the walk-in appointment with a specific doctor.
-     * Uses native SQL INSERT to bypass Hibernate's entity management and handle
-     * manually set UUIDs.
-     */
-    private void createWalkInAppointmentWithDoctor(UUID appointmentId, String patientId, String clinicId,
-                                                   String doctorId) {
-        // Check if appointment already exists (might have been created in another
-        // transaction)
-        if (appointmentRepository.findById(appointmentId).isPresent()) {
-            logger.info("Walk-in appointment already exists: appointmentId={}, skipping creation", appointmentId);
-            return;
-        }
-
-        LocalDate today = LocalDate.now();
-        LocalTime now = LocalTime.now();
-        // end_time can be null for walk-in appointments but has some issues, we put an
-        // estimated end time first
-        LocalTime endTime = LocalTime.now().plusHours(1);
-        LocalDateTime createdAt = LocalDateTime.now();
-
-        // Use native SQL INSERT to bypass Hibernate's entity management
-        // This allows us to manually set the UUID without conflicts with
-        // @GeneratedValue
-        String sql = "INSERT INTO appointment (appointment_id, patient_id, doctor_id, clinic_id, " +
-                "booking_date, start_time, end_time, status, type, created_at, updated_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        Query query = entityManager.createNativeQuery(sql);
-        query.setParameter(1, appointmentId);
-        query.setParameter(2, patientId);
-        query.setParameter(3, doctorId);
-        query.setParameter(4, clinicId);
-        query.setParameter(5, today);
-        query.setParameter(6, now);
-        query.setParameter(7, endTime);
-        query.setParameter(8, "SCHEDULED");
-        query.setParameter(9, "WALK_IN");
-        query.setParameter(10, createdAt);
-        query.setParameter(11, createdAt);
-
-        try {
-            query.executeUpdate();
-            entityManager.flush();
-            logger.info("Successfully created walk-in appointment: appointmentId={}, status=SCHEDULED",
-                    appointmentId);
-
-            String doctorName = "";
-            String clinicName = "";
-            try {
-                if (doctorId != null && !"UNASSIGNED".equals(doctorId)) {
-                    Optional<Doctor> docOpt = doctorRepository.findByDoctorId(doctorId);
-                    if (docOpt.isPresent()) {
-                        Doctor doc = docOpt.get();
-                        doctorName = doc.getDoctorName() != null ? doc.getDoctorName() : "";
-                        clinicName = doc.getClinicName() != null ? doc.getClinicName() : "";
-                    }
-                }
-            } catch (Exception e) {
-                logger.warn("Failed to resolve doctor/clinic names for walk-in publish: {}", e.getMessage());
-            }
-            // Broadcast new walk-in as SCHEDULED so dashboards update
-            try {
-                messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.ofEntries(
-                        java.util.Map.entry("appointmentId", appointmentId.toString()),
-                        java.util.Map.entry("status", "SCHEDULED"),
-                        java.util.Map.entry("clinicId", clinicId),
-                        java.util.Map.entry("clinicName", clinicName),
-                        java.util.Map.entry("patientId", patientId),
-                        java.util.Map.entry("doctorId", doctorId),
-                        java.util.Map.entry("doctorName", doctorName),
-                        java.util.Map.entry("bookingDate", today.toString()),
-                        java.util.Map.entry("startTime", now.toString()),
-                        java.util.Map.entry("endTime", endTime.toString()),
-                        java.util.Map.entry("createdAt", createdAt.toString()),
-                        java.util.Map.entry("type", "WALK_IN")));
-            } catch (Exception e2) {
-                logger.warn("Failed to publish walk-in status: {}", e2.getMessage());
-            }
-        } catch (Exception e) {
-            // Check if it's a duplicate key error (appointment was created in another
-            // transaction)
-            String errorMsg = e.getMessage();
-            if (errorMsg != null && (errorMsg.contains("duplicate key") ||
-                    errorMsg.contains("unique constraint") ||
-                    errorMsg.contains("Duplicate entry"))) {
-                logger.info("Walk-in appointment already exists (duplicate key): appointmentId={}, skipping",
-                        appointmentId);
-            } else {
-                throw e; // Re-throw if it's a different error
-            }
-        }
-    }
-
-    /**
-     * Updates the status of an existing appointment to "CHECKED-IN" asynchronously.
-     * This is called when a patient with a booked appointment checks in.
-     *
-     * @param appointmentId the UUID of the appointment
-     */
-    @Async("appointmentTaskExecutor")
-    public void updateAppointmentStatusToCheckedInAsync(UUID appointmentId) {
-        try {
-            logger.info("Updating appointment status to CHECKED-IN: appointmentId={}", appointmentId);
-
-            Optional<Appointment> appointmentOpt = appointmentRepository.findById(appointmentId);
-            if (appointmentOpt.isEmpty()) {
-                logger.warn("Appointment not found for status update: appointmentId={}", appointmentId);
-                return;
-            }
-
-            Appointment appointment = appointmentOpt.get();
-            appointment.setStatus("CHECKED-IN");
-            appointmentRepository.save(appointment);
-
-            logger.info("Successfully updated appointment status to CHECKED-IN: appointmentId={}", appointmentId);
-            // Broadcast checked-in status to listeners
-            try {
-                messagingTemplate.convertAndSend("/topic/appointments/status", java.util.Map.of(
-                        "appointmentId", appointment.getAppointmentId().toString(),
-                        "status", appointment.getStatus(),
-                        "clinicId", appointment.getClinicId(),
-                        "patientId", appointment.getPatientId(),
-                        "doctorId", appointment.getDoctorId()));
-            } catch (Exception e2) {
-                logger.warn("Failed to publish checked-in update: {}", e2.getMessage());
-            }
-        } catch (Exception e) {
-            logger.error("Error updating appointment status to CHECKED-IN: appointmentId={}, error={}",
-                    appointmentId, e.getMessage(), e);
-            // Don't throw exception - this is async and we don't want to break the check-in
-            // flow
-        }
-    }
-
     /**
      * Updates the doctor_id field of an existing appointment.
      * Returns true if the update was successful, false if the appointment doesn't
@@ -771,4 +562,27 @@ public class AppointmentService {
             return false;
         }
     }
+
+    // LinkedHashMap rather than Map.of: doctorId or endTime may be null, and a throw here
+    // would roll back the appointment change along with its event
+    private static Map<String, Object> statusEvent(Appointment appointment, String status) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("appointmentId", appointment.getAppointmentId().toString());
+        event.put("status", status);
+        event.put("clinicId", appointment.getClinicId());
+        event.put("patientId", appointment.getPatientId());
+        event.put("doctorId", appointment.getDoctorId());
+        return event;
+    }
+
+    private static Map<String, Object> rescheduleEvent(Appointment appointment, String doctorName, String clinicName) {
+        Map<String, Object> event = statusEvent(appointment, "RESCHEDULED");
+        event.put("doctorName", doctorName);
+        event.put("clinicName", clinicName);
+        event.put("bookingDate", Objects.toString(appointment.getBookingDate(), null));
+        event.put("startTime", Objects.toString(appointment.getStartTime(), null));
+        event.put("endTime", Objects.toString(appointment.getEndTime(), null));
+        event.put("type", appointment.getType() != null ? appointment.getType() : "UNKNOWN");
+        return event;
+    }
 }
@@ -0,0 +1,468 @@
+package com.is442.backend.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.is442.backend.model.Appointment;
+import com.is442.backend.model.Doctor;
+import com.is442.backend.repository.AppointmentRepository;
+import com.is442.backend.repository.DoctorRepository;
+
+/**
+ * Write-behind for the appointment rows touched by queue check-ins.
+ * <p>
+ * Check-in only records the intent on a Redis Stream (walk-in creation or
+ * CHECKED-IN update) and returns. A scheduled drainer reads the stream through a
+ * consumer group and applies the entries in JDBC batches: one multi-row
+ * INSERT ... ON CONFLICT DO NOTHING for walk-ins and one batched UPDATE for
+ * check-ins. The resulting status events go to the appointment outbox in the
+ * same transaction, so OutboxRelay delivers them like any other appointment
+ * change. Entries are acknowledged only after they are written, so a crash
+ * replays them; entries that keep failing are moved to a dead-letter stream.
+ * Entries left unacknowledged by a consumer that stopped (a replaced container has a
+ * new HOSTNAME) are claimed with XAUTOCLAIM once idle for {@code claim-idle-ms}.
+ */
+@Service
+public class AppointmentWriteBehindService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentWriteBehindService.class);
+
+    static final String STREAM_KEY = "appointments:write-behind";
+    static final String DEAD_LETTER_KEY = "appointments:write-behind:dead";
+    private static final String GROUP = "appointment-writers";
+
+    private static final String OP_WALK_IN = "WALK_IN";
+    private static final String OP_CHECK_IN = "CHECK_IN";
+    private static final String STATUS_DESTINATION = "/topic/appointments/status";
+
+    private static final String INSERT_WALK_IN_PREFIX = "INSERT INTO appointment (appointment_id, patient_id, doctor_id, "
+            + "clinic_id, booking_date, start_time, end_time, status, type, created_at, updated_at) VALUES ";
+    private static final String INSERT_WALK_IN_ROW = "(?, ?, ?, ?, ?, ?, ?, 'SCHEDULED', 'WALK_IN', ?, ?)";
+    private static final String INSERT_WALK_IN_SUFFIX = " ON CONFLICT (appointment_id) DO NOTHING RETURNING appointment_id";
+
+    // Only promote rows still SCHEDULED, so a late replay cannot undo a later status change
+    private static final String UPDATE_CHECK_IN = "UPDATE appointment SET status = 'CHECKED-IN', updated_at = ? "
+            + "WHERE appointment_id = ? AND status = 'SCHEDULED'";
+
+    private final StringRedisTemplate redis;
+    private final JdbcTemplate jdbcTemplate;
+    private final AppointmentRepository appointmentRepository;
+    private final DoctorRepository doctorRepository;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final DefaultRedisScript<Long> claimScript;
+
+    @Value("${app.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.write-behind.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.write-behind.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.write-behind.consumer-name:${HOSTNAME:backend}}")
+    private String consumerName;
+
+    // Well above the poll interval, so entries a live consumer is still retrying are left alone
+    @Value("${app.write-behind.claim-idle-ms:60000}")
+    private long claimIdleMillis;
+
+    private volatile boolean groupReady;
+    private final Map<String, Integer> attempts = new ConcurrentHashMap<>();
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong walkInsInserted = new AtomicLong();
+    private final AtomicLong walkInsSkipped = new AtomicLong();
+    private final AtomicLong checkInsApplied = new AtomicLong();
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong directWrites = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile long lastBatchMillis;
+    private volatile long lastDrainAt;
+
+    public AppointmentWriteBehindService(StringRedisTemplate redis,
+                                         JdbcTemplate jdbcTemplate,
+                                         AppointmentRepository appointmentRepository,
+                                         DoctorRepository doctorRepository,
+                                         OutboxService outboxService,
+                                         PlatformTransactionManager transactionManager,
+                                         @Qualifier("writeBehindClaimScript") DefaultRedisScript<Long> claimScript) {
+        this.redis = redis;
+        this.jdbcTemplate = jdbcTemplate;
+        this.appointmentRepository = appointmentRepository;
+        this.doctorRepository = doctorRepository;
+        this.outboxService = outboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.claimScript = claimScript;
+    }
+
+    /**
+     * Record a walk-in appointment to be created. doctorId may be null (stored as UNASSIGNED).
+     */
+    public void enqueueWalkIn(UUID appointmentId, String patientId, String clinicId, String doctorId) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("op", OP_WALK_IN);
+        fields.put("appointmentId", appointmentId.toString());
+        fields.put("patientId", patientId);
+        fields.put("clinicId", clinicId);
+        fields.put("doctorId", (doctorId != null && !doctorId.isBlank()) ? doctorId : "UNASSIGNED");
+        fields.put("at", String.valueOf(System.currentTimeMillis()));
+        enqueue(fields);
+    }
+
+    /**
+     * Record a booked appointment to be marked CHECKED-IN.
+     */
+    public void enqueueCheckIn(UUID appointmentId) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("op", OP_CHECK_IN);
+        fields.put("appointmentId", appointmentId.toString());
+        fields.put("at", String.valueOf(System.currentTimeMillis()));
+        enqueue(fields);
+    }
+
+    private void enqueue(Map<String, String> fields) {
+        if (enabled) {
+            try {
+                redis.opsForStream().add(StreamRecords.string(fields).withStreamKey(STREAM_KEY));
+                enqueued.incrementAndGet();
+                return;
+            } catch (Exception e) {
+                logger.warn("Write-behind enqueue failed, writing directly: {}", e.getMessage());
+            }
+        }
+        // Redis unavailable (or write-behind switched off): do the write inline rather than lose it
+        directWrites.incrementAndGet();
+        try {
+            apply(List.of(new PendingWrite(null, fields)));
+        } catch (Exception e) {
+            logger.error("Direct appointment write failed for {}: {}", fields, e.getMessage(), e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.write-behind.poll-interval-ms:500}")
+    public void drain() {
+        if (!enabled || !ensureGroup()) {
+            return;
+        }
+        try {
+            claimAbandoned();
+            // Entries this consumer read earlier but never acknowledged (failed, crashed mid-batch or claimed)
+            process(read(ReadOffset.from("0")));
+            process(read(ReadOffset.lastConsumed()));
+            lastDrainAt = System.currentTimeMillis();
+        } catch (Exception e) {
+            logger.warn("Write-behind drain failed: {}", e.getMessage());
+        }
+    }
+
+    private void claimAbandoned() {
+        Long taken = redis.execute(claimScript, List.of(STREAM_KEY),
+                GROUP, consumerName, String.valueOf(claimIdleMillis), String.valueOf(batchSize));
+        if (taken != null && taken > 0) {
+            claimed.addAndGet(taken);
+            logger.info("Claimed {} write-behind entries idle for over {} ms", taken, claimIdleMillis);
+        }
+    }
+
+    private List<MapRecord<String, Object, Object>> read(ReadOffset offset) {
+        return readGroup(StreamOffset.create(STREAM_KEY, offset));
+    }
+
+    // Only passes the array on, so the generic varargs cannot be polluted
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    private List<MapRecord<String, Object, Object>> readGroup(StreamOffset<String>... streams) {
+        List<MapRecord<String, Object, Object>> records = redis.opsForStream().read(
+                Consumer.from(GROUP, consumerName),
+                StreamReadOptions.empty().count(batchSize),
+                streams);
+        return records != null ? records : List.of();
+    }
+
+    private void process(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        List<PendingWrite> writes = records.stream()
+                .map(r -> new PendingWrite(r.getId(), toStringMap(r.getValue())))
+                .toList();
+        try {
+            apply(writes);
+            acknowledge(writes);
+        } catch (Exception batchError) {
+            logger.warn("Write-behind batch of {} failed, retrying entries individually: {}",
+                    writes.size(), batchError.getMessage());
+            for (PendingWrite write : writes) {
+                try {
+                    apply(List.of(write));
+                    acknowledge(List.of(write));
+                } catch (Exception e) {
+                    recordFailure(write, e);
+                }
+            }
+        }
+        lastBatchSize = writes.size();
+        lastBatchMillis = System.currentTimeMillis() - started;
+    }
+
+    /**
+     * Writes one batch in one transaction: a single multi-row insert for walk-ins and
+     * a JDBC batch update for check-ins, plus an outbox event for every row that
+     * actually changed. Keys are derived from the appointment, so a replayed entry
+     * cannot queue its event twice.
+     */
+    private void apply(List<PendingWrite> writes) {
+        Applied applied = transactionTemplate.execute(s -> write(writes));
+        if (applied != null) {
+            walkInsInserted.addAndGet(applied.walkInsInserted());
+            walkInsSkipped.addAndGet(applied.walkInsSkipped());
+            checkInsApplied.addAndGet(applied.checkInsApplied());
+        }
+    }
+
+    private Applied write(List<PendingWrite> writes) {
+        List<PendingWrite> walkIns = writes.stream().filter(w -> OP_WALK_IN.equals(w.op())).toList();
+        List<PendingWrite> checkIns = writes.stream().filter(w -> OP_CHECK_IN.equals(w.op())).toList();
+
+        int inserted = 0;
+        if (!walkIns.isEmpty()) {
+            Set<UUID> insertedIds = insertWalkIns(walkIns);
+            inserted = insertedIds.size();
+            recordWalkIns(walkIns.stream().filter(w -> insertedIds.contains(w.appointmentId())).toList());
+        }
+        List<UUID> checkedIn = new ArrayList<>();
+        if (!checkIns.isEmpty()) {
+            int[][] updated = jdbcTemplate.batchUpdate(UPDATE_CHECK_IN, checkIns, checkIns.size(), (ps, w) -> {
+                ps.setObject(1, w.at());
+                ps.setObject(2, w.appointmentId());
+            });
+            // Replays and rows that moved past SCHEDULED match nothing and get no event
+            int[] counts = Arrays.stream(updated).flatMapToInt(Arrays::stream).toArray();
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    checkedIn.add(checkIns.get(i).appointmentId());
+                }
+            }
+            recordCheckIns(checkedIn);
+        }
+        return new Applied(inserted, walkIns.size() - inserted, checkedIn.size());
+    }
+
+    private Set<UUID> insertWalkIns(List<PendingWrite> walkIns) {
+        StringBuilder sql = new StringBuilder(INSERT_WALK_IN_PREFIX);
+        List<Object> params = new ArrayList<>(walkIns.size() * 9);
+        for (int i = 0; i < walkIns.size(); i++) {
+            PendingWrite w = walkIns.get(i);
+            LocalDateTime at = w.at();
+            sql.append(i == 0 ? "" : ", ").append(INSERT_WALK_IN_ROW);
+            params.add(w.appointmentId());
+            params.add(w.fields().get("patientId"));
+            params.add(w.fields().get("doctorId"));
+            params.add(w.fields().get("clinicId"));
+            params.add(at.toLocalDate());
+            params.add(at.toLocalTime());
+            // end_time is an estimate; walk-ins are served in queue order, not by slot
+            params.add(at.toLocalTime().plusHours(1));
+            params.add(at);
+            params.add(at);
+        }
+        sql.append(INSERT_WALK_IN_SUFFIX);
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), UUID.class, params.toArray()));
+    }
+
+    private void recordWalkIns(List<PendingWrite> inserted) {
+        if (inserted.isEmpty()) {
+            return;
+        }
+        Map<String, Doctor> doctors = doctorRepository.findByDoctorIdIn(inserted.stream()
+                        .map(w -> w.fields().get("doctorId"))
+                        .filter(id -> !"UNASSIGNED".equals(id))
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Doctor::getDoctorId, Function.identity(), (a, b) -> a));
+
+        for (PendingWrite w : inserted) {
+            Optional<Doctor> doc = Optional.ofNullable(doctors.get(w.fields().get("doctorId")));
+            LocalDateTime at = w.at();
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("appointmentId", w.appointmentId().toString());
+            event.put("status", "SCHEDULED");
+            event.put("clinicId", w.fields().get("clinicId"));
+            event.put("clinicName", doc.map(Doctor::getClinicName).orElse(""));
+            event.put("patientId", w.fields().get("patientId"));
+            event.put("doctorId", w.fields().get("doctorId"));
+            event.put("doctorName", doc.map(Doctor::getDoctorName).orElse(""));
+            event.put("bookingDate", at.toLocalDate().toString());
+            event.put("startTime", at.toLocalTime().toString());
+            event.put("endTime", at.toLocalTime().plusHours(1).toString());
+            event.put("createdAt", at.toString());
+            event.put("type", "WALK_IN");
+            outboxService.record(STATUS_DESTINATION, w.appointmentId(), w.fields().get("clinicId"), event,
+                    OP_WALK_IN + ":" + w.appointmentId());
+        }
+    }
+
+    private void recordCheckIns(List<UUID> checkedIn) {
+        if (checkedIn.isEmpty()) {
+            return;
+        }
+        for (Appointment appointment : appointmentRepository.findAllById(checkedIn)) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("appointmentId", appointment.getAppointmentId().toString());
+            event.put("status", "CHECKED-IN");
+            event.put("clinicId", appointment.getClinicId());
+            event.put("patientId", appointment.getPatientId());
+            event.put("doctorId", appointment.getDoctorId());
+            outboxService.record(STATUS_DESTINATION, appointment.getAppointmentId(), appointment.getClinicId(), event,
+                    OP_CHECK_IN + ":" + appointment.getAppointmentId());
+        }
+    }
+
+    private void acknowledge(List<PendingWrite> writes) {
+        RecordId[] ids = writes.stream().map(PendingWrite::id).filter(id -> id != null).toArray(RecordId[]::new);
+        if (ids.length == 0) {
+            return;
+        }
+        redis.opsForStream().acknowledge(STREAM_KEY, GROUP, ids);
+        redis.opsForStream().delete(STREAM_KEY, ids);
+        for (RecordId id : ids) {
+            attempts.remove(id.getValue());
+        }
+    }
+
+    private void recordFailure(PendingWrite write, Exception e) {
+        int attempt = attempts.merge(write.id().getValue(), 1, Integer::sum);
+        if (attempt < maxAttempts) {
+            retries.incrementAndGet();
+            logger.warn("Write-behind entry {} failed (attempt {}/{}): {}",
+                    write.id(), attempt, maxAttempts, e.getMessage());
+            return;
+        }
+        logger.error("Write-behind entry {} failed {} times, moving to {}: {}",
+                write.id(), attempt, DEAD_LETTER_KEY, write.fields(), e);
+        Map<String, String> dead = new LinkedHashMap<>(write.fields());
+        dead.put("error", String.valueOf(e.getMessage()));
+        redis.opsForStream().add(StreamRecords.string(dead).withStreamKey(DEAD_LETTER_KEY));
+        deadLettered.incrementAndGet();
+        acknowledge(List.of(write));
+    }
+
+    private boolean ensureGroup() {
+        if (groupReady) {
+            return true;
+        }
+        try {
+            redis.execute((RedisCallback<String>) (RedisConnection c) -> c.streamCommands()
+                    .xGroupCreate(STREAM_KEY.getBytes(), GROUP, ReadOffset.from("0"), true));
+            groupReady = true;
+        } catch (Exception e) {
+            if (String.valueOf(e.getMessage()).contains("BUSYGROUP")
+                    || (e.getCause() != null && String.valueOf(e.getCause().getMessage()).contains("BUSYGROUP"))) {
+                groupReady = true;
+            } else {
+                logger.debug("Write-behind consumer group not ready: {}", e.getMessage());
+            }
+        }
+        return groupReady;
+    }
+
+    /**
+     * Throughput, retry and lag figures for the admin monitoring page.
+     * lagMillis is the age of the oldest entry not yet written.
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("enqueued", enqueued.get());
+        metrics.put("walkInsInserted", walkInsInserted.get());
+        metrics.put("walkInsSkipped", walkInsSkipped.get());
+        metrics.put("checkInsApplied", checkInsApplied.get());
+        metrics.put("claimed", claimed.get());
+        metrics.put("retries", retries.get());
+        metrics.put("deadLettered", deadLettered.get());
+        metrics.put("directWrites", directWrites.get());
+        metrics.put("lastBatchSize", lastBatchSize);
+        metrics.put("lastBatchMillis", lastBatchMillis);
+        metrics.put("lastDrainAt", lastDrainAt);
+        try {
+            Long backlog = redis.opsForStream().size(STREAM_KEY);
+            metrics.put("backlog", backlog != null ? backlog : 0L);
+            List<MapRecord<String, Object, Object>> oldest = redis.opsForStream()
+                    .range(STREAM_KEY, Range.unbounded(), Limit.limit().count(1));
+            metrics.put("lagMillis", (oldest == null || oldest.isEmpty())
+                    ? 0L
+                    : Math.max(0L, System.currentTimeMillis() - oldest.get(0).getId().getTimestamp()));
+        } catch (Exception e) {
+            metrics.put("backlog", null);
+            metrics.put("lagMillis", null);
+        }
+        return metrics;
+    }
+
+    private static Map<String, String> toStringMap(Map<Object, Object> value) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        value.forEach((k, v) -> fields.put(String.valueOf(k), String.valueOf(v)));
+        return Collections.unmodifiableMap(fields);
+    }
+
+    private record Applied(int walkInsInserted, int walkInsSkipped, int checkInsApplied) {
+    }
+
+    /** One stream entry; id is null for writes done inline without Redis. */
+    private record PendingWrite(RecordId id, Map<String, String> fields) {
+        String op() {
+            return fields.get("op");
+        }
+
+        UUID appointmentId() {
+            return UUID.fromString(fields.get("appointmentId"));
+        }
+
+        LocalDateTime at() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields.get("at"))), ZoneId.systemDefault());
+        }
+    }
+}
@@ -4,8 +4,8 @@ import java.time.LocalTime;
 import java.util.List;
 
 import org.springframework.data.domain.PageRequest;
-import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.is442.backend.dto.GpClinicDto;
 import com.is442.backend.dto.SpecialistClinicDto;
@@ -20,50 +20,25 @@ public class ClinicService {
 
     private final GpClinicRepository gpRepo;
     private final SpecialistClinicRepository spRepo;
-    private final KafkaQueueEventProducer queueEventProducer;
+    private final ReferenceDataCache referenceDataCache;
 
     public ClinicService(
             GpClinicRepository gpRepo,
             SpecialistClinicRepository spRepo,
-            @Nullable KafkaQueueEventProducer queueEventProducer) {
+            ReferenceDataCache referenceDataCache) {
         this.gpRepo = gpRepo;
         this.spRepo = spRepo;
-        this.queueEventProducer = queueEventProducer;
+        this.referenceDataCache = referenceDataCache;
     }
 
+    @Transactional(readOnly = true)
     public List<GpClinicDto> getGpClinics(int limit) {
-        return gpRepo.findAll(PageRequest.of(0, limit))
-                .stream()
-                .map(this::toDto)
-                .toList();
+        return gpRepo.findDtos(PageRequest.of(0, limit));
     }
 
+    @Transactional(readOnly = true)
     public List<SpecialistClinicDto> getSpecialistClinics(int limit) {
-        return spRepo.findAll(PageRequest.of(0, limit))
-                .stream()
-                .map(this::toDto)
-                .toList();
-    }
-
-    public void patientCheckIn(String patientId) {
-        // TODO: replace with real DB/Redis logic
-        int newQueueNumber = 1;
-
-        String message = "Patient " + patientId + " checked in. New queue number is " + newQueueNumber;
-        queueEventProducer.sendQueueUpdate(message);
-    }
-
-    private GpClinicDto toDto(GpClinic g) {
-        return new GpClinicDto(g.getSn(), g.getClinicId(), g.getPcn(), g.getClinicName(), g.getAddress(),
-                g.getTelephoneNum(), g.getOpeningHours(), g.getClosingHours());
-    }
-
-    private SpecialistClinicDto toDto(SpecialistClinic s) {
-        return new SpecialistClinicDto(
-                s.getSn(), s.getIhpClinicId(), s.getRegion(), s.getArea(),
-                s.getClinicName(), s.getAddress(), s.getTelephoneNum(), s.getSpeciality(),
-                s.getMonToFriAm(), s.getMonToFriPm(), s.getMonToFriNight(), s.getSatAm(), s.getSatPm(),
-                s.getSatNight(), s.getSunAm(), s.getSunPm(), s.getSunNight(), s.getPublicHolidayAm(), s.getPublicHolidayPm(), s.getPublicHolidayNight());
+        return spRepo.findDtos(PageRequest.of(0, limit));
     }
 
     // update GP operating hours
@@ -79,6 +54,7 @@ public class ClinicService {
         }
 
         gpRepo.save(clinic);
+        referenceDataCache.evictClinics();
     }
 
     // update Specialist operating hours
@@ -122,6 +98,7 @@ public class ClinicService {
             clinic.setPublicHolidayNight(operatingHours.getPublicHolidayNight());
         }
         spRepo.save(clinic);
+        referenceDataCache.evictClinics();
     }
 
 }
@@ -16,23 +16,21 @@ import com.is442.backend.repository.DoctorRepository;
 public class DoctorService {
 
     private final DoctorRepository doctorRepository;
+    private final ReferenceDataCache referenceDataCache;
 
-    public DoctorService(DoctorRepository doctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository, ReferenceDataCache referenceDataCache) {
         this.doctorRepository = doctorRepository;
+        this.referenceDataCache = referenceDataCache;
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> getAllDoctors() {
-        return doctorRepository.findAll()
-                .stream()
-                .map(this::toDto)
-                .toList();
+        return doctorRepository.findAllDtos();
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> getDoctorsByClinic(String clinicId) {
-        return doctorRepository.findByClinicId(clinicId)
-                .stream()
-                .map(this::toDto)
-                .toList();
+        return doctorRepository.findDtosByClinicId(clinicId);
     }
 
     @Transactional
@@ -53,6 +51,7 @@ public class DoctorService {
         );
 
         Doctor saved = doctorRepository.save(doctor);
+        referenceDataCache.evictDoctors();
         return toDto(saved);
     }
 
@@ -80,6 +79,7 @@ public class DoctorService {
         }
 
         Doctor updated = doctorRepository.save(doctor);
+        referenceDataCache.evictDoctors();
         return toDto(updated);
     }
 
@@ -89,6 +89,7 @@ public class DoctorService {
                 .orElseThrow(() -> new RuntimeException("Doctor not found with ID: " + doctorId));
 
         doctorRepository.delete(doctor);
+        referenceDataCache.evictDoctors();
     }
 
     public DoctorDto getDoctorById(String doctorId) {
@@ -0,0 +1,187 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.service.NotificationTemplates.EmailField;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * EMAIL notification channel.
+ * <p>
+ * Each batch goes out through a single {@code send(...)} call, which JavaMailSender
+ * delivers over one SMTP connection. Events without a recipient are skipped; bad
+ * addresses and messages the SMTP server rejects are reported back individually so
+ * NotificationDispatcher can dead-letter them. If the whole batch fails (e.g. SMTP
+ * unreachable) the exception is rethrown and counts against the channel's breaker.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class EmailNotificationChannel implements NotificationChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailNotificationChannel.class);
+
+    private final JavaMailSender mailSender;
+    private final NotificationTemplates templates;
+    private final ObjectMapper om = new ObjectMapper();
+    private final String fromAddress;
+
+    public EmailNotificationChannel(
+            JavaMailSender mailSender,
+            NotificationTemplates templates,
+            @Value("${app.mail.from:noreply@clinic.local}") String fromAddress
+    ) {
+        this.mailSender = mailSender;
+        this.templates = templates;
+        this.fromAddress = fromAddress;
+    }
+
+    @Override
+    public String name() {
+        return "EMAIL";
+    }
+
+    @Override
+    public Map<Integer, Exception> deliver(List<NotificationEvent> events) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(events.size());
+        List<Integer> indexes = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            try {
+                MimeMessage msg = toMessage(events.get(i));
+                if (msg != null) {
+                    messages.add(msg);
+                    indexes.add(i);
+                }
+            } catch (IOException | MessagingException e) {
+                failures.put(i, e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
+
+        long started = System.nanoTime();
+        int rejectedCount = 0;
+        try {
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            Map<Object, Exception> rejected = e.getFailedMessages();
+            if (rejected.isEmpty() || rejected.size() >= messages.size()) {
+                // Nothing got through, most likely the server rather than the messages
+                throw e;
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                Exception failure = rejected.get(messages.get(i));
+                if (failure != null) {
+                    failures.put(indexes.get(i), failure);
+                    rejectedCount++;
+                }
+            }
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        int sent = messages.size() - rejectedCount;
+        logger.info("Sent {} notification emails in {} ms ({} /s), {} failed",
+                sent, Math.round(seconds * 1000), Math.round(sent / Math.max(seconds, 1e-6)), failures.size());
+        return failures;
+    }
+
+    /**
+     * Builds the email for an event, or returns null when it has no recipient.
+     */
+    MimeMessage toMessage(NotificationEvent evt) throws IOException, MessagingException {
+        // Payload is JSON string (subject/body still produced, but we
+        // now build a richer template body from Appendix A)
+        JsonNode payload = evt.payload() != null ? om.readTree(evt.payload()) : om.createObjectNode();
+        String to = payload.path("patient").path("email").asText("");
+
+        if (to.isBlank()) {
+            logger.debug("Skipping EMAIL: empty email for appt {}", evt.appointmentId());
+            return null;
+        }
+
+        MimeMessage msg = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(msg, "UTF-8");
+        helper.setTo(to);
+        helper.setFrom(fromAddress);
+
+        // Fixed subject per Appendix A
+        helper.setSubject("Appointment & Queue Update – SingHealth Clinic");
+
+        // Rich body based on event type + payload
+        helper.setText(buildTemplateBody(evt, payload));
+        return msg;
+    }
+
+    /**
+     * Build Appendix A style email from the event type's template (or the clinic's own):
+     * <p>
+     * Subject: Appointment & Queue Update – SingHealth Clinic
+     * Dear [Patient Name],
+     * Thank you for booking your appointment at [Clinic Name].
+     * • Doctor: [Doctor Name]
+     * • Date & Time: [Appointment Date & Time]
+     * • Queue Number: [Queue Number]
+     * ...
+     * Queue Update Notifications:
+     * • "You are currently 3 patients away..."  (N3_AWAY)
+     * • "It’s your turn. Kindly enter..."      (NOW_SERVING)
+     */
+    String buildTemplateBody(NotificationEvent evt, JsonNode payload) {
+        JsonNode patientNode = payload.path("patient");
+        CharSequence[] values = new CharSequence[NotificationTemplates.EMAIL_FIELDS];
+
+        values[EmailField.PATIENT_NAME.ordinal()] = orDefault(safe(patientNode, "name"), "Patient");
+
+        // Try friendly clinic name first, then clinicId, then default
+        String clinicName = safe(payload, "clinicName");
+        if (clinicName.isBlank()) {
+            clinicName = safe(payload, "clinicId");
+        }
+        values[EmailField.CLINIC_NAME.ordinal()] = orDefault(clinicName, "SingHealth Clinic");
+
+        values[EmailField.DOCTOR_NAME.ordinal()] = orDefault(safe(payload, "doctorName"), "Doctor");
+        values[EmailField.QUEUE_NUMBER.ordinal()] = orDefault(safe(patientNode, "queue_number"), "-");
+
+        // Currently not in payload; phrase safely
+        values[EmailField.APPOINTMENT_DATE_TIME.ordinal()] =
+                orDefault(safe(payload, "appointmentDateTime"), "As per your appointment booking");
+
+        // N3_AWAY and NOW_SERVING templates carry their own line; other types reuse the
+        // original body if present, otherwise a generic line
+        values[EmailField.QUEUE_UPDATE.ordinal()] =
+                orDefault(safe(payload, "body"), "Your queue status has been updated.");
+
+        return templates.renderEmail(evt.type(), evt.clinicId(), values);
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value.isBlank() ? fallback : value;
+    }
+
+    private String safe(JsonNode node, String field) {
+        if (node == null) {
+            return "";
+        }
+        JsonNode n = node.path(field);
+        return n.isMissingNode() || n.isNull() ? "" : n.asText("");
+    }
+}
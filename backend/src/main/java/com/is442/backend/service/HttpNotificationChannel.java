@@ -0,0 +1,109 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.util.EventCodec;
+
+/**
+ * A channel that hands events to an HTTP gateway (SMS provider, push service, clinic
+ * webhook): each event is POSTed as NotificationEvent JSON and any 2xx counts as
+ * delivered. A batch's requests go out concurrently.
+ * <p>
+ * With no URL configured the channel is a local stand-in that logs each event and
+ * reports it delivered, so SMS and push can be exercised before a provider is wired up.
+ */
+public class HttpNotificationChannel implements NotificationChannel {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpNotificationChannel.class);
+
+    private final String name;
+    private final URI url;
+    private final Duration requestTimeout;
+    private final HttpClient client;
+    private final LongAdder standInDeliveries = new LongAdder();
+
+    public HttpNotificationChannel(String name, String url, Duration requestTimeout) {
+        this.name = name.toUpperCase(Locale.ROOT);
+        this.url = url == null || url.isBlank() ? null : URI.create(url);
+        this.requestTimeout = requestTimeout;
+        this.client = this.url == null ? null : HttpClient.newBuilder()
+                .connectTimeout(requestTimeout)
+                .build();
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    public boolean isStandIn() {
+        return url == null;
+    }
+
+    /** Events the stand-in has logged instead of delivering. */
+    public long standInDeliveries() {
+        return standInDeliveries.sum();
+    }
+
+    @Override
+    public Map<Integer, Exception> deliver(List<NotificationEvent> events) throws Exception {
+        if (url == null) {
+            for (NotificationEvent evt : events) {
+                logger.info("[{} stand-in] {} for appointment {} (patient {})",
+                        name, evt.type(), evt.appointmentId(), evt.patientId());
+            }
+            standInDeliveries.add(events.size());
+            return Map.of();
+        }
+
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(events.size());
+        for (NotificationEvent evt : events) {
+            HttpRequest request = HttpRequest.newBuilder(url)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .header("X-Notification-Channel", name)
+                    .POST(HttpRequest.BodyPublishers.ofString(EventCodec.toJson(evt)))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        Map<Integer, Exception> failures = new HashMap<>();
+        for (int i = 0; i < responses.size(); i++) {
+            try {
+                int status = responses.get(i).get().statusCode();
+                if (status < 200 || status >= 300) {
+                    failures.put(i, new IOException(name + " gateway returned HTTP " + status));
+                }
+            } catch (ExecutionException e) {
+                failures.put(i, e.getCause() instanceof Exception cause ? cause : e);
+            } catch (InterruptedException e) {
+                // Timed out by the dispatcher: abandon the rest of the batch
+                responses.forEach(r -> r.cancel(true));
+                Thread.currentThread().interrupt();
+                throw e;
+            }
+        }
+        if (!failures.isEmpty() && failures.size() == events.size()) {
+            // Nothing got through, most likely the gateway rather than the events
+            throw failures.get(0);
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,140 @@
+package com.is442.backend.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Per-partition consumer lag for the @KafkaListener groups: committed offset against
+ * the partition's end offset, plus how many consumer threads each container runs and
+ * which partitions each thread currently owns.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class KafkaConsumerLagService {
+
+    private static final long ADMIN_TIMEOUT_SECONDS = 5;
+    private static final Comparator<TopicPartition> BY_TOPIC_PARTITION =
+            Comparator.comparing(TopicPartition::topic).thenComparingInt(TopicPartition::partition);
+
+    private final KafkaAdmin kafkaAdmin;
+    private final KafkaListenerEndpointRegistry registry;
+    private AdminClient adminClient;
+
+    public KafkaConsumerLagService(KafkaAdmin kafkaAdmin, KafkaListenerEndpointRegistry registry) {
+        this.kafkaAdmin = kafkaAdmin;
+        this.registry = registry;
+    }
+
+    public Map<String, Object> getMetrics() throws Exception {
+        List<Map<String, Object>> listeners = new ArrayList<>();
+        List<MessageListenerContainer> containers = new ArrayList<>(registry.getListenerContainers());
+        containers.sort(Comparator.comparing(MessageListenerContainer::getListenerId));
+        for (MessageListenerContainer container : containers) {
+            Map<String, Object> listener = new LinkedHashMap<>();
+            listener.put("listener_id", container.getListenerId());
+            listener.put("group_id", container.getGroupId());
+            listener.put("running", container.isRunning());
+            if (container instanceof ConcurrentMessageListenerContainer<?, ?> concurrent) {
+                listener.put("concurrency", concurrent.getConcurrency());
+            }
+            Map<String, Collection<TopicPartition>> assignments = container.getAssignmentsByClientId();
+            Map<String, Object> threads = new LinkedHashMap<>();
+            if (assignments != null) {
+                new TreeMap<>(assignments).forEach((clientId, partitions) ->
+                        threads.put(clientId, partitions.stream().map(TopicPartition::toString).sorted().toList()));
+            }
+            listener.put("assignments", threads);
+
+            Set<TopicPartition> assigned = new TreeSet<>(BY_TOPIC_PARTITION);
+            if (assignments != null) {
+                assignments.values().forEach(assigned::addAll);
+            }
+            listener.putAll(lagFor(container.getGroupId(), assigned));
+            listeners.add(listener);
+        }
+        return Map.of("listeners", listeners);
+    }
+
+    /**
+     * Lag of one consumer group over the partitions it has committed offsets for, plus
+     * any extra partitions (e.g. assigned but not yet committed, which count from 0).
+     */
+    public Map<String, Object> lagFor(String groupId, Collection<TopicPartition> extraPartitions) throws Exception {
+        AdminClient admin = admin();
+        Map<TopicPartition, OffsetAndMetadata> committed = admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        Set<TopicPartition> partitions = new TreeSet<>(BY_TOPIC_PARTITION);
+        partitions.addAll(committed.keySet());
+        partitions.addAll(extraPartitions);
+
+        Map<TopicPartition, OffsetSpec> latest = new HashMap<>();
+        partitions.forEach(tp -> latest.put(tp, OffsetSpec.latest()));
+        Map<TopicPartition, ListOffsetsResult.ListOffsetsResultInfo> ends = partitions.isEmpty()
+                ? Map.of()
+                : admin.listOffsets(latest).all().get(ADMIN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        long totalLag = 0;
+        long maxLag = 0;
+        List<Map<String, Object>> rows = new ArrayList<>(partitions.size());
+        for (TopicPartition tp : partitions) {
+            OffsetAndMetadata offset = committed.get(tp);
+            long end = ends.get(tp).offset();
+            long position = offset == null ? 0 : offset.offset();
+            long lag = Math.max(0, end - position);
+            totalLag += lag;
+            maxLag = Math.max(maxLag, lag);
+
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("topic", tp.topic());
+            row.put("partition", tp.partition());
+            row.put("committed", offset == null ? null : offset.offset());
+            row.put("end", end);
+            row.put("lag", lag);
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total_lag", totalLag);
+        result.put("max_partition_lag", maxLag);
+        result.put("partitions", rows);
+        return result;
+    }
+
+    private synchronized AdminClient admin() {
+        if (adminClient == null) {
+            adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+        }
+        return adminClient;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (adminClient != null) {
+            adminClient.close();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.is442.backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+/**
+ * Shared send path for the queue, notification and appointment event producers.
+ * <p>
+ * At most {@code app.kafka.publisher.max-in-flight} records may be waiting for a
+ * broker ack. Beyond that the overflow policy applies: BLOCK waits up to
+ * {@code block-timeout-ms} for a slot and then rejects the send, DROP rejects it
+ * straight away. The caller's thread can still block: BLOCK waits up to
+ * {@code block-timeout-ms} for a slot, and once a slot is taken
+ * {@link KafkaTemplate#send} blocks for up to the producer's max.block.ms (2s in
+ * application.properties) while it fetches metadata for a topic it has not seen yet
+ * or waits for buffer.memory. Callers that must not block should hand the send to
+ * their own thread. Rejected and failed sends complete their future exceptionally
+ * and are counted per topic, so the outbox relay can retry and fire-and-forget
+ * callers no longer lose errors silently.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class KafkaEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaEventPublisher.class);
+
+    private static final List<String> PRODUCER_METRICS = List.of(
+            "record-send-rate", "record-error-rate", "record-retry-rate", "batch-size-avg",
+            "records-per-request-avg", "compression-rate-avg", "record-queue-time-avg",
+            "request-latency-avg", "buffer-available-bytes");
+
+    public enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final int maxInFlight;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMillis;
+    private final Semaphore inFlight;
+    private final Map<String, TopicStats> topics = new ConcurrentHashMap<>();
+
+    public KafkaEventPublisher(KafkaTemplate<String, Object> kafkaTemplate,
+                               @Value("${app.kafka.publisher.max-in-flight:10000}") int maxInFlight,
+                               @Value("${app.kafka.publisher.overflow-policy:BLOCK}") OverflowPolicy overflowPolicy,
+                               @Value("${app.kafka.publisher.block-timeout-ms:200}") long blockTimeoutMillis) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxInFlight = maxInFlight;
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    public CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record) {
+        TopicStats stats = topics.computeIfAbsent(record.topic(), t -> new TopicStats());
+        if (!acquire()) {
+            stats.dropped.increment();
+            long dropped = stats.dropped.sum();
+            if (dropped == 1 || dropped % 1000 == 0) {
+                logger.warn("Kafka publish buffer full ({} in flight), rejected {} records for {} so far",
+                        maxInFlight, dropped, record.topic());
+            }
+            return CompletableFuture.failedFuture(
+                    new KafkaException("Kafka publish buffer full, " + maxInFlight + " records awaiting ack"));
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<SendResult<String, Object>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            stats.failed.increment();
+            logger.warn("Kafka send to {} failed: {}", record.topic(), e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> {
+            inFlight.release();
+            if (error == null) {
+                stats.acked.increment();
+                stats.ackNanos.add(System.nanoTime() - started);
+            } else {
+                stats.failed.increment();
+                long failed = stats.failed.sum();
+                if (failed == 1 || failed % 100 == 0) {
+                    logger.warn("Kafka send to {} failed ({} failures so far): {}",
+                            record.topic(), failed, error.getMessage());
+                }
+            }
+        });
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("overflow_policy", overflowPolicy.name());
+        metrics.put("max_in_flight", maxInFlight);
+        metrics.put("in_flight", maxInFlight - inFlight.availablePermits());
+
+        Map<String, Object> perTopic = new LinkedHashMap<>();
+        topics.forEach((topic, stats) -> {
+            long acked = stats.acked.sum();
+            Map<String, Object> t = new LinkedHashMap<>();
+            t.put("acked", acked);
+            t.put("failed", stats.failed.sum());
+            t.put("dropped", stats.dropped.sum());
+            t.put("avg_ack_ms", acked == 0 ? 0.0 : stats.ackNanos.sum() / 1e6 / acked);
+            perTopic.put(topic, t);
+        });
+        metrics.put("topics", perTopic);
+
+        Map<String, Object> producer = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<MetricName, ? extends Metric> entry : kafkaTemplate.metrics().entrySet()) {
+                MetricName name = entry.getKey();
+                if ("producer-metrics".equals(name.group()) && PRODUCER_METRICS.contains(name.name())) {
+                    producer.put(name.name(), entry.getValue().metricValue());
+                }
+            }
+        } catch (Exception e) {
+            producer.put("error", e.getMessage());
+        }
+        metrics.put("producer", producer);
+        return metrics;
+    }
+
+    private boolean acquire() {
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            return inFlight.tryAcquire();
+        }
+        try {
+            return inFlight.tryAcquire(blockTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class TopicStats {
+        final LongAdder acked = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder ackNanos = new LongAdder();
+    }
+}
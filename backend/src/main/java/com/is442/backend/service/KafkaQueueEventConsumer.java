@@ -1,8 +1,12 @@
 package com.is442.backend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+
 import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.util.EventCodec;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
@@ -12,21 +16,25 @@ import org.springframework.stereotype.Service;
 
 public class KafkaQueueEventConsumer {
 
+    private static final Logger logger = LoggerFactory.getLogger(KafkaQueueEventConsumer.class);
+
     private final QueueSseService sse;
-    private final ObjectMapper om = new ObjectMapper();
 
     public KafkaQueueEventConsumer(QueueSseService sse) {
         this.sse = sse;
     }
 
-    @KafkaListener(topics = "clinic-queue-updates", groupId = "clinic-queue-group")
-    public void listen(String message) {
+    @KafkaListener(id = "queue-updates-sse", idIsGroup = false, topics = "clinic-queue-updates", groupId = "clinic-queue-group")
+    public void listen(byte[] message) {
         try {
-            QueueEvent evt = om.readValue(message, QueueEvent.class);
-            // broadcast to clinic subscribers
-            sse.publishToClinic(evt.clinicId(), message);
+            QueueEvent evt = EventCodec.decodeQueueEvent(message);
+            // broadcast to clinic subscribers; browsers always get JSON
+            String json = EventCodec.isBinary(message)
+                    ? EventCodec.toJson(evt)
+                    : new String(message, StandardCharsets.UTF_8);
+            sse.publishToClinic(evt.clinicId(), json);
         } catch (Exception e) {
-            e.printStackTrace();
+            logger.warn("Dropping unreadable queue event: {}", e.getMessage());
         }
     }
 }
@@ -1,23 +1,57 @@
 package com.is442.backend.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.is442.backend.config.KafkaConfig;
 import com.is442.backend.dto.QueueEvent;
 
+import jakarta.annotation.PreDestroy;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * Publishes RedisQueueService's queue changes to clinic-queue-updates, keyed by
+ * clinicId so each clinic's events stay in order on one partition.
+ * <p>
+ * publishQueueEvent only queues the event for a single publishing thread, so a
+ * check-in or call-next never waits on the publisher's in-flight limit or on broker
+ * metadata. One thread keeps this instance's events in the order they were handed
+ * over. If {@code app.kafka.queue-events.buffer} events are already waiting, the new
+ * one is dropped and counted; consumers see the gap in the clinic's version numbers.
+ */
 @Service
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
 
 public class KafkaQueueEventProducer {
-    private static final String TOPIC_NAME = "clinic-queue-updates";
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper om = new ObjectMapper();
 
-    public KafkaQueueEventProducer(KafkaTemplate<String, String> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    private static final Logger logger = LoggerFactory.getLogger(KafkaQueueEventProducer.class);
+
+    private final KafkaEventPublisher publisher;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder dropped = new LongAdder();
+
+    public KafkaQueueEventProducer(KafkaEventPublisher publisher,
+                                   @Value("${app.kafka.queue-events.buffer:10000}") int buffer) {
+        this.publisher = publisher;
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(buffer), new CustomizableThreadFactory("queue-events-"),
+                (task, pool) -> {
+                    dropped.increment();
+                    long total = dropped.sum();
+                    if (total == 1 || total % 1000 == 0) {
+                        logger.warn("Queue event buffer full ({} waiting), dropped {} events so far",
+                                buffer, total);
+                    }
+                });
     }
 
     public void publishQueueEvent(QueueEvent evt) {
@@ -25,46 +59,44 @@ public class KafkaQueueEventProducer {
     }
 
     public void publishQueueEvent(QueueEvent evt, String doctorId) {
-        try {
-            String json = om.writeValueAsString(evt);
-
-            // Create ProducerRecord with headers
-            ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC_NAME, evt.clinicId(), json);
-
-            // Add clinicId to headers
-            if (evt.clinicId() != null && !evt.clinicId().trim().isEmpty()) {
-                record.headers().add("clinicId", evt.clinicId().getBytes());
-            }
-
-            // Add doctorId to headers if provided
-            if (doctorId != null && !doctorId.trim().isEmpty()) {
-                record.headers().add("doctorId", doctorId.getBytes());
-            }
-
-            // Send to Kafka
-            kafkaTemplate.send(record);
-        } catch (Exception e) {
-            e.printStackTrace();
+        executor.execute(() -> send(evt, doctorId));
+    }
+
+    private void send(QueueEvent evt, String doctorId) {
+        // Create ProducerRecord with headers; EventSerializer encodes the event itself
+        ProducerRecord<String, Object> record = new ProducerRecord<>(KafkaConfig.QUEUE_UPDATES_TOPIC, evt.clinicId(), evt);
+
+        // Add clinicId to headers
+        if (evt.clinicId() != null && !evt.clinicId().trim().isEmpty()) {
+            record.headers().add("clinicId", evt.clinicId().getBytes(StandardCharsets.UTF_8));
+        }
+
+        // Add doctorId to headers if provided
+        if (doctorId != null && !doctorId.trim().isEmpty()) {
+            record.headers().add("doctorId", doctorId.getBytes(StandardCharsets.UTF_8));
         }
+
+        // Send to Kafka; serialization and delivery failures are counted and logged by the publisher
+        publisher.send(record);
+    }
+
+    /** Events dropped because the hand-off buffer was full. */
+    public long droppedCount() {
+        return dropped.sum();
     }
 
     // backward-compat for /test-kafka endpoint
     public void sendQueueUpdate(String message) {
-        kafkaTemplate.send(TOPIC_NAME, message);
+        publisher.send(new ProducerRecord<>(KafkaConfig.QUEUE_UPDATES_TOPIC, message));
     }
 
-    // Sample publish:
-    // example when position changes to 5
-    // producer.publishQueueEvent(
-    // new QueueEvent("POSITION_CHANGED", clinicId, appointmentId, patientId, 5,
-    // System.currentTimeMillis())
-    // );
-
-    // notificationProducer.publish(
-    // new NotificationEvent("N3_AWAY", "clinic-001", "<appt-id>", "<patient-id>",
-    // "EMAIL",
-    // "{\"subject\":\"You’re 3 away\",\"body\":\"Please return to the waiting
-    // area.\"}", System.currentTimeMillis())
-    // );
-
+    /** Hands the events still waiting to the publisher before the Kafka producer closes. */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            logger.warn("{} queue events still unpublished at shutdown", executor.getQueue().size());
+            executor.shutdownNow();
+        }
+    }
 }
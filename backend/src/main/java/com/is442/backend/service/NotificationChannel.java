@@ -0,0 +1,27 @@
+package com.is442.backend.service;
+
+import java.util.List;
+import java.util.Map;
+
+import com.is442.backend.dto.NotificationEvent;
+
+/**
+ * Delivers NotificationEvents for one channel (EMAIL, SMS, PUSH, WEBHOOK). Called by
+ * NotificationDispatcher on that channel's own worker pool, never on the Kafka
+ * listener thread.
+ */
+public interface NotificationChannel {
+
+    /** Channel name as carried in {@link NotificationEvent#channel()}, upper case. */
+    String name();
+
+    /**
+     * Delivers a batch of events for this channel.
+     *
+     * @return events that failed on their own (bad address, rejected by the provider),
+     *         keyed by their index in {@code events}; empty when everything went out
+     * @throws Exception when nothing could be delivered, e.g. the provider is unreachable;
+     *         this counts against the channel's circuit breaker
+     */
+    Map<Integer, Exception> deliver(List<NotificationEvent> events) throws Exception;
+}
@@ -0,0 +1,294 @@
+package com.is442.backend.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.is442.backend.dto.NotificationEvent;
+
+/**
+ * Runs one NotificationChannel on its own bounded pool, so a slow or failing provider
+ * only ever ties up its own threads:
+ * <ul>
+ * <li>{@code workers} threads and a queue of {@code queueCapacity} batches; a batch
+ * that does not fit is failed straight away rather than waiting;</li>
+ * <li>each batch gets {@code timeoutMillis} once it starts, then is interrupted and
+ * failed;</li>
+ * <li>{@code breakerFailures} consecutive thrown or timed-out batches open the circuit:
+ * batches fail immediately for {@code breakerOpenMillis}, after which one trial batch
+ * decides whether it closes again.</li>
+ * </ul>
+ * Each submitted batch completes with its undelivered events by index. Timing out
+ * settles the batch straight away, but the interrupt does not stop a blocked JavaMail
+ * send; the EMAIL thread stays busy until the SMTP socket timeouts in
+ * application.properties (mail.smtp.timeout, writetimeout) fire.
+ */
+public class NotificationChannelWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationChannelWorker.class);
+
+    public enum BreakerState {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final NotificationChannel channel;
+    private final int workers;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final int breakerFailures;
+    private final long breakerOpenMillis;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Set<Batch> running = ConcurrentHashMap.newKeySet();
+
+    private final Object breakerLock = new Object();
+    private BreakerState breakerState = BreakerState.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+
+    private final AtomicInteger inFlightEvents = new AtomicInteger();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    public NotificationChannelWorker(NotificationChannel channel, int workers, int queueCapacity, long timeoutMillis,
+                                     int breakerFailures, long breakerOpenMillis) {
+        if (workers < 1 || queueCapacity < 1 || timeoutMillis < 1 || breakerFailures < 1) {
+            throw new IllegalArgumentException("Invalid settings for notification channel " + channel.name());
+        }
+        this.channel = channel;
+        this.workers = workers;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.breakerFailures = breakerFailures;
+        this.breakerOpenMillis = breakerOpenMillis;
+        String prefix = "notify-" + channel.name().toLowerCase() + "-";
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory(prefix));
+        this.timer = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory(prefix + "timeout-"));
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public String channelName() {
+        return channel.name();
+    }
+
+    /**
+     * Queues a batch for delivery and returns without waiting for it. The future
+     * completes, never exceptionally, with the events that were not delivered (rejected,
+     * circuit open, timed out, failed) keyed by their index in {@code events}.
+     */
+    public CompletableFuture<Map<Integer, Exception>> submit(List<NotificationEvent> events) {
+        if (events.isEmpty()) {
+            return CompletableFuture.completedFuture(Map.of());
+        }
+        if (!allowRequest()) {
+            shortCircuited.add(events.size());
+            return CompletableFuture.completedFuture(
+                    failAll(events, new IllegalStateException(channel.name() + " circuit open")));
+        }
+        Batch batch = new Batch(events);
+        try {
+            inFlightEvents.addAndGet(events.size());
+            executor.execute(batch);
+        } catch (RejectedExecutionException e) {
+            inFlightEvents.addAndGet(-events.size());
+            rejected.add(events.size());
+            releaseTrial();
+            return CompletableFuture.completedFuture(failAll(events, new RejectedExecutionException(
+                    channel.name() + " queue full (" + queueCapacity + " batches)")));
+        }
+        return batch.result;
+    }
+
+    /** One queued delivery; settles exactly once, by completing or by timing out. */
+    private final class Batch implements Runnable {
+        private final List<NotificationEvent> events;
+        private final CompletableFuture<Map<Integer, Exception>> result = new CompletableFuture<>();
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        Batch(List<NotificationEvent> events) {
+            this.events = events;
+        }
+
+        @Override
+        public void run() {
+            FutureTask<Map<Integer, Exception>> task = new FutureTask<>(() -> channel.deliver(events));
+            ScheduledFuture<?> timeout = timer.schedule(() -> {
+                if (settle()) {
+                    task.cancel(true);
+                    timedOut.add(events.size());
+                    recordFailure();
+                    result.complete(failAll(events, new TimeoutException(
+                            channel.name() + " delivery took longer than " + timeoutMillis + " ms")));
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+
+            running.add(this);
+            task.run();
+            running.remove(this);
+            timeout.cancel(false);
+            if (!settle()) {
+                return;
+            }
+            try {
+                Map<Integer, Exception> failures = task.get();
+                recordSuccess();
+                delivered.add(events.size() - failures.size());
+                failed.add(failures.size());
+                result.complete(failures);
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                recordFailure();
+                failed.add(events.size());
+                result.complete(failAll(events, cause instanceof Exception ex ? ex : e));
+            }
+        }
+
+        private boolean settle() {
+            if (settled.compareAndSet(false, true)) {
+                inFlightEvents.addAndGet(-events.size());
+                return true;
+            }
+            return false;
+        }
+
+        void abandon(Exception reason) {
+            if (settle()) {
+                failed.add(events.size());
+                result.complete(failAll(events, reason));
+            }
+        }
+    }
+
+    private Map<Integer, Exception> failAll(List<NotificationEvent> events, Exception reason) {
+        logger.warn("{} notification batch of {} not delivered: {}", channel.name(), events.size(), reason.getMessage());
+        Map<Integer, Exception> failures = new HashMap<>();
+        for (int i = 0; i < events.size(); i++) {
+            failures.put(i, reason);
+        }
+        return failures;
+    }
+
+    private boolean allowRequest() {
+        synchronized (breakerLock) {
+            switch (breakerState) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (System.currentTimeMillis() - openedAt < breakerOpenMillis) {
+                        return false;
+                    }
+                    // Let one trial batch through
+                    breakerState = BreakerState.HALF_OPEN;
+                    logger.info("{} circuit half-open, sending a trial batch", channel.name());
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    private void releaseTrial() {
+        synchronized (breakerLock) {
+            if (breakerState == BreakerState.HALF_OPEN) {
+                breakerState = BreakerState.OPEN;
+            }
+        }
+    }
+
+    private void recordSuccess() {
+        synchronized (breakerLock) {
+            if (breakerState != BreakerState.CLOSED) {
+                logger.info("{} circuit closed", channel.name());
+            }
+            breakerState = BreakerState.CLOSED;
+            consecutiveFailures = 0;
+        }
+    }
+
+    private void recordFailure() {
+        synchronized (breakerLock) {
+            consecutiveFailures++;
+            if (breakerState == BreakerState.HALF_OPEN
+                    || (breakerState == BreakerState.CLOSED && consecutiveFailures >= breakerFailures)) {
+                breakerState = BreakerState.OPEN;
+                openedAt = System.currentTimeMillis();
+                logger.warn("{} circuit open for {} ms after {} consecutive failed batches",
+                        channel.name(), breakerOpenMillis, consecutiveFailures);
+            }
+        }
+    }
+
+    public BreakerState breakerState() {
+        synchronized (breakerLock) {
+            return breakerState;
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("circuit", breakerState().name());
+        metrics.put("workers", workers);
+        metrics.put("active_workers", executor.getActiveCount());
+        metrics.put("queued_batches", executor.getQueue().size());
+        metrics.put("queue_capacity", queueCapacity);
+        metrics.put("in_flight_events", inFlightEvents.get());
+        metrics.put("timeout_ms", timeoutMillis);
+        metrics.put("delivered", delivered.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("timed_out", timedOut.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("short_circuited", shortCircuited.sum());
+        if (channel instanceof HttpNotificationChannel http && http.isStandIn()) {
+            metrics.put("stand_in", true);
+        }
+        return metrics;
+    }
+
+    /**
+     * Stops taking batches and waits up to the channel timeout for queued and running
+     * ones; batches still queued or running after that complete as failed.
+     */
+    public void close() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                IllegalStateException reason = new IllegalStateException(channel.name() + " channel shut down");
+                for (Runnable pending : executor.shutdownNow()) {
+                    ((Batch) pending).abandon(reason);
+                }
+                // Their timeouts go with the timer, and a blocked JavaMail send may not notice the interrupt
+                running.forEach(batch -> batch.abandon(reason));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+}
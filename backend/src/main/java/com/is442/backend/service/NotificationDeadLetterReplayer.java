@@ -0,0 +1,149 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.util.EventCodec;
+
+/**
+ * Republishes dead-lettered notifications from notification-events.DLT to
+ * notification-events, for an operator to run once the cause (an open circuit, a
+ * gateway outage) has cleared.
+ * <p>
+ * A replay covers at most {@code max} records that were in the DLT when it started;
+ * anything dead-lettered again while it runs waits for the next replay. Progress is
+ * kept as committed offsets of the {@value #GROUP_ID} group, committed only after the
+ * republished records are acked, so an interrupted replay resumes where it stopped and
+ * may send a few records twice. Records that no longer decode are skipped. Replays are
+ * serialised within an instance; run them from one instance at a time.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class NotificationDeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDeadLetterReplayer.class);
+
+    static final String GROUP_ID = "notification-dlt-replayer";
+    private static final int MAX_POLL_RECORDS = 500;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long SEND_TIMEOUT_SECONDS = 10;
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaEventPublisher publisher;
+
+    public NotificationDeadLetterReplayer(ConsumerFactory<Object, Object> consumerFactory,
+                                          KafkaEventPublisher publisher) {
+        this.consumerFactory = consumerFactory;
+        this.publisher = publisher;
+    }
+
+    public synchronized Map<String, Object> replay(int max) throws Exception {
+        Properties overrides = new Properties();
+        overrides.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.setProperty(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(Math.min(max, MAX_POLL_RECORDS)));
+
+        int replayed = 0;
+        int skipped = 0;
+        try (Consumer<Object, Object> consumer = consumerFactory.createConsumer(GROUP_ID, null, null, overrides)) {
+            List<TopicPartition> partitions = consumer.partitionsFor(KafkaConfig.NOTIFICATION_EVENTS_DLT).stream()
+                    .map(p -> new TopicPartition(p.topic(), p.partition()))
+                    .toList();
+            // Assigned rather than subscribed: the group only holds offsets, there is nothing to rebalance
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            while (replayed + skipped < max && !caughtUp(consumer, endOffsets)) {
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> done = new HashMap<>();
+                for (ConsumerRecord<Object, Object> rec : consumer.poll(POLL_TIMEOUT)) {
+                    TopicPartition partition = new TopicPartition(rec.topic(), rec.partition());
+                    if (rec.offset() >= endOffsets.get(partition) || replayed + skipped >= max) {
+                        // Left uncommitted for the next replay
+                        continue;
+                    }
+                    byte[] value = (byte[]) rec.value();
+                    if (decodes(value)) {
+                        sends.add(publisher.send(new ProducerRecord<>(KafkaConfig.NOTIFICATION_EVENTS_TOPIC,
+                                (String) rec.key(), value)));
+                        replayed++;
+                    } else {
+                        logger.warn("Skipping undecodable dead letter at {}-{}@{}",
+                                rec.topic(), rec.partition(), rec.offset());
+                        skipped++;
+                    }
+                    done.put(partition, new OffsetAndMetadata(rec.offset() + 1));
+                }
+                for (CompletableFuture<?> send : sends) {
+                    send.get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+                if (!done.isEmpty()) {
+                    consumer.commitSync(done);
+                }
+            }
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("replayed", replayed);
+            result.put("skipped_undecodable", skipped);
+            result.put("remaining", remaining(consumer, endOffsets));
+            logger.info("Replayed {} dead-lettered notifications ({} skipped, {} remaining)",
+                    replayed, skipped, result.get("remaining"));
+            return result;
+        }
+    }
+
+    private static boolean caughtUp(Consumer<Object, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            if (consumer.position(end.getKey()) < end.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long remaining(Consumer<Object, Object> consumer, Map<TopicPartition, Long> endOffsets) {
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(endOffsets.keySet()));
+        Map<TopicPartition, Long> beginning = consumer.beginningOffsets(endOffsets.keySet());
+        long remaining = 0;
+        for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+            OffsetAndMetadata offset = committed.get(end.getKey());
+            long from = offset != null ? offset.offset() : beginning.get(end.getKey());
+            remaining += Math.max(0, end.getValue() - from);
+        }
+        return remaining;
+    }
+
+    private static boolean decodes(byte[] value) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            EventCodec.decodeNotificationEvent(value);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.ConsumerRecordRecoverer;
+import org.springframework.stereotype.Service;
+
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.util.EventCodec;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Routes notification events by channel to that channel's NotificationChannelWorker
+ * (see NotificationChannelConfig), one Kafka poll at a time.
+ * <p>
+ * Each channel's share of a poll is delivered on its own pool, so channels deliver in
+ * parallel, and the listener returns once every share has settled. Offsets are only
+ * committed after that, so a crash redelivers the poll (at-least-once) rather than
+ * losing it. The price is that a slow SMTP server holds the poll until the EMAIL
+ * timeout or its circuit opens; it never holds up the other channels' deliveries.
+ * Anything not delivered is published to notification-events.DLT with the reason:
+ * <ul>
+ * <li>malformed events and events for a channel with no worker;</li>
+ * <li>events rejected or failed by their channel, including batches that time out,
+ * find the channel's queue full or its circuit open.</li>
+ * </ul>
+ * Dead letters are published from the listener in offset order. If the DLT cannot take
+ * one, the listener throws BatchListenerFailedException for it: earlier records commit
+ * and the error handler redelivers from that one, so nothing is dead-lettered twice.
+ * NotificationDeadLetterReplayer sends DLT records back through once the cause clears.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class NotificationDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private final Map<String, NotificationChannelWorker> workers = new LinkedHashMap<>();
+    private final ConsumerRecordRecoverer deadLetters;
+
+    public NotificationDispatcher(List<NotificationChannelWorker> channelWorkers,
+                                  ConsumerRecordRecoverer notificationDeadLetterRecoverer) {
+        for (NotificationChannelWorker worker : channelWorkers) {
+            if (workers.put(worker.channelName(), worker) != null) {
+                throw new IllegalStateException("Two workers for notification channel " + worker.channelName());
+            }
+        }
+        this.deadLetters = notificationDeadLetterRecoverer;
+        logger.info("Notification channels: {}", workers.keySet());
+    }
+
+    @KafkaListener(
+            id = "notification-dispatcher",
+            idIsGroup = false,
+            topics = KafkaConfig.NOTIFICATION_EVENTS_TOPIC,
+            // Group of the former email-only listener, so committed offsets carry over
+            groupId = "notification-emailer",
+            containerFactory = "notificationBatchListenerContainerFactory"
+    )
+    public void onEvents(List<ConsumerRecord<String, byte[]>> records) {
+        Map<Integer, Exception> failures = new TreeMap<>();
+        Map<NotificationChannelWorker, List<NotificationEvent>> events = new LinkedHashMap<>();
+        Map<NotificationChannelWorker, List<Integer>> indices = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            try {
+                // Value is a NotificationEvent, binary or (from older producers) JSON
+                NotificationEvent evt = EventCodec.decodeNotificationEvent(records.get(i).value());
+                NotificationChannelWorker worker = evt.channel() == null ? null
+                        : workers.get(evt.channel().toUpperCase(Locale.ROOT));
+                if (worker == null) {
+                    failures.put(i, new IllegalArgumentException("No notification channel " + evt.channel()));
+                    continue;
+                }
+                events.computeIfAbsent(worker, w -> new ArrayList<>()).add(evt);
+                indices.computeIfAbsent(worker, w -> new ArrayList<>()).add(i);
+            } catch (IOException e) {
+                failures.put(i, e);
+            }
+        }
+
+        // Every channel gets its share before we wait on any, so they deliver in parallel
+        Map<NotificationChannelWorker, CompletableFuture<Map<Integer, Exception>>> pending = new LinkedHashMap<>();
+        events.forEach((worker, batch) -> pending.put(worker, worker.submit(batch)));
+        pending.forEach((worker, result) -> {
+            List<Integer> batchIndices = indices.get(worker);
+            result.join().forEach((index, failure) -> failures.put(batchIndices.get(index), failure));
+        });
+
+        for (Map.Entry<Integer, Exception> failure : failures.entrySet()) {
+            int index = failure.getKey();
+            try {
+                deadLetter(records.get(index), failure.getValue());
+            } catch (RuntimeException e) {
+                // Records before this one are settled and commit; it and the rest are redelivered
+                throw new BatchListenerFailedException("Could not dead-letter notification", e, index);
+            }
+        }
+    }
+
+    private void deadLetter(ConsumerRecord<String, byte[]> rec, Exception reason) {
+        logger.warn("Dead-lettering notification at {}-{}@{}: {}",
+                rec.topic(), rec.partition(), rec.offset(), reason.getMessage());
+        deadLetters.accept(rec, reason);
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        workers.forEach((name, worker) -> metrics.put(name, worker.getMetrics()));
+        return metrics;
+    }
+
+    @PreDestroy
+    public void close() {
+        // Settles batches still queued, so a listener waiting on them dead-letters them and returns
+        workers.values().forEach(NotificationChannelWorker::close);
+    }
+}
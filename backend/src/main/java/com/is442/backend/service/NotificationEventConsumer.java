@@ -1,5 +1,9 @@
 package com.is442.backend.service;
 
+import java.io.IOException;
+
+import com.is442.backend.util.EventCodec;
+
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.KafkaHeaders;
@@ -11,17 +15,25 @@ import org.springframework.stereotype.Service;
 public class NotificationEventConsumer {
 
     @KafkaListener(
+            id = "notification-logger",
+            idIsGroup = false,
             topics = "notification-events",
             groupId = "notification-loggers",
             containerFactory = "kafkaListenerContainerFactory",
             autoStartup = "true"
     )
     public void onMessage(
-            String payload,
+            byte[] value,
             @Header(value = KafkaHeaders.RECEIVED_TOPIC, required = false) String topic,
             @Header(value = KafkaHeaders.RECEIVED_PARTITION, required = false) Integer partition,
             @Header(value = KafkaHeaders.OFFSET, required = false) Long offset
     ) {
+        String payload;
+        try {
+            payload = EventCodec.decodeNotificationEvent(value).toString();
+        } catch (IOException e) {
+            payload = "<unreadable: " + e.getMessage() + ">";
+        }
         System.out.printf(
                 "[NotificationEventConsumer] topic=%s partition=%s offset=%s payload=%s%n",
                 topic, partition, offset, payload
@@ -1,28 +1,24 @@
 package com.is442.backend.service;
 
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.is442.backend.dto.NotificationEvent;
 
 @Service
 @ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
 public class NotificationEventProducer {
     private static final String TOPIC = "notification-events";
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper om = new ObjectMapper();
+    private final KafkaEventPublisher publisher;
 
-    public NotificationEventProducer(KafkaTemplate<String, String> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public NotificationEventProducer(KafkaEventPublisher publisher) {
+        this.publisher = publisher;
     }
 
     public void publish(NotificationEvent evt) {
-        try {
-            String json = om.writeValueAsString(evt);
-            kafkaTemplate.send(TOPIC, evt.patientId(), json);
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        // Keyed by clinic like the queue events, so one consumer thread sees a clinic's
+        // notifications in the order they were raised. EventSerializer encodes the event.
+        String key = evt.clinicId() != null ? evt.clinicId() : evt.patientId();
+        publisher.send(new ProducerRecord<>(TOPIC, key, evt));
     }
 }
@@ -0,0 +1,155 @@
+package com.is442.backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import com.is442.backend.dto.NotificationEvent;
+
+/**
+ * Sits in front of NotificationEventProducer and drops notifications that should not
+ * reach Kafka, in one Redis script call per event (see QueueScriptsConfig):
+ * <ul>
+ * <li>the same appointment and type within {@code dedupe-window-ms}, e.g. N3_AWAY from
+ * check-in and again after a callNext, fast-track or removal reshuffles the queue;</li>
+ * <li>more than {@code patient-limit} notifications to one patient per {@code patient-window-ms};</li>
+ * <li>a clinic's token bucket ({@code clinic-capacity}, refilled at
+ * {@code clinic-refill-per-second}) running dry during a burst.</li>
+ * </ul>
+ * If Redis is unavailable the event is published anyway: a duplicate email is better
+ * than a missing one.
+ */
+@Service
+@ConditionalOnProperty(name = "kafka.enabled", havingValue = "true")
+public class NotificationGate {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationGate.class);
+
+    public enum Decision {
+        SENT, DUPLICATE, PATIENT_RATE_LIMITED, CLINIC_THROTTLED
+    }
+
+    private final StringRedisTemplate redis;
+    private final DefaultRedisScript<Long> gateScript;
+    private final NotificationEventProducer producer;
+    private final long dedupeWindowMillis;
+    private final int patientLimit;
+    private final long patientWindowMillis;
+    private final int clinicCapacity;
+    private final double clinicRefillPerSecond;
+
+    private final Map<Decision, Map<String, LongAdder>> counts = new ConcurrentHashMap<>();
+    private final LongAdder redisErrors = new LongAdder();
+
+    public NotificationGate(StringRedisTemplate redis,
+                            @Qualifier("notificationGateScript") DefaultRedisScript<Long> gateScript,
+                            NotificationEventProducer producer,
+                            @Value("${app.notifications.gate.dedupe-window-ms:1800000}") long dedupeWindowMillis,
+                            @Value("${app.notifications.gate.patient-limit:5}") int patientLimit,
+                            @Value("${app.notifications.gate.patient-window-ms:600000}") long patientWindowMillis,
+                            @Value("${app.notifications.gate.clinic-capacity:200}") int clinicCapacity,
+                            @Value("${app.notifications.gate.clinic-refill-per-second:20}") double clinicRefillPerSecond) {
+        if (clinicRefillPerSecond <= 0) {
+            throw new IllegalArgumentException("app.notifications.gate.clinic-refill-per-second must be positive");
+        }
+        this.redis = redis;
+        this.gateScript = gateScript;
+        this.producer = producer;
+        this.dedupeWindowMillis = dedupeWindowMillis;
+        this.patientLimit = patientLimit;
+        this.patientWindowMillis = patientWindowMillis;
+        this.clinicCapacity = clinicCapacity;
+        this.clinicRefillPerSecond = clinicRefillPerSecond;
+    }
+
+    /**
+     * Publishes the event unless the gate suppresses it.
+     *
+     * @return SENT, or why the event was dropped
+     */
+    public Decision publish(NotificationEvent evt) {
+        Decision decision = admit(evt);
+        count(decision, evt.type());
+        if (decision == Decision.SENT) {
+            producer.publish(evt);
+        } else {
+            logger.debug("Suppressed {} notification for appointment {}: {}",
+                    evt.type(), evt.appointmentId(), decision);
+        }
+        return decision;
+    }
+
+    private Decision admit(NotificationEvent evt) {
+        long now = System.currentTimeMillis();
+        List<String> keys = List.of(
+                "notif:dedupe:" + evt.appointmentId() + ":" + evt.type(),
+                "notif:patient:" + evt.patientId(),
+                "notif:bucket:" + evt.clinicId());
+        try {
+            Long result = redis.execute(gateScript, keys,
+                    String.valueOf(now),
+                    String.valueOf(dedupeWindowMillis),
+                    String.valueOf(patientLimit),
+                    String.valueOf(patientWindowMillis),
+                    String.valueOf(clinicCapacity),
+                    String.valueOf(clinicRefillPerSecond / 1000.0),
+                    evt.appointmentId() + ":" + evt.type() + ":" + now);
+            if (result == null) {
+                return Decision.SENT;
+            }
+            return switch (result.intValue()) {
+                case 1 -> Decision.DUPLICATE;
+                case 2 -> Decision.PATIENT_RATE_LIMITED;
+                case 3 -> Decision.CLINIC_THROTTLED;
+                default -> Decision.SENT;
+            };
+        } catch (RuntimeException e) {
+            redisErrors.increment();
+            logger.warn("Notification gate unavailable, publishing {} for appointment {} unchecked: {}",
+                    evt.type(), evt.appointmentId(), e.getMessage());
+            return Decision.SENT;
+        }
+    }
+
+    private void count(Decision decision, String type) {
+        counts.computeIfAbsent(decision, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type == null ? "UNKNOWN" : type, t -> new LongAdder())
+                .increment();
+    }
+
+    public long count(Decision decision) {
+        Map<String, LongAdder> byType = counts.get(decision);
+        return byType == null ? 0 : byType.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Decision decision : Decision.values()) {
+            Map<String, Long> byType = new TreeMap<>();
+            counts.getOrDefault(decision, Map.of()).forEach((type, n) -> byType.put(type, n.sum()));
+            metrics.put(decision.name().toLowerCase(), byType);
+        }
+        metrics.put("redis_errors", redisErrors.sum());
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("dedupe_window_ms", dedupeWindowMillis);
+        config.put("patient_limit", patientLimit);
+        config.put("patient_window_ms", patientWindowMillis);
+        config.put("clinic_capacity", clinicCapacity);
+        config.put("clinic_refill_per_second", clinicRefillPerSecond);
+        metrics.put("config", config);
+        return metrics;
+    }
+}
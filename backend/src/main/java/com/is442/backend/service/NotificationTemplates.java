@@ -0,0 +1,181 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import com.is442.backend.util.MessageTemplate;
+
+/**
+ * Notification email bodies and Kafka payloads, compiled once from
+ * {@code classpath:notification-templates/} at startup:
+ * <ul>
+ * <li>{@code email/{TYPE}.txt}: email body per event type, {@code DEFAULT.txt} for any other type;</li>
+ * <li>{@code email/clinics/{clinicId}/{TYPE}.txt}: a clinic's own wording, checked first;</li>
+ * <li>{@code payload/{TYPE}.json}: the NotificationEvent payload, values JSON-escaped.</li>
+ * </ul>
+ * Rendering reuses one StringBuilder per thread, so the only string built per message is
+ * the result.
+ */
+@Component
+public class NotificationTemplates {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationTemplates.class);
+
+    private static final String ROOT = "notification-templates/";
+    private static final String DEFAULT_TYPE = "DEFAULT";
+    private static final int MAX_RETAINED_BUFFER = 16 * 1024;
+
+    /** Placeholders available to email templates; values are passed in this order. */
+    public enum EmailField {
+        PATIENT_NAME("patientName"),
+        CLINIC_NAME("clinicName"),
+        DOCTOR_NAME("doctorName"),
+        APPOINTMENT_DATE_TIME("appointmentDateTime"),
+        QUEUE_NUMBER("queueNumber"),
+        QUEUE_UPDATE("queueUpdate");
+
+        final String placeholder;
+
+        EmailField(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    /** Placeholders available to payload templates; values are passed in this order. */
+    public enum PayloadField {
+        CLINIC_ID("clinicId"),
+        DOCTOR_ID("doctorId"),
+        DOCTOR_NAME("doctorName"),
+        PATIENT_NAME("patientName"),
+        EMAIL("email"),
+        PHONE("phone"),
+        APPOINTMENT_ID("appointmentId"),
+        QUEUE_NUMBER("queueNumber");
+
+        final String placeholder;
+
+        PayloadField(String placeholder) {
+            this.placeholder = placeholder;
+        }
+    }
+
+    public static final int EMAIL_FIELDS = EmailField.values().length;
+    public static final int PAYLOAD_FIELDS = PayloadField.values().length;
+
+    private static final List<String> EMAIL_SLOTS =
+            Arrays.stream(EmailField.values()).map(f -> f.placeholder).toList();
+    private static final List<String> PAYLOAD_SLOTS =
+            Arrays.stream(PayloadField.values()).map(f -> f.placeholder).toList();
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(1024));
+
+    private final Map<String, MessageTemplate> emailByType = new HashMap<>();
+    private final Map<String, Map<String, MessageTemplate>> emailByClinic = new HashMap<>();
+    private final Map<String, MessageTemplate> payloadByType = new HashMap<>();
+
+    public NotificationTemplates() {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try {
+            for (Resource resource : resolver.getResources("classpath*:" + ROOT + "email/**/*.txt")) {
+                String path = relativePath(resource, ROOT + "email/");
+                String type = stripExtension(path.substring(path.lastIndexOf('/') + 1));
+                MessageTemplate template = MessageTemplate.compile("email/" + path, read(resource),
+                        EMAIL_SLOTS, MessageTemplate.Escaping.NONE);
+                if (path.startsWith("clinics/")) {
+                    String clinicId = path.substring("clinics/".length(), path.lastIndexOf('/'));
+                    emailByClinic.computeIfAbsent(clinicId, c -> new HashMap<>()).put(type, template);
+                } else {
+                    emailByType.put(type, template);
+                }
+            }
+            for (Resource resource : resolver.getResources("classpath*:" + ROOT + "payload/*.json")) {
+                String type = stripExtension(relativePath(resource, ROOT + "payload/"));
+                // Payloads are single-line JSON; drop the file's trailing newline
+                payloadByType.put(type, MessageTemplate.compile("payload/" + type, read(resource).strip(),
+                        PAYLOAD_SLOTS, MessageTemplate.Escaping.JSON));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load notification templates", e);
+        }
+        if (!emailByType.containsKey(DEFAULT_TYPE)) {
+            throw new IllegalStateException("Missing " + ROOT + "email/" + DEFAULT_TYPE + ".txt");
+        }
+        logger.info("Loaded notification templates: email {}, clinic overrides {}, payload {}",
+                emailByType.keySet(), emailByClinic.keySet(), payloadByType.keySet());
+    }
+
+    /**
+     * Email body for an event type, using the clinic's template when it has one.
+     *
+     * @param values indexed by {@link EmailField#ordinal()}
+     */
+    public String renderEmail(String type, String clinicId, CharSequence[] values) {
+        return render(emailTemplate(type, clinicId), values);
+    }
+
+    /**
+     * Notification payload JSON for an event type.
+     *
+     * @param values indexed by {@link PayloadField#ordinal()}
+     */
+    public String renderPayload(String type, CharSequence[] values) {
+        MessageTemplate template = payloadByType.get(type);
+        if (template == null) {
+            throw new IllegalArgumentException("No payload template for notification type " + type);
+        }
+        return render(template, values);
+    }
+
+    MessageTemplate emailTemplate(String type, String clinicId) {
+        String key = type == null ? DEFAULT_TYPE : type.toUpperCase(Locale.ROOT);
+        if (clinicId != null) {
+            Map<String, MessageTemplate> clinic = emailByClinic.get(clinicId);
+            if (clinic != null) {
+                MessageTemplate template = clinic.getOrDefault(key, clinic.get(DEFAULT_TYPE));
+                if (template != null) {
+                    return template;
+                }
+            }
+        }
+        return emailByType.getOrDefault(key, emailByType.get(DEFAULT_TYPE));
+    }
+
+    private static String render(MessageTemplate template, CharSequence[] values) {
+        StringBuilder out = BUFFER.get();
+        out.setLength(0);
+        String rendered = template.renderTo(out, values).toString();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return rendered;
+    }
+
+    private static String relativePath(Resource resource, String marker) throws IOException {
+        String url = resource.getURL().toString();
+        return url.substring(url.lastIndexOf(marker) + marker.length());
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? fileName : fileName.substring(0, dot);
+    }
+
+    private static String read(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.is442.backend.service;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.model.OutboxEvent;
+import com.is442.backend.repository.OutboxEventRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers outbox rows in id order to STOMP, the clinic SSE stream and Kafka.
+ * <p>
+ * A row is marked published only after Kafka acknowledges it, so delivery is
+ * at-least-once: a crash or broker error means the row (and anything after it)
+ * is sent to Kafka again. STOMP and SSE get each row once, when it is first
+ * relayed, and are not repeated while Kafka is retried. Every delivery carries
+ * the row's dedupe key as "eventKey" so consumers can drop repeats.
+ * <p>
+ * Only one backend instance relays at a time. A batch is claimed in a short
+ * transaction: under a Postgres advisory lock, an instance takes the oldest pending
+ * rows for {@code app.outbox.claim-ms} unless another claim is still live. Publishing
+ * then runs with no transaction or connection held, and a second short transaction
+ * records the outcome and releases the claim. A clinic's events therefore keep their
+ * order, and if the relaying instance stops, the next poll elsewhere takes over once
+ * its claim expires.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    private static final TypeReference<LinkedHashMap<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired(required = false)
+    private QueueSseService queueSseService;
+
+    @Autowired(required = false)
+    private AppointmentEventProducer appointmentEventProducer;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.kafka-timeout-ms:5000}")
+    private long kafkaTimeoutMillis;
+
+    @Value("${app.outbox.claim-ms:60000}")
+    private long claimMillis;
+
+    @Value("${app.outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final ReentrantLock relayLock = new ReentrantLock();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final ExecutorService wakeups = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "outbox-relay");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       SimpMessagingTemplate messagingTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Called after a transaction that wrote outbox rows commits. Wake-ups are
+     * coalesced, so a burst of commits triggers one relay pass.
+     */
+    public void requestRelay() {
+        if (wakeupPending.compareAndSet(false, true)) {
+            wakeups.execute(() -> {
+                wakeupPending.set(false);
+                relayLock.lock();
+                try {
+                    relayAll();
+                } finally {
+                    relayLock.unlock();
+                }
+            });
+        }
+    }
+
+    /**
+     * Safety net for rows whose wake-up was missed (restart, failed publish).
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:2000}")
+    public void relayPending() {
+        if (!relayLock.tryLock()) {
+            return;
+        }
+        try {
+            relayAll();
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 0 * * * *}")
+    public void deletePublished() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusHours(retentionHours);
+        Integer deleted = transactionTemplate.execute(s -> outboxEventRepository.deletePublishedBefore(cutoff));
+        if (deleted != null && deleted > 0) {
+            logger.info("Deleted {} published outbox rows older than {}h", deleted, retentionHours);
+        }
+    }
+
+    private void relayAll() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            logger.warn("Outbox relay pass failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Relays one batch and returns its size, or -1 if it stopped early.
+     * Stops at the first Kafka failure so later events never overtake it.
+     */
+    private int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(s -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> broadcast = new ArrayList<>();
+        List<CompletableFuture<?>> acks = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            CompletableFuture<?> ack = deliver(event, broadcast);
+            acks.add(ack);
+            if (ack.isCompletedExceptionally()) {
+                // Refused before sending (broker unreachable, buffer full): the rest would wait on the same outage
+                break;
+            }
+        }
+
+        List<Long> published = new ArrayList<>(batch.size());
+        Long failedId = null;
+        String failure = null;
+        for (int i = 0; i < acks.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            try {
+                acks.get(i).get(kafkaTimeoutMillis, TimeUnit.MILLISECONDS);
+                published.add(event.getId());
+            } catch (Exception e) {
+                String error = e.getCause() != null ? e.getCause().getMessage() : String.valueOf(e.getMessage());
+                logger.warn("Outbox event {} ({}) not acknowledged by Kafka, will retry: {}",
+                        event.getId(), event.getDedupeKey(), error);
+                failedId = event.getId();
+                failure = error != null && error.length() > 250 ? error.substring(0, 250) : error;
+                break;
+            }
+        }
+
+        Long failed = failedId;
+        String error = failure;
+        transactionTemplate.executeWithoutResult(s -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            if (!broadcast.isEmpty()) {
+                outboxEventRepository.markBroadcast(broadcast, now);
+            }
+            if (!published.isEmpty()) {
+                outboxEventRepository.markPublished(published, now);
+            }
+            if (failed != null) {
+                outboxEventRepository.markFailed(failed, error);
+            }
+            outboxEventRepository.releaseClaims(batch.stream().map(OutboxEvent::getId).toList());
+        });
+        return published.size() == batch.size() ? published.size() : -1;
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        if (!outboxEventRepository.tryLockRelay() || outboxEventRepository.hasLiveClaim()) {
+            // Another instance is relaying
+            return List.of();
+        }
+        List<OutboxEvent> batch = outboxEventRepository.findPending(batchSize);
+        if (!batch.isEmpty()) {
+            outboxEventRepository.claim(batch.stream().map(OutboxEvent::getId).toList(), claimMillis);
+        }
+        return batch;
+    }
+
+    /**
+     * Pushes the event to STOMP and SSE unless an earlier pass already did (adding it
+     * to {@code broadcast}), then sends it to Kafka and returns the ack.
+     */
+    private CompletableFuture<?> deliver(OutboxEvent event, List<Long> broadcast) {
+        Map<String, Object> payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), MAP_TYPE);
+        } catch (Exception e) {
+            // Cannot ever be delivered; let it be marked published rather than block the outbox
+            logger.error("Dropping unreadable outbox event {}: {}", event.getId(), e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+        payload.put("eventKey", event.getDedupeKey());
+
+        if (event.getBroadcastAt() == null) {
+            broadcast(event, payload);
+            broadcast.add(event.getId());
+        }
+
+        if (appointmentEventProducer == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return appointmentEventProducer.publish(event.getClinicId(), event.getEventType(),
+                    event.getDedupeKey(), objectMapper.writeValueAsString(payload));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void broadcast(OutboxEvent event, Map<String, Object> payload) {
+        try {
+            messagingTemplate.convertAndSend(event.getDestination(), payload);
+        } catch (Exception e) {
+            logger.warn("Failed to publish outbox event {} to {}: {}", event.getId(), event.getDestination(), e.getMessage());
+        }
+
+        if (queueSseService != null && event.getClinicId() != null) {
+            try {
+                Map<String, Object> sse = new LinkedHashMap<>();
+                sse.put("type", event.getEventType());
+                sse.put("eventKey", event.getDedupeKey());
+                sse.put("event", payload);
+                queueSseService.publishToClinic(event.getClinicId(), objectMapper.writeValueAsString(sse));
+            } catch (Exception e) {
+                logger.warn("Failed to push outbox event {} over SSE: {}", event.getId(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        wakeups.shutdown();
+    }
+}
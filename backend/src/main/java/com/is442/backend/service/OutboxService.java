@@ -0,0 +1,70 @@
+package com.is442.backend.service;
+
+import java.util.UUID;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.repository.OutboxEventRepository;
+
+/**
+ * Writes appointment events to the outbox inside the caller's transaction, so an
+ * event exists if and only if the appointment change committed. OutboxRelay
+ * delivers them afterwards; it is woken as soon as the transaction commits.
+ */
+@Service
+public class OutboxService {
+
+    static final String SLOTS_DESTINATION = "/topic/slots";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final OutboxRelay outboxRelay;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper,
+                         @Lazy OutboxRelay outboxRelay) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * Queue an event for a STOMP destination with a fresh dedupe key.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String destination, UUID appointmentId, String clinicId, Object payload) {
+        record(destination, appointmentId, clinicId, payload, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Queue an event with a caller-chosen dedupe key. Writers that may replay
+     * (e.g. the write-behind) pass a deterministic key so the event is stored once.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(String destination, UUID appointmentId, String clinicId, Object payload, String dedupeKey) {
+        String eventType = SLOTS_DESTINATION.equals(destination) ? "SLOT_UPDATE" : "APPOINTMENT_STATUS";
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialise outbox payload: " + e.getMessage(), e);
+        }
+        outboxEventRepository.insertIgnoringDuplicates(
+                dedupeKey, eventType, appointmentId.toString(), clinicId, destination, json);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.requestRelay();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.is442.backend.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyWindowStore;
+import org.apache.kafka.streams.state.WindowStoreIterator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.kafka.streams.KafkaStreamsInteractiveQueryService;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import com.is442.backend.service.QueueAnalyticsTopology.WaitStats;
+
+/**
+ * Reads per-clinic queue analytics from the QueueAnalyticsTopology stores: arrivals and
+ * patients served per minute over the last {@code rate-window-minutes}, the rolling
+ * average wait, and a predicted wait for a given queue position (position divided by
+ * the current service rate).
+ * <p>
+ * A clinic's stores live on whichever instance owns its queue-updates partition; a
+ * query for a clinic owned elsewhere is forwarded to that instance once.
+ */
+@Service
+@ConditionalOnProperty(name = {"kafka.enabled", "app.queue-analytics.enabled"}, havingValue = "true")
+public class QueueAnalyticsService {
+
+    public static final String FORWARDED_HEADER = "X-Queue-Analytics-Forwarded";
+    private static final ParameterizedTypeReference<Map<String, Object>> MAP = new ParameterizedTypeReference<>() {
+    };
+
+    private final KafkaStreamsInteractiveQueryService queries;
+    private final Duration rateWindow;
+    private final Duration waitWindow;
+    private final RestClient peers = RestClient.create();
+
+    public QueueAnalyticsService(KafkaStreamsInteractiveQueryService queueAnalyticsQueries,
+                                 @Value("${app.queue-analytics.rate-window-minutes:15}") long rateWindowMinutes,
+                                 @Value("${app.queue-analytics.wait-window-minutes:30}") long waitWindowMinutes) {
+        this.queries = queueAnalyticsQueries;
+        this.rateWindow = Duration.ofMinutes(rateWindowMinutes);
+        this.waitWindow = Duration.ofMinutes(waitWindowMinutes);
+    }
+
+    /**
+     * @param positions queue positions to predict a wait for
+     * @param forwarded true when another instance already routed this query here
+     */
+    public Map<String, Object> getClinicAnalytics(String clinicId, List<Integer> positions, boolean forwarded) {
+        HostInfo self = queries.getCurrentKafkaStreamsApplicationHostInfo();
+        HostInfo owner = queries.getKafkaStreamsApplicationHostInfo(
+                QueueAnalyticsTopology.ARRIVALS_STORE, clinicId, Serdes.String().serializer());
+        if (!forwarded && owner != null && !owner.equals(self)) {
+            return forward(owner, clinicId, positions);
+        }
+
+        Map<String, Object> analytics = compute(clinicId, positions, System.currentTimeMillis(),
+                queries.retrieveQueryableStore(QueueAnalyticsTopology.ARRIVALS_STORE, QueryableStoreTypes.windowStore()),
+                queries.retrieveQueryableStore(QueueAnalyticsTopology.SERVED_STORE, QueryableStoreTypes.windowStore()),
+                queries.retrieveQueryableStore(QueueAnalyticsTopology.WAITS_STORE, QueryableStoreTypes.windowStore()));
+        analytics.put("served_by", self.host() + ":" + self.port());
+        return analytics;
+    }
+
+    private Map<String, Object> forward(HostInfo owner, String clinicId, List<Integer> positions) {
+        String uri = UriComponentsBuilder.newInstance()
+                .scheme("http").host(owner.host()).port(owner.port())
+                .path("/api/queue/analytics/{clinicId}")
+                .queryParam("positions", positions.toArray())
+                .buildAndExpand(clinicId)
+                .toUriString();
+        return peers.get().uri(uri)
+                .header(FORWARDED_HEADER, "true")
+                .retrieve()
+                .body(MAP);
+    }
+
+    Map<String, Object> compute(String clinicId, List<Integer> positions, long now,
+                                ReadOnlyWindowStore<String, Long> arrivals,
+                                ReadOnlyWindowStore<String, Long> served,
+                                ReadOnlyWindowStore<String, WaitStats> waits) {
+        // The last rate-window-minutes one-minute windows, the newest one still filling
+        long minute = QueueAnalyticsTopology.RATE_WINDOW.toMillis();
+        long currentStart = now - now % minute;
+        Instant from = Instant.ofEpochMilli(currentStart).minus(rateWindow).plusMillis(minute);
+        Instant to = Instant.ofEpochMilli(now);
+        TreeMap<Long, long[]> perMinute = new TreeMap<>();
+        for (long start = from.toEpochMilli(); start <= currentStart; start += minute) {
+            perMinute.put(start, new long[2]);
+        }
+        long totalArrivals = sum(arrivals, clinicId, from, to, perMinute, 0);
+        long totalServed = sum(served, clinicId, from, to, perMinute, 1);
+        double minutes = rateWindow.toMinutes();
+        double arrivalsPerMinute = totalArrivals / minutes;
+        double servicePerMinute = totalServed / minutes;
+
+        // Of the sliding windows that contain now, the oldest covers the full wait window
+        WaitStats waitStats = null;
+        try (WindowStoreIterator<WaitStats> it = waits.fetch(clinicId,
+                to.minus(waitWindow).plusMillis(1), to)) {
+            if (it.hasNext()) {
+                waitStats = it.next().value;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("clinic_id", clinicId);
+        result.put("as_of", to.toString());
+        result.put("rate_window_minutes", rateWindow.toMinutes());
+        result.put("arrivals_per_min", round(arrivalsPerMinute));
+        result.put("service_rate_per_min", round(servicePerMinute));
+        result.put("wait_window_minutes", waitWindow.toMinutes());
+        result.put("waits_sampled", waitStats == null ? 0 : waitStats.count());
+        result.put("avg_wait_minutes", waitStats == null || waitStats.count() == 0 ? null
+                : round(waitStats.totalMillis() / (double) waitStats.count() / 60_000.0));
+
+        Map<String, Object> predicted = new LinkedHashMap<>();
+        for (Integer position : positions) {
+            predicted.put(String.valueOf(position), servicePerMinute > 0 ? round(position / servicePerMinute) : null);
+        }
+        result.put("predicted_wait_minutes", predicted);
+
+        List<Map<String, Object>> series = new ArrayList<>(perMinute.size());
+        perMinute.forEach((start, counts) -> {
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("minute", Instant.ofEpochMilli(start).toString());
+            point.put("arrivals", counts[0]);
+            point.put("served", counts[1]);
+            series.add(point);
+        });
+        result.put("per_minute", series);
+        return result;
+    }
+
+    private static long sum(ReadOnlyWindowStore<String, Long> store, String clinicId, Instant from, Instant to,
+                            Map<Long, long[]> perMinute, int column) {
+        long total = 0;
+        try (WindowStoreIterator<Long> it = store.fetch(clinicId, from, to)) {
+            while (it.hasNext()) {
+                KeyValue<Long, Long> window = it.next();
+                perMinute.computeIfAbsent(window.key, k -> new long[2])[column] = window.value;
+                total += window.value;
+            }
+        }
+        return total;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,229 @@
+package com.is442.backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Set;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.TimeWindows;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.state.KeyValueIterator;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.apache.kafka.streams.state.Stores;
+import org.apache.kafka.streams.state.WindowStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.util.EventCodec;
+
+/**
+ * Kafka Streams topology over clinic-queue-updates (keyed by clinicId) that keeps
+ * per-clinic queue analytics in queryable window stores:
+ * <ul>
+ * <li>{@value #ARRIVALS_STORE}: check-ins per one-minute window;</li>
+ * <li>{@value #SERVED_STORE}: patients called (NOW_SERVING) per one-minute window;</li>
+ * <li>{@value #WAITS_STORE}: count and total of check-in to NOW_SERVING waits over a
+ * sliding {@code waitWindow}, advancing a minute at a time.</li>
+ * </ul>
+ * Waits pair each NOW_SERVING with its appointment's check-in time, held in
+ * {@value #CHECKINS_STORE} until the patient is called or removed. Windows use the
+ * event's own timestamp, so replaying the topic rebuilds the same figures.
+ * QueueAnalyticsService reads the stores.
+ */
+public final class QueueAnalyticsTopology {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueueAnalyticsTopology.class);
+
+    public static final String ARRIVALS_STORE = "queue-arrivals-per-minute";
+    public static final String SERVED_STORE = "queue-served-per-minute";
+    public static final String WAITS_STORE = "queue-wait-times";
+    public static final String CHECKINS_STORE = "queue-open-checkins";
+
+    public static final Duration RATE_WINDOW = Duration.ofMinutes(1);
+    static final Duration GRACE = Duration.ofMinutes(1);
+    // Check-ins never called or removed (e.g. the queue was reset) are dropped after this
+    static final Duration CHECKIN_RETENTION = Duration.ofHours(12);
+
+    // Check-in used to be published as POSITION_CHANGED; records of that age still count
+    private static final Set<String> ARRIVAL_TYPES = Set.of("CHECKED_IN", "POSITION_CHANGED");
+
+    private QueueAnalyticsTopology() {
+    }
+
+    /**
+     * @param waitWindow how far back the rolling average wait looks
+     * @param retention  how long per-minute arrival and service counts stay queryable
+     */
+    public static KStream<String, QueueEvent> build(StreamsBuilder builder, String topic, Duration waitWindow,
+                                                    Duration retention) {
+        builder.addStateStore(Stores.keyValueStoreBuilder(
+                Stores.persistentKeyValueStore(CHECKINS_STORE), Serdes.String(), Serdes.Long()));
+
+        KStream<String, QueueEvent> events = builder
+                .stream(topic, Consumed.with(Serdes.String(), new QueueEventSerde())
+                        .withTimestampExtractor(new EventTimeExtractor()))
+                .filter((clinicId, evt) -> clinicId != null && evt != null && evt.type() != null);
+
+        events.filter((clinicId, evt) -> ARRIVAL_TYPES.contains(evt.type()))
+                .groupByKey()
+                .windowedBy(TimeWindows.ofSizeAndGrace(RATE_WINDOW, GRACE))
+                .count(Materialized.<String, Long, WindowStore<Bytes, byte[]>>as(ARRIVALS_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withRetention(retention));
+
+        events.filter((clinicId, evt) -> "NOW_SERVING".equals(evt.type()))
+                .groupByKey()
+                .windowedBy(TimeWindows.ofSizeAndGrace(RATE_WINDOW, GRACE))
+                .count(Materialized.<String, Long, WindowStore<Bytes, byte[]>>as(SERVED_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withRetention(retention));
+
+        events.process(WaitTimeProcessor::new, CHECKINS_STORE)
+                .groupByKey(Grouped.with(Serdes.String(), Serdes.Long()))
+                .windowedBy(TimeWindows.ofSizeAndGrace(waitWindow, GRACE).advanceBy(RATE_WINDOW))
+                .aggregate(WaitStats::empty, (clinicId, waitMillis, stats) -> stats.add(waitMillis),
+                        Materialized.<String, WaitStats, WindowStore<Bytes, byte[]>>as(WAITS_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(new WaitStatsSerde()));
+        return events;
+    }
+
+    /** Number of waits in a window and their total, in milliseconds. */
+    public record WaitStats(long count, long totalMillis) {
+
+        static WaitStats empty() {
+            return new WaitStats(0, 0);
+        }
+
+        WaitStats add(long waitMillis) {
+            return new WaitStats(count + 1, totalMillis + waitMillis);
+        }
+    }
+
+    /**
+     * Remembers when each appointment checked in and emits the wait, keyed by clinic,
+     * when it is called. Events for one clinic share a partition, so the check-in and
+     * its NOW_SERVING always meet in the same store.
+     */
+    static final class WaitTimeProcessor implements Processor<String, QueueEvent, String, Long> {
+
+        private ProcessorContext<String, Long> context;
+        private KeyValueStore<String, Long> checkins;
+
+        @Override
+        public void init(ProcessorContext<String, Long> context) {
+            this.context = context;
+            this.checkins = context.getStateStore(CHECKINS_STORE);
+            context.schedule(Duration.ofMinutes(10), PunctuationType.WALL_CLOCK_TIME, this::expire);
+        }
+
+        @Override
+        public void process(Record<String, QueueEvent> record) {
+            QueueEvent evt = record.value();
+            String appointmentId = evt.appointmentId();
+            if (appointmentId == null) {
+                return;
+            }
+            if (ARRIVAL_TYPES.contains(evt.type())) {
+                checkins.putIfAbsent(appointmentId, record.timestamp());
+            } else if ("NOW_SERVING".equals(evt.type())) {
+                Long checkedInAt = checkins.delete(appointmentId);
+                if (checkedInAt != null && record.timestamp() >= checkedInAt) {
+                    context.forward(record.withValue(record.timestamp() - checkedInAt));
+                }
+            } else if ("REMOVED".equals(evt.type())) {
+                checkins.delete(appointmentId);
+            }
+        }
+
+        private void expire(long now) {
+            long cutoff = now - CHECKIN_RETENTION.toMillis();
+            int expired = 0;
+            try (KeyValueIterator<String, Long> it = checkins.all()) {
+                while (it.hasNext()) {
+                    KeyValue<String, Long> entry = it.next();
+                    if (entry.value < cutoff) {
+                        checkins.delete(entry.key);
+                        expired++;
+                    }
+                }
+            }
+            if (expired > 0) {
+                logger.debug("Expired {} check-ins that were never called", expired);
+            }
+        }
+    }
+
+    /** Windows by the time the queue change happened, not when Kafka received it. */
+    static final class EventTimeExtractor implements TimestampExtractor {
+        @Override
+        public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+            if (record.value() instanceof QueueEvent evt && evt.ts() != null && evt.ts() > 0) {
+                return evt.ts();
+            }
+            return record.timestamp();
+        }
+    }
+
+    /**
+     * QueueEvent in either of EventCodec's formats. Records that are not queue events
+     * (e.g. the /test-kafka strings) come out as null and are filtered out.
+     */
+    static final class QueueEventSerde implements Serde<QueueEvent> {
+        @Override
+        public Serializer<QueueEvent> serializer() {
+            return (topic, evt) -> evt == null ? null : EventCodec.encode(evt);
+        }
+
+        @Override
+        public Deserializer<QueueEvent> deserializer() {
+            return (topic, data) -> {
+                if (data == null) {
+                    return null;
+                }
+                try {
+                    return EventCodec.decodeQueueEvent(data);
+                } catch (IOException e) {
+                    logger.debug("Skipping unreadable queue event: {}", e.getMessage());
+                    return null;
+                }
+            };
+        }
+    }
+
+    static final class WaitStatsSerde implements Serde<WaitStats> {
+        @Override
+        public Serializer<WaitStats> serializer() {
+            return (topic, stats) -> stats == null ? null
+                    : ByteBuffer.allocate(16).putLong(stats.count()).putLong(stats.totalMillis()).array();
+        }
+
+        @Override
+        public Deserializer<WaitStats> deserializer() {
+            return (topic, data) -> {
+                if (data == null) {
+                    return null;
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(data);
+                return new WaitStats(buffer.getLong(), buffer.getLong());
+            };
+        }
+    }
+}
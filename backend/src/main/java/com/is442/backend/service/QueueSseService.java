@@ -20,7 +20,13 @@ public class QueueSseService {
     }
 
     public void publishToClinic(String clinicId, String json) {
-        Sinks.EmitResult result = sinkForClinic(clinicId).tryEmitNext(json);
+        // Kafka listener threads, the outbox relay and Redis queue updates may emit for the same
+        // clinic at once; a sink rejects overlapping emits, so serialise them per clinic
+        Sinks.Many<String> sink = sinkForClinic(clinicId);
+        Sinks.EmitResult result;
+        synchronized (sink) {
+            result = sink.tryEmitNext(json);
+        }
         if (result.isFailure()) {
             System.err.println("[QueueSseService] Failed to emit event for clinic " + clinicId + ": " + result);
         } else {
@@ -4,13 +4,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.is442.backend.dto.CallNextResult;
 import com.is442.backend.dto.NotificationEvent;
 import com.is442.backend.dto.PositionSnapshot;
+import com.is442.backend.dto.QueueEvent;
 import com.is442.backend.dto.QueueItemDto;
 import com.is442.backend.dto.QueueStateDto;
 import com.is442.backend.dto.QueueStatus;
 import com.is442.backend.model.Doctor;
 import com.is442.backend.model.User;
 import com.is442.backend.repository.DoctorRepository;
+import com.is442.backend.service.NotificationTemplates.PayloadField;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
@@ -23,6 +28,8 @@ import java.util.*;
 @Service
 public class RedisQueueService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisQueueService.class);
+
     private static final String KEY_CLINICS = "clinics";
 
     // Sequence Queue => track what number it is based on which clinic
@@ -40,6 +47,11 @@ public class RedisQueueService {
         return "clinic:" + clinicId + ":nowServing";
     }
 
+    // Version => bumped on every queue change, carried on its QueueEvent
+    private static String kVersion(String clinicId) {
+        return "clinic:" + clinicId + ":version";
+    }
+
     // Stores appointment metadata (combines patient and doctor information)
     private static String kAppointment(String appointmentId) {
         return "appointment:" + appointmentId;
@@ -48,7 +60,16 @@ public class RedisQueueService {
     private final StringRedisTemplate strTpl; // strings, hashes, zsets
     @SuppressWarnings("unused")
     private final RedisTemplate<String, Object> jsonTpl; // (unused here but kept)
-    private final DefaultRedisScript<List<Object>> dequeueScript; // Lua: [pid, nowServing, k1,v1,...]
+    private final DefaultRedisScript<List<Object>> dequeueScript; // Lua: [pid, nowServing, version, k1,v1,...]
+    private final DefaultRedisScript<List<Object>> enqueueScript; // Lua: [seq, position, version]
+    private final DefaultRedisScript<List<Object>> fastTrackScript; // Lua: [position, version], nil if not queued
+    private final DefaultRedisScript<Long> removeFromQueueScript; // Lua: version, nil if not queued
+    private final DefaultRedisScript<Long> resetQueueScript; // Lua: version
+
+    // Each change bumps the clinic version inside its Lua script and is handed to the
+    // single publisher thread under its clinic's lock, so this instance publishes a
+    // clinic's events in version order
+    private final Object[] clinicLocks = new Object[64];
 
     @Autowired
     private UserService userService;
@@ -56,23 +77,42 @@ public class RedisQueueService {
     @Autowired(required = false)
     private AppointmentService appointmentService;
 
+    // Dedupes and rate-limits before NotificationEventProducer; absent when kafka.enabled=false
     @Autowired(required = false)
-    private NotificationEventProducer notificationEventProducer;
+    private NotificationGate notificationGate;
 
     @Autowired(required = false)
     private DoctorRepository doctorRepository;
 
+    @Autowired
+    private NotificationTemplates notificationTemplates;
+
     @Autowired(required = false)
     private QueueSseService queueSseService; // For queue state broadcasts via SSE
 
+    // Publishes every queue change to clinic-queue-updates; absent when kafka.enabled=false
+    @Autowired(required = false)
+    private KafkaQueueEventProducer queueEventProducer;
+
     private final ObjectMapper objectMapper = new ObjectMapper(); // For JSON serialization
 
     public RedisQueueService(StringRedisTemplate strTpl,
                              RedisTemplate<String, Object> jsonTpl,
-                             DefaultRedisScript<List<Object>> dequeueScript) {
+                             @Qualifier("dequeueScript") DefaultRedisScript<List<Object>> dequeueScript,
+                             @Qualifier("enqueueScript") DefaultRedisScript<List<Object>> enqueueScript,
+                             @Qualifier("fastTrackScript") DefaultRedisScript<List<Object>> fastTrackScript,
+                             @Qualifier("removeFromQueueScript") DefaultRedisScript<Long> removeFromQueueScript,
+                             @Qualifier("resetQueueScript") DefaultRedisScript<Long> resetQueueScript) {
         this.strTpl = strTpl;
         this.jsonTpl = jsonTpl;
         this.dequeueScript = dequeueScript;
+        this.enqueueScript = enqueueScript;
+        this.fastTrackScript = fastTrackScript;
+        this.removeFromQueueScript = removeFromQueueScript;
+        this.resetQueueScript = resetQueueScript;
+        for (int i = 0; i < clinicLocks.length; i++) {
+            clinicLocks[i] = new Object();
+        }
     }
 
     /**
@@ -141,23 +181,18 @@ public class RedisQueueService {
             }
         }
 
-        // 1) allocate next sequence (first time -> 1 because INCR on 0/nonexistent
-        // starts at 1)
-        long seq = Optional.ofNullable(
-                strTpl.opsForValue().increment(kSeq(clinicId))).orElse(1L);
-
-        // 2) store appointment metadata (HASH) - combines patient and doctor info
+        // 1) appointment metadata (HASH) - combines patient and doctor info; the
+        // enqueue script adds the stable ticket number (seq)
         Map<String, String> meta = new LinkedHashMap<>();
         meta.put("appointmentId", appointmentId);
         meta.put("patientId", patientId);
         meta.put("clinicId", clinicId);
-        meta.put("seq", String.valueOf(seq)); // stable ticket number
         meta.put("phone", user.getPhone());
         meta.put("email", user.getEmail());
         meta.put("name", user.getFirstName() + " " + user.getLastName());
         meta.put("createdAt", Instant.now().toString());
 
-        // 3) Validate and fetch doctor information if provided
+        // 2) Validate and fetch doctor information if provided
         if (doctorId != null && !doctorId.trim().isEmpty()) {
             if (doctorRepository == null) {
                 throw new RuntimeException("DoctorRepository is not available. Cannot validate doctorId: " + doctorId);
@@ -177,24 +212,38 @@ public class RedisQueueService {
             }
         }
 
-        strTpl.opsForHash().putAll(kAppointment(appointmentId), meta);
-
-        // 4) enqueue in ZSET with seq as score (FIFO)
-        strTpl.opsForZSet().add(kQueue(clinicId), appointmentId, (double) seq);
-
-        // 5) compute 1-based position via ZRANK
-        Long rank = strTpl.opsForZSet().rank(kQueue(clinicId), appointmentId);
-        int position = (rank == null ? 0 : (int) (rank + 1));
-
-        // 6) register clinic id for dashboards
-        strTpl.opsForSet().add(KEY_CLINICS, clinicId);
-
-        // 7) Send N3_AWAY notification if position is 3
-        if (position == 3 && notificationEventProducer != null) {
+        // 3) in one Lua step: allocate the next seq (first time -> 1), store the hash,
+        // enqueue in ZSET with seq as score (FIFO), register the clinic for dashboards
+        // and bump the clinic version
+        List<String> hashFields = new ArrayList<>();
+        meta.forEach((field, value) -> {
+            if (value != null) {
+                hashFields.add(field);
+                hashFields.add(value);
+            }
+        });
+        List<String> args = new ArrayList<>(List.of(appointmentId, clinicId, String.valueOf(hashFields.size() / 2)));
+        args.addAll(hashFields);
+        long seq;
+        int position;
+        synchronized (clinicLock(clinicId)) {
+            List<Object> res = strTpl.execute(enqueueScript,
+                    List.of(kSeq(clinicId), kQueue(clinicId), kAppointment(appointmentId), KEY_CLINICS,
+                            kVersion(clinicId)),
+                    args.toArray());
+            seq = parseLongSafe((String) res.get(0), 0L);
+            position = (int) parseLongSafe((String) res.get(1), 0L);
+            long version = parseLongSafe((String) res.get(2), 0L);
+            publishQueueEvent(new QueueEvent("CHECKED_IN", clinicId, appointmentId, patientId,
+                    position, seq, System.currentTimeMillis(), version), meta.get("doctorId"));
+        }
+
+        // 4) Send N3_AWAY notification if position is 3
+        if (position == 3 && notificationGate != null) {
             sendN3AwayNotification(clinicId, appointmentId, patientId, user);
         }
 
-        // 8) Broadcast queue state update via SSE (for UI updates)
+        // 5) Broadcast queue state update via SSE (for UI updates)
         broadcastQueueStateUpdate(clinicId);
 
         return new CheckinResult(position, seq);
@@ -247,30 +296,43 @@ public class RedisQueueService {
             }
         }
 
-        // KEYS: queue, nowServing (events removed)
+        // KEYS: queue, nowServing, version
         List<String> keys = List.of(
                 kQueue(clinicId),
-                kNowServing(clinicId));
+                kNowServing(clinicId),
+                kVersion(clinicId));
         // ARGS: prefix (doctorId is not needed - doctor info is updated in Java before
         // calling this script)
         List<String> args = List.of("appointment:"); // prefix expected by Lua: kAppointment = "appointment:" + id
 
-        List<?> res = strTpl.execute(dequeueScript, keys, args.toArray());
-        if (res == null || res.isEmpty() || Boolean.FALSE.equals(res.get(0))) {
-            return CallNextResult.empty(clinicId);
-        }
+        String appointmentId;
+        long nowServing;
+        Map<String, String> fields = new LinkedHashMap<>();
+        String patientId;
+        long queueNumber;
+        synchronized (clinicLock(clinicId)) {
+            List<?> res = strTpl.execute(dequeueScript, keys, args.toArray());
+            if (res == null || res.isEmpty() || Boolean.FALSE.equals(res.get(0))) {
+                return CallNextResult.empty(clinicId);
+            }
 
-        // Lua: [ pid, nowServing, k1, v1, k2, v2, ... ]
-        String appointmentId = (String) res.get(0);
-        long nowServing = parseLongSafe((String) res.get(1), 0L);
+            // Lua: [ pid, nowServing, version, k1, v1, k2, v2, ... ]
+            appointmentId = (String) res.get(0);
+            nowServing = parseLongSafe((String) res.get(1), 0L);
+            long version = parseLongSafe((String) res.get(2), 0L);
 
-        Map<String, String> fields = new LinkedHashMap<>();
-        for (int i = 2; i + 1 < res.size(); i += 2) {
-            fields.put((String) res.get(i), (String) res.get(i + 1));
-        }
+            for (int i = 3; i + 1 < res.size(); i += 2) {
+                fields.put((String) res.get(i), (String) res.get(i + 1));
+            }
+
+            patientId = fields.getOrDefault("patientId", "");
+            queueNumber = parseLongSafe(fields.get("seq"), 0L);
 
-        String patientId = fields.getOrDefault("patientId", "");
-        long queueNumber = parseLongSafe(fields.get("seq"), 0L);
+            // position carries the nowServing ticket, as subscribers have always received it
+            publishQueueEvent(new QueueEvent("NOW_SERVING", clinicId, appointmentId, patientId,
+                            (int) nowServing, queueNumber, System.currentTimeMillis(), version),
+                    doctorId != null && !doctorId.trim().isEmpty() ? doctorId : fields.get("doctorId"));
+        }
 
         // Update appointment in database if AppointmentService is available
         // Note: For walk-in appointments, this may not exist yet (created
@@ -296,18 +358,18 @@ public class RedisQueueService {
         // Note: fields contains all appointment hash data retrieved BEFORE deletion in
         // Lua
         // script, including the updated doctor info
-        if (notificationEventProducer != null && appointmentId != null && !appointmentId.isEmpty()) {
+        if (notificationGate != null && appointmentId != null && !appointmentId.isEmpty()) {
             sendNowServingNotification(clinicId, appointmentId, patientId, fields, doctorId);
         }
 
         // Check if anyone in the queue is now at position 3 and send N3_AWAY
         // notification
-        if (notificationEventProducer != null) {
+        if (notificationGate != null) {
             checkAndNotifyN3Away(clinicId);
         }
 
         // Broadcast queue state update via SSE (for UI updates)
-        System.out.println("[RedisQueueService] callNext completed, broadcasting queue state update for clinic: " + clinicId);
+        logger.debug("callNext completed, broadcasting queue state update for clinic {}", clinicId);
         broadcastQueueStateUpdate(clinicId);
 
         // position=0 to mean "this appointment is now being served"
@@ -363,8 +425,12 @@ public class RedisQueueService {
     // Resets now Serving and seq
     public void resetQnumber(String clinicId) {
         validateNonEmpty(clinicId, "clinicId");
-        strTpl.opsForValue().set(kSeq(clinicId), "0");
-        strTpl.opsForValue().set(kNowServing(clinicId), "0");
+        synchronized (clinicLock(clinicId)) {
+            Long version = strTpl.execute(resetQueueScript,
+                    List.of(kSeq(clinicId), kNowServing(clinicId), kVersion(clinicId)));
+            publishQueueEvent(new QueueEvent("QUEUE_RESET", clinicId, null, null,
+                    null, null, System.currentTimeMillis(), version == null ? 0L : version), null);
+        }
     }
 
     /**
@@ -420,6 +486,20 @@ public class RedisQueueService {
         return new QueueStateDto(clinicId, nowServing, totalWaiting, queueItems);
     }
 
+    private Object clinicLock(String clinicId) {
+        return clinicLocks[Math.floorMod(clinicId.hashCode(), clinicLocks.length)];
+    }
+
+    /**
+     * Hands the event to Kafka without waiting for it; the queue change has already
+     * happened and must not fail because the event could not be published.
+     */
+    private void publishQueueEvent(QueueEvent evt, String doctorId) {
+        if (queueEventProducer != null) {
+            queueEventProducer.publishQueueEvent(evt, doctorId);
+        }
+    }
+
     /**
      * Broadcasts complete queue state to SSE subscribers.
      * This is called after queue-changing operations to keep frontend in sync.
@@ -428,7 +508,7 @@ public class RedisQueueService {
      */
     private void broadcastQueueStateUpdate(String clinicId) {
         if (queueSseService == null) {
-            System.err.println("[RedisQueueService] QueueSseService is null - cannot broadcast queue state update for clinic: " + clinicId);
+            logger.warn("QueueSseService is null - cannot broadcast queue state update for clinic {}", clinicId);
             return; // SSE service not available
         }
 
@@ -466,13 +546,12 @@ public class RedisQueueService {
             // Serialize to JSON and broadcast
             String json = objectMapper.writeValueAsString(eventPayload);
             queueSseService.publishToClinic(clinicId, json);
-            System.out.println("[RedisQueueService] Broadcasted queue state update for clinic: " + clinicId
-                    + ", nowServing: " + state.getNowServing() + ", totalWaiting: " + state.getTotalWaiting());
+            logger.debug("Broadcasted queue state update for clinic {}, nowServing: {}, totalWaiting: {}",
+                    clinicId, state.getNowServing(), state.getTotalWaiting());
 
         } catch (Exception e) {
             // Log but don't fail the operation
-            System.err.println("[RedisQueueService] Failed to broadcast queue state update: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to broadcast queue state update for clinic {}", clinicId, e);
         }
     }
 
@@ -543,39 +622,25 @@ public class RedisQueueService {
             throw new RuntimeException("Appointment does not have a clinicId: " + appointmentId);
         }
 
-        // Check if appointment exists in queue
-        Double currentScore = strTpl.opsForZSet().score(kQueue(clinicId), appointmentId);
-        if (currentScore == null) {
-            throw new RuntimeException("Appointment not found in queue: " + appointmentId);
-        }
-
-        // Get the minimum score in the queue (the first element)
-        Set<String> firstElement = strTpl.opsForZSet().range(kQueue(clinicId), 0, 0);
-        if (firstElement == null || firstElement.isEmpty()) {
-            throw new RuntimeException("Queue is empty for clinic: " + clinicId);
-        }
-
-        // Get minimum score from the queue
-        Set<org.springframework.data.redis.core.ZSetOperations.TypedTuple<String>> rangeWithScores = strTpl.opsForZSet()
-                .rangeWithScores(kQueue(clinicId), 0, 0);
+        // Set the appointment's score below the queue's minimum (minScore - 1, or 0.5 if
+        // minScore is 1 or less) and bump the version in one Lua step
+        int position;
+        synchronized (clinicLock(clinicId)) {
+            List<Object> res = strTpl.execute(fastTrackScript, List.of(kQueue(clinicId), kVersion(clinicId)),
+                    appointmentId);
+            if (res == null || res.size() < 2 || res.get(0) == null) {
+                throw new RuntimeException("Appointment not found in queue: " + appointmentId);
+            }
+            // the new position (should be 1)
+            position = (int) parseLongSafe((String) res.get(0), 0L);
+            long version = parseLongSafe((String) res.get(1), 0L);
 
-        double minScore = 1.0; // Default if queue is somehow empty
-        if (rangeWithScores != null && !rangeWithScores.isEmpty()) {
-            org.springframework.data.redis.core.ZSetOperations.TypedTuple<String> first = rangeWithScores.iterator()
-                    .next();
-            Double score = first.getScore();
-            minScore = (score != null) ? score.doubleValue() : 1.0;
+            publishQueueEvent(new QueueEvent("FAST_TRACKED", clinicId, appointmentId, (String) meta.get("patientId"),
+                            position, parseLongSafe((String) meta.get("seq"), 0L), System.currentTimeMillis(),
+                            version),
+                    (String) meta.get("doctorId"));
         }
 
-        // Set the appointment's score to be lower than the minimum
-        // Use minScore - 1, or 0.5 if minScore is 1 or less
-        double newScore = (minScore <= 1.0) ? 0.5 : (minScore - 1.0);
-        strTpl.opsForZSet().add(kQueue(clinicId), appointmentId, newScore);
-
-        // Get the new position (should be 1)
-        Long rank = strTpl.opsForZSet().rank(kQueue(clinicId), appointmentId);
-        int position = (rank == null ? 0 : (int) (rank + 1));
-
         // Broadcast queue state update via SSE (for UI updates)
         broadcastQueueStateUpdate(clinicId);
 
@@ -616,34 +681,29 @@ public class RedisQueueService {
             throw new RuntimeException("Appointment does not have a clinicId: " + appointmentId);
         }
 
-        // Check if appointment exists in queue
-        Double currentScore = strTpl.opsForZSet().score(kQueue(clinicId), appointmentId);
-        if (currentScore == null) {
-            throw new RuntimeException("Appointment not found in queue: " + appointmentId);
-        }
+        // Remove from queue (ZSET), delete the appointment hash and bump the version in one Lua step
+        synchronized (clinicLock(clinicId)) {
+            Long version = strTpl.execute(removeFromQueueScript,
+                    List.of(kQueue(clinicId), kAppointment(appointmentId), kVersion(clinicId)), appointmentId);
+            if (version == null) {
+                throw new RuntimeException("Appointment not found in queue: " + appointmentId);
+            }
 
-        // Remove from queue (ZSET)
-        Long removed = strTpl.opsForZSet().remove(kQueue(clinicId), appointmentId);
-        if (removed == null || removed == 0) {
-            throw new RuntimeException("Failed to remove appointment from queue: " + appointmentId);
+            publishQueueEvent(new QueueEvent("REMOVED", clinicId, appointmentId, (String) meta.get("patientId"),
+                            null, parseLongSafe((String) meta.get("seq"), 0L), System.currentTimeMillis(), version),
+                    (String) meta.get("doctorId"));
         }
 
-        // Delete the appointment hash
-        strTpl.delete(kAppointment(appointmentId));
-
         // Asynchronously update appointment status to NO_SHOW in database
         if (appointmentService != null) {
             CompletableFuture.runAsync(() -> {
                 try {
                     appointmentService.markNoShow(appointmentUuid);
-                    System.out.println("[RedisQueueService] Asynchronously updated appointment " + appointmentId
-                            + " status to NO_SHOW");
+                    logger.debug("Asynchronously updated appointment {} status to NO_SHOW", appointmentId);
                 } catch (Exception e) {
                     // Log but don't fail the queue removal if status update fails
                     // This is a non-critical operation
-                    System.err.println(
-                            "[RedisQueueService] Failed to update appointment status to NO_SHOW: " + e.getMessage());
-                    e.printStackTrace();
+                    logger.warn("Failed to update appointment {} status to NO_SHOW", appointmentId, e);
                 }
             });
         }
@@ -771,32 +831,17 @@ public class RedisQueueService {
             doctorName = getStringFromMeta(meta, "doctorName", "");
         }
 
-        // Build message based on event type
-        String subject;
-        String body;
-
-        if ("N3_AWAY".equals(eventType)) {
-            subject = "You're 3 away";
-            body = String.format("Please return to the waiting area. Your queue number is %s.", queueNumber);
-        } else { // NOW_SERVING
-            subject = "You're being called";
-            body = String.format("%s, please proceed to the consultation room. Your queue number is %s.",
-                    name, queueNumber);
-        }
-
-        // Build comprehensive JSON payload with clinicId, doctorId, and doctorName
-        return String.format(
-                "{\"subject\":\"%s\",\"body\":\"%s\",\"clinicId\":\"%s\",\"doctorId\":\"%s\",\"doctorName\":\"%s\",\"patient\":{\"name\":\"%s\",\"email\":\"%s\",\"phone\":\"%s\",\"appointment_id\":\"%s\",\"queue_number\":\"%s\"}}",
-                escapeJson(subject),
-                escapeJson(body),
-                escapeJson(clinicId),
-                escapeJson(doctorId != null ? doctorId : ""),
-                escapeJson(doctorName),
-                escapeJson(name),
-                escapeJson(email),
-                escapeJson(phone),
-                escapeJson(appointmentId),
-                escapeJson(queueNumber));
+        // Subject and body wording live in notification-templates/payload/{eventType}.json
+        CharSequence[] values = new CharSequence[NotificationTemplates.PAYLOAD_FIELDS];
+        values[PayloadField.CLINIC_ID.ordinal()] = clinicId;
+        values[PayloadField.DOCTOR_ID.ordinal()] = doctorId;
+        values[PayloadField.DOCTOR_NAME.ordinal()] = doctorName;
+        values[PayloadField.PATIENT_NAME.ordinal()] = name;
+        values[PayloadField.EMAIL.ordinal()] = email;
+        values[PayloadField.PHONE.ordinal()] = phone;
+        values[PayloadField.APPOINTMENT_ID.ordinal()] = appointmentId;
+        values[PayloadField.QUEUE_NUMBER.ordinal()] = queueNumber;
+        return notificationTemplates.renderPayload(eventType, values);
     }
 
     /**
@@ -811,26 +856,12 @@ public class RedisQueueService {
         return str.trim().isEmpty() ? defaultValue : str;
     }
 
-    /**
-     * Escapes special JSON characters in a string.
-     */
-    private String escapeJson(String str) {
-        if (str == null) {
-            return "";
-        }
-        return str.replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\n", "\\n")
-                .replace("\r", "\\r")
-                .replace("\t", "\\t");
-    }
-
     /**
      * Sends N3_AWAY notification to a patient who is 3 positions away from being
      * called.
      */
     private void sendN3AwayNotification(String clinicId, String appointmentId, String patientId, User user) {
-        if (notificationEventProducer == null) {
+        if (notificationGate == null) {
             return;
         }
 
@@ -857,13 +888,12 @@ public class RedisQueueService {
                     payload,
                     System.currentTimeMillis());
 
-            notificationEventProducer.publish(event);
-            System.out.println("[RedisQueueService] Sent N3_AWAY notification for appointment: " + appointmentId);
+            NotificationGate.Decision decision = notificationGate.publish(event);
+            logger.debug("N3_AWAY notification for appointment {}: {}", appointmentId, decision);
         } catch (Exception e) {
             // Log but don't fail the check-in if notification fails
             // This is a non-critical operation
-            System.err.println("[RedisQueueService] Failed to send N3_AWAY notification: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to send N3_AWAY notification for appointment {}", appointmentId, e);
         }
     }
 
@@ -881,7 +911,7 @@ public class RedisQueueService {
      */
     private void sendNowServingNotification(String clinicId, String appointmentId, String patientId,
                                             Map<String, String> patientFields, String doctorId) {
-        if (notificationEventProducer == null) {
+        if (notificationGate == null) {
             return;
         }
 
@@ -907,13 +937,12 @@ public class RedisQueueService {
                     payload,
                     System.currentTimeMillis());
 
-            notificationEventProducer.publish(event);
-            System.out.println("[RedisQueueService] Sent NOW_SERVING notification for appointment: " + appointmentId);
+            NotificationGate.Decision decision = notificationGate.publish(event);
+            logger.debug("NOW_SERVING notification for appointment {}: {}", appointmentId, decision);
         } catch (Exception e) {
             // Log but don't fail the call-next if notification fails
             // This is a non-critical operation
-            System.err.println("[RedisQueueService] Failed to send NOW_SERVING notification: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to send NOW_SERVING notification for appointment {}", appointmentId, e);
         }
     }
 
@@ -923,7 +952,7 @@ public class RedisQueueService {
      * This is called after callNext() to notify patients who moved to position 3.
      */
     private void checkAndNotifyN3Away(String clinicId) {
-        if (notificationEventProducer == null) {
+        if (notificationGate == null) {
             return;
         }
 
@@ -968,18 +997,16 @@ public class RedisQueueService {
                                 payload,
                                 System.currentTimeMillis());
 
-                        notificationEventProducer.publish(event);
-                        System.out.println(
-                                "[RedisQueueService] Sent N3_AWAY notification (post-callNext) for appointment: "
-                                        + appointmentIdAtPosition3);
+                        NotificationGate.Decision decision = notificationGate.publish(event);
+                        logger.debug("N3_AWAY notification (post-callNext) for appointment {}: {}",
+                                appointmentIdAtPosition3, decision);
                     }
                 }
             }
         } catch (Exception e) {
             // Log but don't fail the call-next if notification check fails
             // This is a non-critical operation
-            System.err.println("[RedisQueueService] Failed to check/send N3_AWAY notification: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Failed to check/send N3_AWAY notification for clinic {}", clinicId, e);
         }
     }
 }
@@ -0,0 +1,133 @@
+package com.is442.backend.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Region-level eviction and statistics for the Hibernate second-level cache
+ * (regions are configured in ehcache.xml).
+ * <p>
+ * Writes made through Hibernate keep the entity regions up to date on their own,
+ * but JDBC batch writes and Supabase REST writes do not, and cached finder results
+ * only notice Hibernate writes. Services therefore evict the affected regions once
+ * their transaction commits; evicting earlier would let a concurrent reader cache
+ * the old rows again.
+ */
+@Service
+public class ReferenceDataCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCache.class);
+
+    public static final String DOCTOR_REGION = "doctor";
+    public static final String DOCTOR_QUERY_REGION = "doctor_queries";
+    public static final String GP_CLINIC_REGION = "gp_clinic";
+    public static final String SPECIALIST_CLINIC_REGION = "specialist_clinic";
+    public static final String TIME_SLOT_REGION = "time_slot";
+    public static final String TIME_SLOT_QUERY_REGION = "time_slot_queries";
+
+    private static final List<String> ENTITY_REGIONS = List.of(
+            DOCTOR_REGION, GP_CLINIC_REGION, SPECIALIST_CLINIC_REGION, TIME_SLOT_REGION);
+    private static final List<String> QUERY_REGIONS = List.of(DOCTOR_QUERY_REGION, TIME_SLOT_QUERY_REGION);
+
+    private final SessionFactory sessionFactory;
+
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    public void evictDoctors() {
+        evictAfterCommit(DOCTOR_REGION, DOCTOR_QUERY_REGION);
+    }
+
+    public void evictClinics() {
+        evictAfterCommit(GP_CLINIC_REGION, SPECIALIST_CLINIC_REGION);
+    }
+
+    public void evictTimeSlots() {
+        evictAfterCommit(TIME_SLOT_REGION, TIME_SLOT_QUERY_REGION);
+    }
+
+    /**
+     * Drop every cached entity and query result, e.g. after data was changed
+     * directly in Supabase.
+     */
+    public void evictAll() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictAllRegions();
+        logger.info("Evicted all second-level cache regions");
+    }
+
+    public Map<String, Object> getStatistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statistics_enabled", statistics.isStatisticsEnabled());
+        result.put("second_level_hits", statistics.getSecondLevelCacheHitCount());
+        result.put("second_level_misses", statistics.getSecondLevelCacheMissCount());
+        result.put("second_level_puts", statistics.getSecondLevelCachePutCount());
+        result.put("query_cache_hits", statistics.getQueryCacheHitCount());
+        result.put("query_cache_misses", statistics.getQueryCacheMissCount());
+        result.put("query_cache_puts", statistics.getQueryCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String region : ENTITY_REGIONS) {
+            regions.put(region, regionStatistics(statistics.getDomainDataRegionStatistics(region)));
+        }
+        for (String region : QUERY_REGIONS) {
+            regions.put(region, regionStatistics(statistics.getQueryRegionStatistics(region)));
+        }
+        result.put("regions", regions);
+        return result;
+    }
+
+    private Map<String, Object> regionStatistics(CacheRegionStatistics region) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (region == null) {
+            return stats;
+        }
+        long hits = region.getHitCount();
+        long misses = region.getMissCount();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("puts", region.getPutCount());
+        stats.put("hit_ratio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        stats.put("entries_in_memory", region.getElementCountInMemory());
+        return stats;
+    }
+
+    private void evictAfterCommit(String... regions) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(regions);
+                }
+            });
+        } else {
+            evict(regions);
+        }
+    }
+
+    private void evict(String... regions) {
+        Cache cache = sessionFactory.getCache();
+        for (String region : regions) {
+            try {
+                cache.evictRegion(region);
+            } catch (Exception e) {
+                logger.warn("Failed to evict cache region {}: {}", region, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.is442.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.is442.backend.dto.ReportJobResponse;
+import com.is442.backend.dto.StaffReportResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Runs staff report generation as background jobs on the bounded reportTaskExecutor.
+ * Job state is kept in memory: it can be polled by id or followed over SSE, and
+ * finished jobs are forgotten after an hour (the report itself is persisted).
+ */
+@Service
+public class ReportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportJobService.class);
+    private static final Duration FINISHED_JOB_RETENTION = Duration.ofHours(1);
+
+    private final StaffReportService staffReportService;
+    private final ThreadPoolTaskExecutor reportTaskExecutor;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    // clinicId|date -> job id, so double clicks share one job instead of racing on the unique key
+    private final Map<String, String> activeJobs = new ConcurrentHashMap<>();
+
+    public ReportJobService(StaffReportService staffReportService,
+                            @Qualifier("reportTaskExecutor") ThreadPoolTaskExecutor reportTaskExecutor) {
+        this.staffReportService = staffReportService;
+        this.reportTaskExecutor = reportTaskExecutor;
+    }
+
+    /**
+     * Queue a report for generation and return immediately with the job snapshot.
+     * Throws RuntimeException if the worker queue is full.
+     */
+    public ReportJobResponse submit(String clinicId, LocalDate date, String generatedBy) {
+        evictFinishedJobs();
+
+        String reportKey = clinicId + "|" + date;
+        ReportJob job = new ReportJob(UUID.randomUUID().toString(), clinicId, date);
+        jobs.put(job.id, job);
+        String existingJobId = activeJobs.putIfAbsent(reportKey, job.id);
+        if (existingJobId != null) {
+            jobs.remove(job.id);
+            ReportJob existing = jobs.get(existingJobId);
+            if (existing != null) {
+                return existing.snapshot();
+            }
+            // stale entry left behind by an evicted job
+            jobs.put(job.id, job);
+            activeJobs.put(reportKey, job.id);
+        }
+
+        try {
+            reportTaskExecutor.execute(() -> run(job, generatedBy, reportKey));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            activeJobs.remove(reportKey, job.id);
+            logger.warn("Report queue full, rejecting job for clinic {} on {}", clinicId, date);
+            throw new RuntimeException("Report queue is full, please try again shortly");
+        }
+
+        logger.info("Queued report job {} for clinic {} on {}", job.id, clinicId, date);
+        return job.snapshot();
+    }
+
+    public Optional<ReportJobResponse> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(ReportJob::snapshot);
+    }
+
+    /**
+     * Current job state followed by every change, completing once the job finishes.
+     */
+    public Optional<Flux<ServerSentEvent<ReportJobResponse>>> streamJob(String jobId) {
+        ReportJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        return Optional.of(job.updates.asFlux()
+                .map(snapshot -> ServerSentEvent.<ReportJobResponse>builder()
+                        .event("report-job")
+                        .data(snapshot)
+                        .build()));
+    }
+
+    private void run(ReportJob job, String generatedBy, String reportKey) {
+        job.update("RUNNING", null, null);
+        try {
+            StaffReportResponse report = staffReportService.generateDailyReport(job.clinicId, job.reportDate, generatedBy);
+            job.update("COMPLETED", report, null);
+            logger.info("Report job {} completed (report id {})", job.id, report.getId());
+        } catch (Exception e) {
+            logger.error("Report job {} failed for clinic {} on {}", job.id, job.clinicId, job.reportDate, e);
+            job.update("FAILED", null, e.getMessage());
+        } finally {
+            activeJobs.remove(reportKey, job.id);
+        }
+    }
+
+    private void evictFinishedJobs() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(FINISHED_JOB_RETENTION);
+        jobs.values().removeIf(job -> {
+            ReportJobResponse snapshot = job.snapshot();
+            return snapshot.isFinished() && snapshot.finishedAt().isBefore(cutoff);
+        });
+    }
+
+    private static final class ReportJob {
+        private final String id;
+        private final String clinicId;
+        private final LocalDate reportDate;
+        private final OffsetDateTime submittedAt = OffsetDateTime.now();
+        private final Sinks.Many<ReportJobResponse> updates = Sinks.many().replay().latest();
+        private volatile ReportJobResponse current;
+
+        private ReportJob(String id, String clinicId, LocalDate reportDate) {
+            this.id = id;
+            this.clinicId = clinicId;
+            this.reportDate = reportDate;
+            update("QUEUED", null, null);
+        }
+
+        private synchronized void update(String status, StaffReportResponse report, String error) {
+            boolean finished = "COMPLETED".equals(status) || "FAILED".equals(status);
+            current = new ReportJobResponse(id, clinicId, reportDate, status, submittedAt,
+                    finished ? OffsetDateTime.now() : null, report, error);
+            updates.tryEmitNext(current);
+            if (finished) {
+                updates.tryEmitComplete();
+            }
+        }
+
+        private ReportJobResponse snapshot() {
+            return current;
+        }
+    }
+}
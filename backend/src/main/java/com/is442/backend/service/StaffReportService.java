@@ -1,7 +1,7 @@
 package com.is442.backend.service;
 
+import com.is442.backend.dto.DailyClinicMetrics;
 import com.is442.backend.dto.StaffReportResponse;
-import com.is442.backend.model.Appointment;
 import com.is442.backend.model.Doctor;
 import com.is442.backend.model.StaffReport;
 import com.is442.backend.model.User;
@@ -27,15 +27,17 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.Duration;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Builds daily clinic reports. Generation deliberately runs outside a transaction:
+ * the metrics query and the final insert each use a short transaction of their own,
+ * so no connection is held while the PDF is rendered or uploaded.
+ */
 @Service
-@Transactional
 public class StaffReportService {
 
     private static final Logger logger = LoggerFactory.getLogger(StaffReportService.class);
@@ -70,34 +72,31 @@ public class StaffReportService {
             return toResponse(existingReport.get());
         }
 
-        // Query appointments for the date and clinic
-        List<Appointment> appointments = appointmentRepository.findByClinicId(clinicId);
-        List<Appointment> dayAppointments = appointments.stream()
-                .filter(a -> a.getBookingDate().equals(date))
-                .toList();
-
-        // Calculate metrics
-        int patientsSeen = (int) dayAppointments.stream()
-                .filter(a -> "COMPLETED".equals(a.getStatus()))
-                .count();
+        // Aggregate just this clinic-day in the database
+        DailyClinicMetrics metrics = appointmentRepository.getDailyClinicMetrics(clinicId, date);
+        int totalScheduled = toInt(metrics.getTotalAppointments());
+        int patientsSeen = toInt(metrics.getPatientsSeen());
+        int noShowCount = toInt(metrics.getNoShowCount());
 
-        // Calculate average waiting time
-        BigDecimal averageWaitingTimeMinutes = calculateAverageWaitingTime(dayAppointments);
+        int waitCount = toInt(metrics.getWaitCount());
+        BigDecimal averageWaitingTimeMinutes = waitCount > 0
+                ? BigDecimal.valueOf(metrics.getWaitMinutesSum())
+                .divide(BigDecimal.valueOf(waitCount), 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
 
-        // Calculate no-show rate
-        int totalScheduled = dayAppointments.size();
-        int noShowCount = (int) dayAppointments.stream()
-                .filter(a -> "NO_SHOW".equals(a.getStatus()))
-                .count();
         BigDecimal noShowRate = totalScheduled > 0
                 ? BigDecimal.valueOf(noShowCount * 100.0 / totalScheduled)
                 .setScale(2, RoundingMode.HALF_UP)
                 : BigDecimal.ZERO;
 
+        // Resolve display names up front so rendering does no database work
+        String clinicName = resolveClinicName(clinicId);
+        String generatedByName = resolveUserName(generatedBy);
+
         // Generate PDF
         byte[] pdfBytes;
         try {
-            pdfBytes = generatePdf(clinicId, date, patientsSeen, averageWaitingTimeMinutes, noShowRate, generatedBy);
+            pdfBytes = generatePdf(clinicName, date, patientsSeen, averageWaitingTimeMinutes, noShowRate, generatedByName);
             if (pdfBytes == null || pdfBytes.length == 0) {
                 throw new RuntimeException("PDF generation returned empty bytes");
             }
@@ -124,6 +123,8 @@ public class StaffReportService {
         report.setReportDate(date);
         report.setPatientsSeen(patientsSeen);
         report.setAverageWaitingTimeMinutes(averageWaitingTimeMinutes);
+        report.setWaitingTimeP50Minutes(toMinutes(metrics.getWaitP50()));
+        report.setWaitingTimeP90Minutes(toMinutes(metrics.getWaitP90()));
         report.setNoShowRate(noShowRate);
         report.setTotalAppointments(totalScheduled);
         report.setNoShowCount(noShowCount);
@@ -136,57 +137,27 @@ public class StaffReportService {
         return toResponse(saved);
     }
 
-    /**
-     * Calculate average waiting time for completed appointments
-     * Waiting time = updated_at (when COMPLETED) - (booking_date + start_time)
-     */
-    private BigDecimal calculateAverageWaitingTime(List<Appointment> appointments) {
-        List<Appointment> completed = appointments.stream()
-                .filter(a -> "COMPLETED".equals(a.getStatus()))
-                .filter(a -> a.getUpdatedAt() != null)
-                .toList();
-
-        if (completed.isEmpty()) {
-            return BigDecimal.ZERO;
-        }
-
-        long totalMinutes = 0;
-        int count = 0;
-
-        for (Appointment appt : completed) {
-            try {
-                LocalDateTime appointmentStart = LocalDateTime.of(appt.getBookingDate(), appt.getStartTime());
-                LocalDateTime completedAt = appt.getUpdatedAt();
-
-                Duration duration = Duration.between(appointmentStart, completedAt);
-                long minutes = duration.toMinutes();
-
-                if (minutes >= 0) { // Only count positive waiting times
-                    totalMinutes += minutes;
-                    count++;
-                }
-            } catch (Exception e) {
-                logger.warn("Error calculating waiting time for appointment {}: {}", appt.getAppointmentId(), e.getMessage());
-            }
-        }
-
-        if (count == 0) {
-            return BigDecimal.ZERO;
-        }
+    private static int toInt(Long value) {
+        return value != null ? value.intValue() : 0;
+    }
 
-        return BigDecimal.valueOf(totalMinutes)
-                .divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP);
+    private static BigDecimal toMinutes(Double value) {
+        return value != null ? BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP) : null;
     }
 
     /**
      * Generate PDF report with colors and charts
      */
-    private byte[] generatePdf(String clinicId, LocalDate date, int patientsSeen,
-                               BigDecimal averageWaitingTime, BigDecimal noShowRate, String generatedBy) {
+    private byte[] generatePdf(String clinicName, LocalDate date, int patientsSeen,
+                               BigDecimal averageWaitingTime, BigDecimal noShowRate, String generatedByName) {
         try (PDDocument document = new PDDocument()) {
             PDPage page = new PDPage(PDRectangle.A4);
             document.addPage(page);
 
+            // One instance per face for the whole document
+            PDType1Font regularFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA);
+            PDType1Font boldFont = new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD);
+
             try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
                 float margin = 50;
                 float pageWidth = PDRectangle.A4.getWidth();
@@ -214,7 +185,7 @@ public class StaffReportService {
                 // Title in header
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(1, 1, 1); // White text
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), titleFontSize);
+                contentStream.setFont(boldFont, titleFontSize);
                 contentStream.newLineAtOffset(margin + 10, yPosition - 40);
                 contentStream.showText("Daily Clinic Report");
                 contentStream.endText();
@@ -224,15 +195,9 @@ public class StaffReportService {
                 // Clinic and Date Info
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(darkGray);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), bodyFontSize);
+                contentStream.setFont(boldFont, bodyFontSize);
                 contentStream.newLineAtOffset(margin, yPosition);
 
-                // Get clinic name if available
-                Optional<Doctor> doctorOpt = doctorRepository.findByClinicId(clinicId).stream().findFirst();
-                String clinicName = doctorOpt.map(Doctor::getClinicName)
-                        .filter(name -> name != null && !name.isBlank())
-                        .orElse(clinicId != null ? clinicId : "Unknown Clinic");
-
                 contentStream.showText("Clinic: " + (clinicName != null ? clinicName : "Unknown Clinic"));
                 contentStream.endText();
 
@@ -240,7 +205,7 @@ public class StaffReportService {
 
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(darkGray);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), bodyFontSize);
+                contentStream.setFont(regularFont, bodyFontSize);
                 contentStream.newLineAtOffset(margin, yPosition);
                 contentStream.showText("Report Date: " + date.format(DATE_FORMATTER));
                 contentStream.endText();
@@ -253,7 +218,7 @@ public class StaffReportService {
                 float cardY = yPosition - cardHeight;
 
                 // Card 1: Patients Seen (Green)
-                drawMetricCard(contentStream, margin, cardY, cardWidth, cardHeight, greenColor,
+                drawMetricCard(contentStream, regularFont, boldFont, margin, cardY, cardWidth, cardHeight, greenColor,
                         "Patients Seen", String.valueOf(patientsSeen), patientsSeen, 50, bodyFontSize, largeFontSize);
 
                 // Card 2: Average Waiting Time (Orange)
@@ -269,13 +234,13 @@ public class StaffReportService {
                         waitingTimeStr = String.format("%.1f min", waitingMinutes);
                     }
                 }
-                drawMetricCard(contentStream, margin + cardWidth + 10, cardY, cardWidth, cardHeight, orangeColor,
+                drawMetricCard(contentStream, regularFont, boldFont, margin + cardWidth + 10, cardY, cardWidth, cardHeight, orangeColor,
                         "Avg Waiting Time", waitingTimeStr, (int) Math.min(waitingMinutes, 60), 60, bodyFontSize, largeFontSize);
 
                 // Card 3: No-Show Rate (Red)
                 double noShowValue = noShowRate != null ? noShowRate.doubleValue() : 0;
                 String noShowRateStr = String.format("%.1f%%", noShowValue);
-                drawMetricCard(contentStream, margin + 2 * (cardWidth + 10), cardY, cardWidth, cardHeight, redColor,
+                drawMetricCard(contentStream, regularFont, boldFont, margin + 2 * (cardWidth + 10), cardY, cardWidth, cardHeight, redColor,
                         "No-Show Rate", noShowRateStr, (int) noShowValue, 100, bodyFontSize, largeFontSize);
 
                 yPosition = cardY - 40;
@@ -283,7 +248,7 @@ public class StaffReportService {
                 // Additional Details Section
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(darkGray);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), bodyFontSize);
+                contentStream.setFont(boldFont, bodyFontSize);
                 contentStream.newLineAtOffset(margin, yPosition);
                 contentStream.showText("Report Details");
                 contentStream.endText();
@@ -296,29 +261,10 @@ public class StaffReportService {
                 contentStream.addRect(margin, yPosition - detailsHeight, pageWidth - 2 * margin, detailsHeight);
                 contentStream.fill();
 
-                // Get generated by name if available
-                String generatedByName = "Staff";
-                if (userRepository != null && generatedBy != null && !generatedBy.isBlank()) {
-                    try {
-                        Optional<User> userOpt = userRepository.findById(java.util.UUID.fromString(generatedBy));
-                        if (userOpt.isPresent()) {
-                            User user = userOpt.get();
-                            String firstName = user.getFirstName() != null ? user.getFirstName() : "";
-                            String lastName = user.getLastName() != null ? user.getLastName() : "";
-                            String fullName = (firstName + " " + lastName).trim();
-                            if (!fullName.isBlank()) {
-                                generatedByName = fullName;
-                            }
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Could not fetch user name for generatedBy: {}", generatedBy, e);
-                    }
-                }
-
                 float detailsY = yPosition - 15;
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(darkGray);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                contentStream.setFont(regularFont, 10);
                 contentStream.newLineAtOffset(margin + 10, detailsY);
                 // Format in Singapore timezone (GMT+8)
                 java.time.OffsetDateTime singaporeTime = java.time.OffsetDateTime.now(java.time.ZoneOffset.of("+08:00"));
@@ -328,7 +274,7 @@ public class StaffReportService {
                 detailsY -= lineHeight;
                 contentStream.beginText();
                 contentStream.setNonStrokingColor(darkGray);
-                contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), 10);
+                contentStream.setFont(regularFont, 10);
                 contentStream.newLineAtOffset(margin + 10, detailsY);
                 contentStream.showText("Generated by: " + (generatedByName != null ? generatedByName : "Staff"));
                 contentStream.endText();
@@ -345,10 +291,45 @@ public class StaffReportService {
         }
     }
 
+    /**
+     * Clinic display name, taken from any doctor registered at the clinic
+     */
+    private String resolveClinicName(String clinicId) {
+        return doctorRepository.findByClinicId(clinicId).stream().findFirst()
+                .map(Doctor::getClinicName)
+                .filter(name -> name != null && !name.isBlank())
+                .orElse(clinicId != null ? clinicId : "Unknown Clinic");
+    }
+
+    /**
+     * Full name of the staff member generating the report, or "Staff" if unknown
+     */
+    private String resolveUserName(String generatedBy) {
+        if (userRepository == null || generatedBy == null || generatedBy.isBlank()) {
+            return "Staff";
+        }
+        try {
+            Optional<User> userOpt = userRepository.findById(java.util.UUID.fromString(generatedBy));
+            if (userOpt.isPresent()) {
+                User user = userOpt.get();
+                String firstName = user.getFirstName() != null ? user.getFirstName() : "";
+                String lastName = user.getLastName() != null ? user.getLastName() : "";
+                String fullName = (firstName + " " + lastName).trim();
+                if (!fullName.isBlank()) {
+                    return fullName;
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Could not fetch user name for generatedBy: {}", generatedBy, e);
+        }
+        return "Staff";
+    }
+
     /**
      * Draw a metric card with color, label, value, and a simple bar chart
      */
-    private void drawMetricCard(PDPageContentStream contentStream, float x, float y, float width, float height,
+    private void drawMetricCard(PDPageContentStream contentStream, PDType1Font regularFont, PDType1Font boldFont,
+                                float x, float y, float width, float height,
                                 PDColor cardColor, String label, String value, int barValue, int maxValue,
                                 float labelFontSize, float valueFontSize) throws IOException {
         // Card background
@@ -373,7 +354,7 @@ public class StaffReportService {
         // Label
         contentStream.beginText();
         contentStream.setNonStrokingColor(0.3f, 0.3f, 0.3f);
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA), labelFontSize);
+        contentStream.setFont(regularFont, labelFontSize);
         contentStream.newLineAtOffset(x + 10, y + height - 25);
         contentStream.showText(label);
         contentStream.endText();
@@ -381,7 +362,7 @@ public class StaffReportService {
         // Value (large)
         contentStream.beginText();
         contentStream.setNonStrokingColor(cardColor);
-        contentStream.setFont(new PDType1Font(Standard14Fonts.FontName.HELVETICA_BOLD), valueFontSize);
+        contentStream.setFont(boldFont, valueFontSize);
         contentStream.newLineAtOffset(x + 10, y + height - 50);
         contentStream.showText(value);
         contentStream.endText();
@@ -417,6 +398,7 @@ public class StaffReportService {
     /**
      * Get report by date for a clinic
      */
+    @Transactional(readOnly = true)
     public StaffReportResponse getReportByDate(String clinicId, LocalDate date) {
         Optional<StaffReport> report = staffReportRepository.findByClinicIdAndReportDate(clinicId, date);
         return report.map(this::toResponse)
@@ -426,6 +408,7 @@ public class StaffReportService {
     /**
      * Get all past reports for a clinic
      */
+    @Transactional(readOnly = true)
     public List<StaffReportResponse> getPastReports(String clinicId) {
         List<StaffReport> reports = staffReportRepository.findByClinicIdOrderByReportDateDesc(clinicId);
         return reports.stream()
@@ -485,6 +468,8 @@ public class StaffReportService {
         response.setReportDate(report.getReportDate());
         response.setPatientsSeen(report.getPatientsSeen());
         response.setAverageWaitingTimeMinutes(report.getAverageWaitingTimeMinutes());
+        response.setWaitingTimeP50Minutes(report.getWaitingTimeP50Minutes());
+        response.setWaitingTimeP90Minutes(report.getWaitingTimeP90Minutes());
         response.setNoShowRate(report.getNoShowRate());
         response.setTotalAppointments(report.getTotalAppointments());
         response.setNoShowCount(report.getNoShowCount());
@@ -1,15 +1,23 @@
 package com.is442.backend.service;
 
+import com.is442.backend.dto.AppointmentStatusCount;
 import com.is442.backend.dto.QueueStateDto;
 import com.is442.backend.model.Appointment;
 import com.is442.backend.repository.AppointmentRepository;
 import com.is442.backend.repository.GpClinicRepository;
 import com.is442.backend.repository.SpecialistClinicRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,6 +28,15 @@ public class SystemMonitoringService {
     private final GpClinicRepository gpClinicRepository;
     private final SpecialistClinicRepository specialistClinicRepository;
 
+    @Value("${app.monitoring.stats-cache-ms:5000}")
+    private long statsCacheMillis;
+
+    // Stats and the time they were computed, swapped together so readers never pair one with the other's
+    private volatile CachedStats cachedAppointmentStats;
+
+    private record CachedStats(Map<String, Object> stats, long computedAt) {
+    }
+
     public SystemMonitoringService(
             AppointmentRepository appointmentRepository,
             RedisQueueService redisQueueService,
@@ -39,50 +56,7 @@ public class SystemMonitoringService {
         Map<String, Object> stats = new LinkedHashMap<>();
 
         try {
-            // Get all appointments
-            List<Appointment> allAppointments = appointmentRepository.findAll();
-
-            // Count appointments by status
-            Map<String, Long> statusCounts = allAppointments.stream()
-                    .collect(Collectors.groupingBy(
-                            Appointment::getStatus,
-                            Collectors.counting()));
-
-            stats.put("totalAppointments", allAppointments.size());
-            stats.put("statusCounts", statusCounts);
-
-            // Specific counts
-            long booked = statusCounts.getOrDefault("SCHEDULED", 0L);
-            long cancelled = statusCounts.getOrDefault("CANCELLED", 0L);
-            long completed = statusCounts.getOrDefault("COMPLETED", 0L);
-            long checkedIn = statusCounts.getOrDefault("CHECKED-IN", 0L);
-            long inConsultation = statusCounts.getOrDefault("IN_CONSULTATION", 0L);
-            long noShow = statusCounts.getOrDefault("NO_SHOW", 0L);
-            long walkIn = allAppointments.stream()
-                    .filter(a -> "WALK_IN".equals(a.getType()))
-                    .count();
-
-            stats.put("booked", booked);
-            stats.put("cancelled", cancelled);
-            stats.put("completed", completed);
-            stats.put("checkedIn", checkedIn);
-            stats.put("inConsultation", inConsultation);
-            stats.put("noShow", noShow);
-            stats.put("walkIn", walkIn);
-
-            // Today's statistics
-            LocalDate today = LocalDate.now();
-            long todayTotal = appointmentRepository.findByBookingDate(today).size();
-            long todayScheduled = appointmentRepository.findByBookingDate(today).stream()
-                    .filter(a -> "SCHEDULED".equals(a.getStatus()))
-                    .count();
-            long todayCompleted = appointmentRepository.findByBookingDate(today).stream()
-                    .filter(a -> "COMPLETED".equals(a.getStatus()))
-                    .count();
-
-            stats.put("todayTotal", todayTotal);
-            stats.put("todayScheduled", todayScheduled);
-            stats.put("todayCompleted", todayCompleted);
+            stats.putAll(getAppointmentStatistics());
 
             // Queue statistics
             Map<String, Object> queueStats = getQueueStatistics();
@@ -121,6 +95,56 @@ public class SystemMonitoringService {
         }
     }
 
+    /**
+     * Appointment counts for the statistics page, computed with one GROUP BY query
+     * and reused for a few seconds since the admin page polls it.
+     */
+    private Map<String, Object> getAppointmentStatistics() {
+        long now = System.currentTimeMillis();
+        CachedStats cached = cachedAppointmentStats;
+        if (cached != null && now - cached.computedAt() < statsCacheMillis) {
+            return cached.stats();
+        }
+
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        long total = 0;
+        long walkIn = 0;
+        long todayTotal = 0;
+        long todayScheduled = 0;
+        long todayCompleted = 0;
+        for (AppointmentStatusCount row : appointmentRepository.countByStatus(LocalDate.now())) {
+            long count = row.getTotal() != null ? row.getTotal() : 0L;
+            long today = row.getToday() != null ? row.getToday() : 0L;
+            statusCounts.put(row.getStatus(), count);
+            total += count;
+            walkIn += row.getWalkIns() != null ? row.getWalkIns() : 0L;
+            todayTotal += today;
+            if ("SCHEDULED".equals(row.getStatus())) {
+                todayScheduled = today;
+            } else if ("COMPLETED".equals(row.getStatus())) {
+                todayCompleted = today;
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalAppointments", total);
+        stats.put("statusCounts", statusCounts);
+        stats.put("booked", statusCounts.getOrDefault("SCHEDULED", 0L));
+        stats.put("cancelled", statusCounts.getOrDefault("CANCELLED", 0L));
+        stats.put("completed", statusCounts.getOrDefault("COMPLETED", 0L));
+        stats.put("checkedIn", statusCounts.getOrDefault("CHECKED-IN", 0L));
+        stats.put("inConsultation", statusCounts.getOrDefault("IN_CONSULTATION", 0L));
+        stats.put("noShow", statusCounts.getOrDefault("NO_SHOW", 0L));
+        stats.put("walkIn", walkIn);
+        stats.put("todayTotal", todayTotal);
+        stats.put("todayScheduled", todayScheduled);
+        stats.put("todayCompleted", todayCompleted);
+
+        Map<String, Object> snapshot = Collections.unmodifiableMap(stats);
+        cachedAppointmentStats = new CachedStats(snapshot, now);
+        return snapshot;
+    }
+
     /**
      * Helper method to get clinic name by clinic ID.
      * Tries to find in GP clinics first, then specialist clinics.
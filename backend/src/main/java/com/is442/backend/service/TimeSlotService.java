@@ -3,16 +3,29 @@ package com.is442.backend.service;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.DayOfWeek;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.is442.backend.dto.AvailableDateSlotsDto;
+import com.is442.backend.dto.ScheduleGenerationResult;
+import com.is442.backend.dto.ScheduleTemplateRequest;
+import com.is442.backend.dto.SlotUpdateDto;
 import com.is442.backend.dto.TimeSlotDto;
 import com.is442.backend.dto.TimeSlotRequest;
 import com.is442.backend.model.Appointment;
@@ -20,20 +33,36 @@ import com.is442.backend.model.Doctor;
 import com.is442.backend.model.TimeSlot;
 import com.is442.backend.repository.AppointmentRepository;
 import com.is442.backend.repository.DoctorRepository;
+import com.is442.backend.repository.TimeSlotJdbcRepository;
 import com.is442.backend.repository.TimeSlotRepository;
 
 @Service
 public class TimeSlotService {
+    private static final Logger logger = LoggerFactory.getLogger(TimeSlotService.class);
+    private static final int DEFAULT_SLOT_MINUTES = 15;
+
     private final TimeSlotRepository timeSlotRepository;
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
+    private final TimeSlotJdbcRepository timeSlotJdbcRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ReferenceDataCache referenceDataCache;
+
+    @Value("${app.timeslots.batch-size:1000}")
+    private int slotBatchSize;
 
-    public TimeSlotService(TimeSlotRepository timeSlotRepository, AppointmentRepository appointmentRepository, DoctorRepository doctorRepository) {
+    public TimeSlotService(TimeSlotRepository timeSlotRepository, AppointmentRepository appointmentRepository,
+                           DoctorRepository doctorRepository, TimeSlotJdbcRepository timeSlotJdbcRepository,
+                           SimpMessagingTemplate messagingTemplate, ReferenceDataCache referenceDataCache) {
         this.timeSlotRepository = timeSlotRepository;
         this.appointmentRepository = appointmentRepository;
         this.doctorRepository = doctorRepository;
+        this.timeSlotJdbcRepository = timeSlotJdbcRepository;
+        this.messagingTemplate = messagingTemplate;
+        this.referenceDataCache = referenceDataCache;
     }
 
+    @Transactional(readOnly = true)
     public List<TimeSlot> getAllTimeSlots() {
         return timeSlotRepository.findAll();
     }
@@ -103,6 +132,7 @@ public class TimeSlotService {
         return startMatch && endMatch;
     }
 
+    @Transactional(readOnly = true)
     public List<TimeSlotDto> getAvailableSlotsByClinicAndDate(String speciality, String clinicId, LocalDate bookingDate, List<String> doctorIds) {
         String dayOfWeek = bookingDate.getDayOfWeek().name();
         List<Doctor> doctors = new ArrayList<>();
@@ -151,6 +181,7 @@ public class TimeSlotService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<AvailableDateSlotsDto> getAvailableDatesWithSlots(String speciality, String clinicId, List<String> doctorIds) {
         LocalDate today = LocalDate.now();
         LocalTime currentTime = LocalTime.now();
@@ -267,25 +298,24 @@ public class TimeSlotService {
     /**
      * Get all time slots (for admin)
      */
+    @Transactional(readOnly = true)
     public List<TimeSlotDto> getAllTimeSlotsForAdmin() {
-        return timeSlotRepository.findAll().stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findAllDtos();
     }
 
     /**
      * Get time slots by doctor ID (for admin)
      */
+    @Transactional(readOnly = true)
     public List<TimeSlotDto> getTimeSlotsByDoctor(String doctorId) {
-        return timeSlotRepository.findByDoctorId(doctorId).stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
+        return timeSlotRepository.findDtosByDoctorId(doctorId);
     }
 
     /**
      * Create a single time slot
      * If a schedule already exists for this doctor and day, it will be overwritten
      */
+    @Transactional
     public TimeSlotDto createTimeSlot(TimeSlotRequest request) {
         // Validate doctor exists
         Doctor doctor = doctorRepository.findByDoctorId(request.getDoctorId())
@@ -305,7 +335,7 @@ public class TimeSlotService {
 
         // Delete existing time slots for this doctor and day to overwrite
         String dayOfWeek = request.getDayOfWeek().toUpperCase();
-        deleteTimeSlotsByDoctorAndDay(request.getDoctorId(), dayOfWeek);
+        timeSlotRepository.deleteAllByDoctorIdAndDayOfWeek(request.getDoctorId(), dayOfWeek);
 
         // Use doctor name from request or from doctor entity
         String doctorName = request.getDoctorName() != null && !request.getDoctorName().isBlank()
@@ -321,6 +351,7 @@ public class TimeSlotService {
         );
 
         TimeSlot saved = timeSlotRepository.save(timeSlot);
+        publishScheduleChange("SCHEDULE_REPLACED", request.getDoctorId(), dayOfWeek, 1);
         return toDto(saved);
     }
 
@@ -328,6 +359,7 @@ public class TimeSlotService {
      * Create multiple time slots (e.g., for a day with 15-minute intervals)
      * If a schedule already exists for this doctor and day, it will be overwritten
      */
+    @Transactional
     public List<TimeSlotDto> createTimeSlots(TimeSlotRequest request, int slotIntervalMinutes) {
         // Validate doctor exists
         Doctor doctor = doctorRepository.findByDoctorId(request.getDoctorId())
@@ -345,10 +377,7 @@ public class TimeSlotService {
             throw new RuntimeException("End time must be after start time");
         }
 
-        // Delete existing time slots for this doctor and day to overwrite
         String dayOfWeek = request.getDayOfWeek().toUpperCase();
-        deleteTimeSlotsByDoctorAndDay(request.getDoctorId(), dayOfWeek);
-
         String doctorName = request.getDoctorName() != null && !request.getDoctorName().isBlank()
                 ? request.getDoctorName()
                 : doctor.getDoctorName();
@@ -373,15 +402,110 @@ public class TimeSlotService {
             currentStart = currentEnd;
         }
 
-        List<TimeSlot> saved = timeSlotRepository.saveAll(slots);
-        return saved.stream()
+        return replaceSchedule(request.getDoctorId(), dayOfWeek, slots);
+    }
+
+    /**
+     * Atomically swap a doctor's slots for one day: a single DELETE followed by a
+     * JDBC batch insert in the same transaction, with one notification at commit.
+     */
+    @Transactional
+    public List<TimeSlotDto> replaceSchedule(String doctorId, String dayOfWeek, List<TimeSlot> slots) {
+        String day = dayOfWeek.toUpperCase();
+        timeSlotRepository.deleteAllByDoctorIdAndDayOfWeek(doctorId, day);
+        // saveAll would be one INSERT per row with IDENTITY ids; batch, then read the day back for ids
+        int inserted = timeSlotJdbcRepository.insertSkippingOverlaps(slots, slotBatchSize);
+        publishScheduleChange("SCHEDULE_REPLACED", doctorId, day, inserted);
+        return timeSlotRepository.findByDoctorIdAndDayOfWeek(doctorId, day).stream()
+                .sorted(Comparator.comparing(TimeSlot::getStartTime))
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Expand weekly templates for many doctors into slots and insert them in JDBC
+     * batches within one transaction. Slots overlapping an existing slot for the same
+     * doctor and day are skipped by the insert itself, so re-running is harmless.
+     */
+    @Transactional
+    public ScheduleGenerationResult generateSchedule(ScheduleTemplateRequest request) {
+        if (request == null || request.getTemplates() == null || request.getTemplates().isEmpty()) {
+            throw new RuntimeException("At least one schedule template is required");
+        }
+
+        Set<String> doctorIds = request.getTemplates().stream()
+                .map(ScheduleTemplateRequest.DoctorTemplate::getDoctorId)
+                .collect(Collectors.toSet());
+        Map<String, Doctor> doctors = doctorRepository.findByDoctorIdIn(doctorIds).stream()
+                .collect(Collectors.toMap(Doctor::getDoctorId, Function.identity()));
+        List<String> missing = doctorIds.stream().filter(id -> !doctors.containsKey(id)).sorted().toList();
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Doctor not found with ID: " + String.join(", ", missing));
+        }
+
+        List<TimeSlot> slots = new ArrayList<>();
+        for (ScheduleTemplateRequest.DoctorTemplate template : request.getTemplates()) {
+            slots.addAll(expandTemplate(template, doctors.get(template.getDoctorId())));
+        }
+
+        long started = System.nanoTime();
+        int inserted = timeSlotJdbcRepository.insertSkippingOverlaps(slots, slotBatchSize);
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        double rate = inserted * 1000.0 / elapsedMillis;
+
+        logger.info("Generated {} of {} slots for {} doctors in {} ms ({} slots/s, {} overlaps skipped)",
+                inserted, slots.size(), doctorIds.size(), elapsedMillis, Math.round(rate), slots.size() - inserted);
+
+        if (inserted > 0) {
+            publishScheduleChange("SCHEDULE_GENERATED", null, null, inserted);
+        }
+        return new ScheduleGenerationResult(doctorIds.size(), slots.size(), inserted,
+                slots.size() - inserted, elapsedMillis, rate);
+    }
+
+    private List<TimeSlot> expandTemplate(ScheduleTemplateRequest.DoctorTemplate template, Doctor doctor) {
+        LocalTime startTime = parseTimeString(template.getStartTime());
+        LocalTime endTime = parseTimeString(template.getEndTime());
+        if (startTime == null || endTime == null) {
+            throw new RuntimeException("Invalid time format for doctor " + template.getDoctorId() + ". Use HH:mm or HH:mm:ss");
+        }
+        if (!endTime.isAfter(startTime)) {
+            throw new RuntimeException("End time must be after start time for doctor " + template.getDoctorId());
+        }
+        int slotMinutes = template.getSlotMinutes() != null ? template.getSlotMinutes() : DEFAULT_SLOT_MINUTES;
+        if (slotMinutes <= 0) {
+            throw new RuntimeException("Slot length must be positive for doctor " + template.getDoctorId());
+        }
+        if (template.getDaysOfWeek() == null || template.getDaysOfWeek().isEmpty()) {
+            throw new RuntimeException("At least one day of week is required for doctor " + template.getDoctorId());
+        }
+
+        List<TimeSlot> slots = new ArrayList<>();
+        for (String day : template.getDaysOfWeek()) {
+            String dayOfWeek;
+            try {
+                dayOfWeek = DayOfWeek.valueOf(day.trim().toUpperCase()).name();
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeException("Invalid day of week: " + day);
+            }
+            LocalTime currentStart = startTime;
+            while (currentStart.isBefore(endTime)) {
+                LocalTime currentEnd = currentStart.plusMinutes(slotMinutes);
+                // also stops at midnight wrap-around
+                if (currentEnd.isAfter(endTime) || !currentEnd.isAfter(currentStart)) {
+                    break;
+                }
+                slots.add(new TimeSlot(doctor.getDoctorId(), doctor.getDoctorName(), dayOfWeek, currentStart, currentEnd));
+                currentStart = currentEnd;
+            }
+        }
+        return slots;
+    }
+
     /**
      * Update a time slot
      */
+    @Transactional
     public TimeSlotDto updateTimeSlot(Long id, TimeSlotRequest request) {
         TimeSlot timeSlot = timeSlotRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Time slot not found with ID: " + id));
@@ -427,34 +551,77 @@ public class TimeSlotService {
         }
 
         TimeSlot updated = timeSlotRepository.save(timeSlot);
+        publishScheduleChange("SLOT_UPDATED", updated.getDoctorId(), updated.getDayOfWeek(), 1);
         return toDto(updated);
     }
 
     /**
      * Delete a time slot
      */
+    @Transactional
     public void deleteTimeSlot(Long id) {
-        if (!timeSlotRepository.existsById(id)) {
-            throw new RuntimeException("Time slot not found with ID: " + id);
-        }
-        timeSlotRepository.deleteById(id);
+        TimeSlot slot = timeSlotRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Time slot not found with ID: " + id));
+        timeSlotRepository.delete(slot);
+        publishScheduleChange("SLOT_DELETED", slot.getDoctorId(), slot.getDayOfWeek(), 1);
     }
 
     /**
      * Delete all time slots for a doctor
      */
-    public void deleteTimeSlotsByDoctor(String doctorId) {
-        List<TimeSlot> slots = timeSlotRepository.findByDoctorId(doctorId);
-        timeSlotRepository.deleteAll(slots);
+    @Transactional
+    public int deleteTimeSlotsByDoctor(String doctorId) {
+        int deleted = timeSlotRepository.deleteAllByDoctorId(doctorId);
+        if (deleted > 0) {
+            publishScheduleChange("SCHEDULE_CLEARED", doctorId, null, deleted);
+        }
+        return deleted;
     }
 
     /**
      * Delete all time slots for a specific doctor and day of week
      */
-    public void deleteTimeSlotsByDoctorAndDay(String doctorId, String dayOfWeek) {
-        List<TimeSlot> slots = timeSlotRepository.findByDoctorIdAndDayOfWeek(doctorId, dayOfWeek.toUpperCase());
-        if (!slots.isEmpty()) {
-            timeSlotRepository.deleteAll(slots);
+    @Transactional
+    public int deleteTimeSlotsByDoctorAndDay(String doctorId, String dayOfWeek) {
+        String day = dayOfWeek.toUpperCase();
+        int deleted = timeSlotRepository.deleteAllByDoctorIdAndDayOfWeek(doctorId, day);
+        if (deleted > 0) {
+            publishScheduleChange("SCHEDULE_CLEARED", doctorId, day, deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Evict cached slots and send one /topic/slots message per schedule operation,
+     * both only once the change has committed. A null doctor or day means the change
+     * spans several of them.
+     */
+    private void publishScheduleChange(String action, String doctorId, String dayOfWeek, int slotCount) {
+        referenceDataCache.evictTimeSlots();
+
+        // Same DTO as the booking REMOVE messages, so /topic/slots carries one schema
+        SlotUpdateDto payload = new SlotUpdateDto();
+        payload.setAction(action);
+        payload.setDoctorId(doctorId);
+        payload.setDayOfWeek(dayOfWeek);
+        payload.setSlotCount(slotCount);
+
+        Runnable send = () -> {
+            try {
+                messagingTemplate.convertAndSend("/topic/slots", payload);
+            } catch (Exception e) {
+                logger.warn("Failed to publish {} for doctor {}: {}", action, doctorId, e.getMessage());
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
+        } else {
+            send.run();
         }
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,11 @@
 package com.is442.backend.service;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
@@ -11,10 +14,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import com.is442.backend.dto.TreatmentNoteRequest;
 import com.is442.backend.dto.TreatmentNoteResponse;
+import com.is442.backend.dto.UserName;
 import com.is442.backend.model.Appointment;
 import com.is442.backend.model.Doctor;
 import com.is442.backend.model.TreatmentNote;
-import com.is442.backend.model.User;
 import com.is442.backend.repository.AppointmentRepository;
 import com.is442.backend.repository.DoctorRepository;
 import com.is442.backend.repository.TreatmentNoteRepository;
@@ -88,40 +91,23 @@ public class TreatmentNoteService {
     /**
      * Get all treatment notes for an appointment
      */
+    @Transactional(readOnly = true)
     public List<TreatmentNoteResponse> getTreatmentNotesByAppointment(UUID appointmentId) {
-        List<TreatmentNote> notes = treatmentNoteRepository.findByAppointmentIdOrderByCreatedAtDesc(appointmentId);
-        return notes.stream()
-                .map(note -> {
-                    Appointment appointment = appointmentRepository.findById(note.getAppointmentId())
-                            .orElse(null);
-                    Doctor doctor = appointment != null
-                            ? doctorRepository.findByDoctorId(appointment.getDoctorId()).orElse(null)
-                            : null;
-                    return toResponse(note, appointment, doctor);
-                })
-                .collect(Collectors.toList());
+        return withCreatorNames(treatmentNoteRepository.findResponsesByAppointmentId(appointmentId));
     }
 
     /**
      * Get all treatment notes for a patient
      */
+    @Transactional(readOnly = true)
     public List<TreatmentNoteResponse> getTreatmentNotesByPatient(UUID patientId) {
-        List<TreatmentNote> notes = treatmentNoteRepository.findByPatientId(patientId.toString());
-        return notes.stream()
-                .map(note -> {
-                    Appointment appointment = appointmentRepository.findById(note.getAppointmentId())
-                            .orElse(null);
-                    Doctor doctor = appointment != null
-                            ? doctorRepository.findByDoctorId(appointment.getDoctorId()).orElse(null)
-                            : null;
-                    return toResponse(note, appointment, doctor);
-                })
-                .collect(Collectors.toList());
+        return withCreatorNames(treatmentNoteRepository.findResponsesByPatientId(patientId.toString()));
     }
 
     /**
      * Get latest treatment note for an appointment
      */
+    @Transactional(readOnly = true)
     public TreatmentNoteResponse getLatestTreatmentNote(UUID appointmentId) {
         return treatmentNoteRepository.findFirstByAppointmentIdOrderByCreatedAtDesc(appointmentId)
                 .map(note -> {
@@ -215,23 +201,53 @@ public class TreatmentNoteService {
         response.setNotes(note.getNotes());
         response.setCreatedBy(note.getCreatedBy());
 
-        // Try to get creator name from user repository if available
-        if (userRepository != null) {
-            try {
-                UUID creatorId = UUID.fromString(note.getCreatedBy());
-                User creator = userRepository.findById(creatorId).orElse(null);
-                if (creator != null) {
-                    response.setCreatedByName(creator.getFirstName() + " " + creator.getLastName());
-                }
-            } catch (Exception e) {
-                // If createdBy is not a UUID or user not found, leave as null
-            }
-        }
-
         response.setCreatedAt(note.getCreatedAt());
         response.setUpdatedAt(note.getUpdatedAt());
 
+        withCreatorNames(List.of(response));
         return response;
     }
+
+    /**
+     * Fill in createdByName for every response with one user lookup.
+     * createdBy values that are not user UUIDs keep a null name.
+     */
+    private List<TreatmentNoteResponse> withCreatorNames(List<TreatmentNoteResponse> responses) {
+        if (userRepository == null || responses.isEmpty()) {
+            return responses;
+        }
+        Set<UUID> creatorIds = new HashSet<>();
+        for (TreatmentNoteResponse response : responses) {
+            UUID creatorId = parseUuid(response.getCreatedBy());
+            if (creatorId != null) {
+                creatorIds.add(creatorId);
+            }
+        }
+        if (creatorIds.isEmpty()) {
+            return responses;
+        }
+        Map<UUID, String> names = new HashMap<>();
+        for (UserName user : userRepository.findNamesBySupabaseUserIdIn(creatorIds)) {
+            names.put(user.getSupabaseUserId(), user.getFirstName() + " " + user.getLastName());
+        }
+        for (TreatmentNoteResponse response : responses) {
+            UUID creatorId = parseUuid(response.getCreatedBy());
+            if (creatorId != null && names.containsKey(creatorId)) {
+                response.setCreatedByName(names.get(creatorId));
+            }
+        }
+        return responses;
+    }
+
+    private static UUID parseUuid(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 }
 
@@ -1,10 +1,13 @@
 package com.is442.backend.service;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +27,11 @@ import jakarta.persistence.PersistenceContext;
 @Service
 public class UserService {
 
+    public static final int DEFAULT_SEARCH_LIMIT = 10;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    // pg_trgm cannot narrow a search below one trigram, so shorter terms only match prefixes
+    private static final int MIN_INFIX_LENGTH = 3;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -60,30 +68,51 @@ public class UserService {
     // Get All Patients
     @Transactional(readOnly = true)
     public List<PatientResponse> getAllPatients() {
-        return userRepository.findAll().stream()
-                .filter(u -> u instanceof Patient) // only Patient objects
-                .map(u -> new PatientResponse((Patient) u)) // convert to PatientResponse
-                .collect(Collectors.toList()); // collect to List<PatientResponse>
+        return patientRepository.findAllPatientResponses();
     }
 
     // Get All Staff
     @Transactional(readOnly = true)
     public List<StaffResponse> getAllClinicStaff() {
-        return userRepository.findAll().stream()
-                .filter(u -> u instanceof ClinicStaff)
-                .map(u -> new StaffResponse((ClinicStaff) u))
-                .collect(Collectors.toList());
+        return userRepository.findAllStaffResponses();
     }
 
     // Search patients by partial email (case-insensitive)
     @Transactional(readOnly = true)
     public List<PatientResponse> searchPatientsByEmail(String emailPart) {
+        return searchPatientsByEmail(emailPart, DEFAULT_SEARCH_LIMIT);
+    }
+
+    /**
+     * Typeahead search: emails starting with the term come first (alphabetical),
+     * then emails containing it elsewhere (earliest match, then shortest).
+     */
+    @Transactional(readOnly = true)
+    public List<PatientResponse> searchPatientsByEmail(String emailPart, int limit) {
         if (emailPart == null || emailPart.trim().isEmpty()) {
             return java.util.Collections.emptyList();
         }
-        return patientRepository.findByEmailContainingIgnoreCase(emailPart.trim()).stream()
-                .map(PatientResponse::new)
-                .collect(Collectors.toList());
+        String term = emailPart.trim().toLowerCase(Locale.ROOT);
+        int max = Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT));
+        String escaped = escapeLike(term);
+
+        List<PatientResponse> matches = new ArrayList<>(
+                patientRepository.searchByEmailPrefix(escaped + "%", PageRequest.of(0, max)));
+        matches.sort(Comparator.comparing(p -> p.getEmail().toLowerCase(Locale.ROOT)));
+
+        if (matches.size() < max && term.length() >= MIN_INFIX_LENGTH) {
+            List<PatientResponse> infix = new ArrayList<>(patientRepository.searchByEmailInfix(
+                    "%" + escaped + "%", escaped + "%", PageRequest.of(0, max - matches.size())));
+            infix.sort(Comparator.<PatientResponse>comparingInt(p -> p.getEmail().toLowerCase(Locale.ROOT).indexOf(term))
+                    .thenComparingInt(p -> p.getEmail().length())
+                    .thenComparing(PatientResponse::getEmail));
+            matches.addAll(infix);
+        }
+        return matches;
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     // Update Patient Details
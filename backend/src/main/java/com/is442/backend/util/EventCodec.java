@@ -0,0 +1,259 @@
+package com.is442.backend.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.dto.QueueEvent;
+
+/**
+ * Compact binary encoding for the Kafka queue and notification events, with JSON kept
+ * readable so records written before the switch (or by a producer still set to json)
+ * decode the same way.
+ * <p>
+ * Layout, version 1:
+ * <pre>
+ *   magic 0xEC | version | event tag (1 queue, 2 notification) | presence varint | fields...
+ * </pre>
+ * The presence varint has bit i set when field i is non-null, so an event can grow
+ * past eight fields. Fields are written in record-component order and only when
+ * non-null. Strings are a varint of (UTF-8 length + 1) followed by the bytes, or a 0
+ * followed by 16 bytes when the string is a canonical UUID. Integers and longs are zig-zag varints.
+ * A later version may only append fields, so older readers skip what they don't know.
+ * JSON never starts with 0xEC, which is how the two formats are told apart.
+ */
+public final class EventCodec {
+
+    public enum Format {
+        JSON, BINARY
+    }
+
+    public static final byte MAGIC = (byte) 0xEC;
+    public static final byte VERSION = 1;
+
+    private static final byte QUEUE_EVENT = 1;
+    private static final byte NOTIFICATION_EVENT = 2;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader QUEUE_READER = MAPPER.readerFor(QueueEvent.class);
+    private static final ObjectReader NOTIFICATION_READER = MAPPER.readerFor(NotificationEvent.class);
+
+    private EventCodec() {
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length > 0 && data[0] == MAGIC;
+    }
+
+    public static byte[] encode(Object event, Format format) throws IOException {
+        if (format == Format.JSON) {
+            return MAPPER.writeValueAsBytes(event);
+        }
+        if (event instanceof QueueEvent evt) {
+            return encode(evt);
+        }
+        if (event instanceof NotificationEvent evt) {
+            return encode(evt);
+        }
+        throw new IllegalArgumentException("No binary encoding for " + event.getClass().getName());
+    }
+
+    public static byte[] encode(QueueEvent evt) {
+        Writer w = new Writer(QUEUE_EVENT, 64);
+        w.presence(evt.type(), evt.clinicId(), evt.appointmentId(), evt.patientId(),
+                evt.position(), evt.queueNumber(), evt.ts(), evt.version());
+        w.string(evt.type());
+        w.string(evt.clinicId());
+        w.string(evt.appointmentId());
+        w.string(evt.patientId());
+        w.varlong(evt.position());
+        w.varlong(evt.queueNumber());
+        w.varlong(evt.ts());
+        w.varlong(evt.version());
+        return w.toByteArray();
+    }
+
+    public static byte[] encode(NotificationEvent evt) {
+        Writer w = new Writer(NOTIFICATION_EVENT, 96 + (evt.payload() == null ? 0 : evt.payload().length()));
+        w.presence(evt.type(), evt.clinicId(), evt.appointmentId(), evt.patientId(),
+                evt.channel(), evt.payload(), evt.ts());
+        w.string(evt.type());
+        w.string(evt.clinicId());
+        w.string(evt.appointmentId());
+        w.string(evt.patientId());
+        w.string(evt.channel());
+        w.string(evt.payload());
+        w.varlong(evt.ts());
+        return w.toByteArray();
+    }
+
+    public static QueueEvent decodeQueueEvent(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            return QUEUE_READER.readValue(data);
+        }
+        Reader r = new Reader(data, QUEUE_EVENT);
+        String type = r.string();
+        String clinicId = r.string();
+        String appointmentId = r.string();
+        String patientId = r.string();
+        Long position = r.varlong();
+        return new QueueEvent(type, clinicId, appointmentId, patientId,
+                position == null ? null : position.intValue(), r.varlong(), r.varlong(), r.varlong());
+    }
+
+    public static NotificationEvent decodeNotificationEvent(byte[] data) throws IOException {
+        if (!isBinary(data)) {
+            return NOTIFICATION_READER.readValue(data);
+        }
+        Reader r = new Reader(data, NOTIFICATION_EVENT);
+        return new NotificationEvent(r.string(), r.string(), r.string(), r.string(),
+                r.string(), r.string(), r.varlong());
+    }
+
+    /** JSON for clients outside Kafka (SSE, logs), whatever format the record arrived in. */
+    public static String toJson(Object event) throws IOException {
+        return MAPPER.writeValueAsString(event);
+    }
+
+    private static final class Writer {
+        private final ByteArrayOutputStream out;
+
+        Writer(byte tag, int sizeHint) {
+            out = new ByteArrayOutputStream(sizeHint);
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(tag);
+        }
+
+        void presence(Object... fields) {
+            if (fields.length > Long.SIZE - 1) {
+                throw new IllegalArgumentException("Too many fields for the presence varint: " + fields.length);
+            }
+            long bits = 0;
+            for (int i = 0; i < fields.length; i++) {
+                if (fields[i] != null) {
+                    bits |= 1L << i;
+                }
+            }
+            varint(bits);
+        }
+
+        void string(String value) {
+            if (value == null) {
+                return;
+            }
+            if (value.length() == 36) {
+                try {
+                    UUID uuid = UUID.fromString(value);
+                    // Only when it prints back identically, so decoding never changes the string
+                    if (uuid.toString().equals(value)) {
+                        varint(0);
+                        ByteBuffer buf = ByteBuffer.allocate(16);
+                        buf.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+                        out.write(buf.array(), 0, 16);
+                        return;
+                    }
+                } catch (IllegalArgumentException notUuid) {
+                    // fall through to UTF-8
+                }
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        void varlong(Number value) {
+            if (value != null) {
+                long v = value.longValue();
+                varint((v << 1) ^ (v >> 63));
+            }
+        }
+
+        void varint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                out.write((int) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            out.write((int) v);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buf;
+        private final long presence;
+        private int field;
+
+        Reader(byte[] data, byte expectedTag) throws IOException {
+            buf = ByteBuffer.wrap(data);
+            if (data.length < 4) {
+                throw new IOException("Truncated binary event");
+            }
+            buf.get(); // magic
+            byte version = buf.get();
+            if (version < 1) {
+                throw new IOException("Unknown binary event version");
+            }
+            byte tag = buf.get();
+            if (tag != expectedTag) {
+                throw new IOException("Binary event tag " + tag + ", expected " + expectedTag);
+            }
+            presence = varint();
+        }
+
+        private boolean present() {
+            return field < Long.SIZE && (presence & (1L << field++)) != 0;
+        }
+
+        String string() throws IOException {
+            if (!present()) {
+                return null;
+            }
+            try {
+                long header = varint();
+                if (header == 0) {
+                    return new UUID(buf.getLong(), buf.getLong()).toString();
+                }
+                int length = Math.toIntExact(header - 1);
+                String value = new String(buf.array(), buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+                return value;
+            } catch (RuntimeException e) {
+                throw new IOException("Malformed string in binary event", e);
+            }
+        }
+
+        Long varlong() throws IOException {
+            if (!present()) {
+                return null;
+            }
+            long v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        private long varint() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (!buf.hasRemaining()) {
+                    throw new IOException("Truncated varint in binary event");
+                }
+                byte b = buf.get();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Varint too long in binary event");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.is442.backend.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.dto.QueueEvent;
+
+/**
+ * Kafka value serializer for every topic the backend produces to. QueueEvent and
+ * NotificationEvent values are written in the given format (binary unless KafkaConfig
+ * passes {@code app.kafka.event-format}); strings and byte arrays pass through unchanged.
+ * Consumers read values as bytes and decode them with EventCodec, which accepts both.
+ */
+public class EventSerializer implements Serializer<Object> {
+
+    private final EventCodec.Format format;
+
+    public EventSerializer() {
+        this(EventCodec.Format.BINARY);
+    }
+
+    public EventSerializer(EventCodec.Format format) {
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (data instanceof String s) {
+            return s.getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            if (data instanceof QueueEvent || data instanceof NotificationEvent) {
+                return EventCodec.encode(data, format);
+            }
+            return EventCodec.encode(data, EventCodec.Format.JSON);
+        } catch (IOException e) {
+            throw new SerializationException("Cannot serialize " + data.getClass().getSimpleName()
+                    + " for " + topic, e);
+        }
+    }
+}
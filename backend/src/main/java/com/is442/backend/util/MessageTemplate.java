@@ -0,0 +1,98 @@
+package com.is442.backend.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A text template parsed once into alternating literal and placeholder segments.
+ * <p>
+ * Placeholders are written {@code {{name}}} and must be one of the slot names given at
+ * compile time, so a typo fails at startup rather than in an email. Rendering appends
+ * literals and slot values straight into the caller's StringBuilder; with JSON escaping
+ * the values are escaped character by character as they are appended.
+ */
+public final class MessageTemplate {
+
+    public enum Escaping {
+        NONE, JSON
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String[] literals; // literals[i] precedes slots[i]; one more literal than slots
+    private final int[] slots;
+    private final Escaping escaping;
+
+    private MessageTemplate(String[] literals, int[] slots, Escaping escaping) {
+        this.literals = literals;
+        this.slots = slots;
+        this.escaping = escaping;
+    }
+
+    public static MessageTemplate compile(String name, String source, List<String> slotNames, Escaping escaping) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        int from = 0;
+        while (true) {
+            int open = source.indexOf("{{", from);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder in template " + name + " at " + open);
+            }
+            String placeholder = source.substring(open + 2, close).trim();
+            int slot = slotNames.indexOf(placeholder);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + placeholder + "}} in template " + name
+                        + "; expected one of " + slotNames);
+            }
+            literals.add(source.substring(from, open));
+            slots.add(slot);
+            from = close + 2;
+        }
+        literals.add(source.substring(from));
+        return new MessageTemplate(literals.toArray(new String[0]),
+                slots.stream().mapToInt(Integer::intValue).toArray(), escaping);
+    }
+
+    /**
+     * Appends the rendered template to {@code out}. {@code values} is indexed by slot;
+     * a null value renders as empty.
+     */
+    public StringBuilder renderTo(StringBuilder out, CharSequence[] values) {
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]);
+            CharSequence value = values[slots[i]];
+            if (value != null) {
+                if (escaping == Escaping.JSON) {
+                    appendJsonEscaped(out, value);
+                } else {
+                    out.append(value);
+                }
+            }
+        }
+        return out.append(literals[slots.length]);
+    }
+
+    private static void appendJsonEscaped(StringBuilder out, CharSequence value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.is442.backend;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Timing and allocation harness shared by the benchmark suites. Results are logged
+ * through SLF4J and every comparison asserts its own threshold, so a suite reports
+ * one line per comparison and fails when the gain disappears.
+ */
+public final class Benchmarks {
+
+    private static final Logger log = LoggerFactory.getLogger(Benchmarks.class);
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Benchmarks() {
+    }
+
+    /** One measured operation; its result is summed so the JIT cannot drop the work. */
+    @FunctionalInterface
+    public interface Op {
+        long run() throws Exception;
+    }
+
+    /** Wall time per operation over {@code runs} calls, in nanoseconds. */
+    public static double nanosPerOp(int runs, Op op) throws Exception {
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            sink += op.run();
+        }
+        double nanos = (System.nanoTime() - started) / (double) runs;
+        assertTrue(sink != 42);
+        return nanos;
+    }
+
+    /** Bytes allocated by the calling thread per operation over {@code runs} calls. */
+    public static double bytesPerOp(int runs, Op op) throws Exception {
+        long thread = Thread.currentThread().threadId();
+        long sink = 0;
+        long before = THREADS.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < runs; i++) {
+            sink += op.run();
+        }
+        double perRun = (THREADS.getThreadAllocatedBytes(thread) - before) / (double) runs;
+        assertTrue(sink != 42);
+        return perRun;
+    }
+
+    /** Bytes allocated so far by the calling thread, for harnesses that time each round themselves. */
+    public static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    /** Operations per second since {@code startedNanos} (a {@link System#nanoTime()} reading). */
+    public static double perSecond(long operations, long startedNanos) {
+        return operations / ((System.nanoTime() - startedNanos) / 1e9);
+    }
+
+    /**
+     * For rates, where higher is better: logs both figures and asserts the candidate
+     * beats the baseline by more than {@code minGain} times.
+     */
+    public static void assertFaster(String what, String unit, String baselineName, double baseline,
+            String candidateName, double candidate, double minGain) {
+        compare(what, unit, baselineName, baseline, candidateName, candidate, candidate / baseline, minGain);
+    }
+
+    /**
+     * For costs, where lower is better (time or bytes per operation): logs both figures
+     * and asserts the candidate costs less than the baseline by more than {@code minGain} times.
+     */
+    public static void assertCheaper(String what, String unit, String baselineName, double baseline,
+            String candidateName, double candidate, double minGain) {
+        compare(what, unit, baselineName, baseline, candidateName, candidate, baseline / candidate, minGain);
+    }
+
+    /** Logs a figure that is not a comparison, such as a size or a drop count. */
+    public static void report(String format, Object... args) {
+        log.info(String.format(format, args));
+    }
+
+    private static void compare(String what, String unit, String baselineName, double baseline,
+            String candidateName, double candidate, double gain, double minGain) {
+        String line = String.format("%s: %s %.1f %s, %s %.1f %s (%.1fx)", what, baselineName, baseline, unit,
+                candidateName, candidate, unit, gain);
+        log.info(line);
+        assertTrue(gain > minGain, () -> line + " should be better than " + minGain + "x");
+    }
+}
@@ -0,0 +1,128 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Runs EXPLAIN for the hot AppointmentRepository queries against a real Postgres
+ * with the migrations applied, and fails if any of them plans a sequential scan.
+ * Needs Docker; run with: mvn test -DskipTests=false -Dtest=AppointmentQueryPlanTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentQueryPlanTests {
+
+    private static final Path MIGRATIONS = Path.of("..", "database", "migrations");
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void createSchema() throws Exception {
+        try (Connection conn = connect(); Statement st = conn.createStatement()) {
+            // appointment is owned by Supabase, so mirror the Appointment entity here
+            st.execute("""
+                    create table public.appointment (
+                      appointment_id uuid primary key default gen_random_uuid(),
+                      patient_id varchar not null,
+                      doctor_id varchar not null,
+                      clinic_id varchar not null,
+                      booking_date date not null,
+                      start_time time not null,
+                      end_time time,
+                      status varchar not null default 'SCHEDULED',
+                      type varchar,
+                      created_at timestamp,
+                      updated_at timestamp
+                    )""");
+            st.execute(migration("TreatmentNotes.sql"));
+            st.execute(migration("AppointmentBookingConstraint.sql"));
+            st.execute(migration("AppointmentIndexes.sql"));
+
+            // 200k non-overlapping 15 minute bookings over 50 doctors and ~4 months
+            st.execute("""
+                    insert into public.appointment
+                      (patient_id, doctor_id, clinic_id, booking_date, start_time, end_time, status, type, created_at, updated_at)
+                    select 'pat-' || (i % 20000),
+                           'doc-' || (i % 50),
+                           'clinic-' || (i % 50),
+                           date '2025-01-01' + ((i / 50) / 32),
+                           time '08:00' + ((i / 50) % 32) * interval '15 minutes',
+                           time '08:15' + ((i / 50) % 32) * interval '15 minutes',
+                           case when i % 10 = 0 then 'NO_SHOW'
+                                when i % 10 = 1 then 'CANCELLED'
+                                when i % 10 < 7 then 'COMPLETED'
+                                else 'SCHEDULED' end,
+                           case when i % 25 = 0 then 'WALK_IN' else 'BOOKING' end,
+                           now(), now()
+                      from generate_series(0, 199999) as i""");
+            st.execute("analyze public.appointment");
+        }
+    }
+
+    static Stream<Arguments> hotQueries() {
+        return Stream.of(
+                Arguments.of("findByPatientId",
+                        "select * from appointment where patient_id = 'pat-42'"),
+                Arguments.of("findByPatientIdAndStatus",
+                        "select * from appointment where patient_id = 'pat-42' and status = 'SCHEDULED'"),
+                Arguments.of("findUpcomingAppointmentsByPatient",
+                        "select * from appointment where patient_id = 'pat-42' and status = 'SCHEDULED' "
+                                + "and booking_date >= date '2025-03-01' order by booking_date, start_time"),
+                Arguments.of("findByDoctorIdAndBookingDate",
+                        "select * from appointment where doctor_id = 'doc-7' and booking_date = date '2025-02-10'"),
+                Arguments.of("findByDoctorIdInAndBookingDateBetween",
+                        "select * from appointment where doctor_id in ('doc-1', 'doc-2', 'doc-3') "
+                                + "and booking_date between date '2025-02-10' and date '2025-02-16'"),
+                Arguments.of("findConflictingAppointments",
+                        "select * from appointment where doctor_id = 'doc-7' and booking_date = date '2025-02-10' "
+                                + "and status = 'SCHEDULED' and start_time < time '10:30' and end_time > time '10:00'"),
+                Arguments.of("findByClinicId + date (staff report)",
+                        "select * from appointment where clinic_id = 'clinic-3' and booking_date = date '2025-02-10'"),
+                Arguments.of("findByBookingDate",
+                        "select * from appointment where booking_date = date '2025-02-10'"),
+                Arguments.of("findUpcomingAppointments",
+                        "select * from appointment where status in ('SCHEDULED', 'CHECKED-IN', 'IN_CONSULTATION') "
+                                + "and booking_date >= date '2025-04-20' order by booking_date, start_time"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("hotQueries")
+    void hotQueryDoesNotSeqScan(String name, String sql) throws Exception {
+        String plan = explain(sql);
+        assertFalse(plan.contains("\"Seq Scan\""), () -> name + " falls back to a sequential scan:\n" + plan);
+    }
+
+    private static String explain(String sql) throws SQLException {
+        try (Connection conn = connect();
+                Statement st = conn.createStatement();
+                ResultSet rs = st.executeQuery("explain (format json) " + sql)) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static String migration(String file) throws IOException {
+        return Files.readString(MIGRATIONS.resolve(file));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
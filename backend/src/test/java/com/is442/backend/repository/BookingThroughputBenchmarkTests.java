@@ -0,0 +1,207 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.ClassOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestClassOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.config.HibernateCacheConfig;
+import com.is442.backend.dto.AppointmentRequest;
+import com.is442.backend.service.AppointmentService;
+import com.is442.backend.service.OutboxRelay;
+import com.is442.backend.service.OutboxService;
+
+/**
+ * Books appointments through AppointmentService.createAppointment (conflict query,
+ * Hibernate insert, outbox row, one transaction per booking) from concurrent clients
+ * against a real Postgres. It runs once in a context built from application.properties
+ * and once with the prod profile on top, and checks that the prod profile books faster.
+ * Needs Docker; run with: mvn test -DskipTests=false -Dtest=BookingThroughputBenchmarkTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AppointmentService.class, OutboxService.class, HibernateCacheConfig.class,
+        BookingThroughputBenchmarkTests.Wiring.class})
+@TestClassOrder(ClassOrderer.OrderAnnotation.class)
+class BookingThroughputBenchmarkTests {
+
+    private static final Path MIGRATIONS = Path.of("..", "database", "migrations");
+    private static final int CLIENTS = 16;
+    private static final int BOOKINGS_PER_CLIENT = 150;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 6);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "max_connections=100");
+
+    private static final Map<String, Double> rates = new ConcurrentHashMap<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeAll
+    static void createSchema() throws Exception {
+        try (Connection conn = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(),
+                postgres.getPassword()); Statement st = conn.createStatement()) {
+            // appointment is owned by Supabase, so mirror the Appointment entity here
+            st.execute("""
+                    create table public.appointment (
+                      appointment_id uuid primary key default gen_random_uuid(),
+                      patient_id varchar not null,
+                      doctor_id varchar not null,
+                      clinic_id varchar not null,
+                      booking_date date not null,
+                      start_time time not null,
+                      end_time time,
+                      status varchar not null default 'SCHEDULED',
+                      type varchar,
+                      created_at timestamp,
+                      updated_at timestamp
+                    )""");
+            st.execute(migration("AppointmentBookingConstraint.sql"));
+            st.execute(migration("AppointmentIndexes.sql"));
+            st.execute(migration("AppointmentOutbox.sql"));
+        }
+    }
+
+    /** Pool of one connection, SQL echo on: the defaults in application.properties. */
+    @Nested
+    @Order(1)
+    class DefaultProfile {
+
+        @Autowired
+        private AppointmentService appointmentService;
+
+        @Test
+        void booksEveryRequest() throws Exception {
+            rates.put("default", bookingsPerSecond(appointmentService, "default"));
+        }
+    }
+
+    /** DB_POOL_SIZE=10, prepareThreshold=0 and no SQL echo: application-prod.properties. */
+    @Nested
+    @Order(2)
+    @ActiveProfiles("prod")
+    class ProdProfile {
+
+        @Autowired
+        private AppointmentService appointmentService;
+
+        @Test
+        void booksFasterThanTheDefaultProfile() throws Exception {
+            double tuned = bookingsPerSecond(appointmentService, "prod");
+            double baseline = rates.get("default");
+            Benchmarks.assertFaster("Booking throughput", "bookings/s", "default profile", baseline,
+                    "prod profile", tuned, 1);
+        }
+    }
+
+    /**
+     * Each client books its own doctor, so no request conflicts and the persistence
+     * settings are what differ between runs.
+     */
+    private static double bookingsPerSecond(AppointmentService service, String run) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long started = System.nanoTime();
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                String doctorId = "doc-" + run + "-" + c;
+                String clinicId = "clinic-" + c;
+                results.add(clients.submit(() -> {
+                    for (int i = 0; i < BOOKINGS_PER_CLIENT; i++) {
+                        service.createAppointment(request(doctorId, clinicId, i));
+                    }
+                    return BOOKINGS_PER_CLIENT;
+                }));
+            }
+            int booked = 0;
+            for (Future<Integer> result : results) {
+                booked += result.get();
+            }
+            double rate = Benchmarks.perSecond(booked, started);
+            assertEquals(CLIENTS * BOOKINGS_PER_CLIENT, booked);
+            return rate;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    private static AppointmentRequest request(String doctorId, String clinicId, int i) {
+        LocalTime start = LocalTime.of(8, 0).plusMinutes(15L * (i % 32));
+        AppointmentRequest request = new AppointmentRequest();
+        request.setPatientId("pat-" + doctorId);
+        request.setDoctorId(doctorId);
+        request.setClinicId(clinicId);
+        request.setBookingDate(FIRST_DAY.plusDays(i / 32));
+        request.setStartTime(start);
+        request.setEndTime(start.plusMinutes(15));
+        return request;
+    }
+
+    private static String migration(String file) throws IOException {
+        return Files.readString(MIGRATIONS.resolve(file));
+    }
+
+    @TestConfiguration
+    static class Wiring {
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper();
+        }
+
+        // Rows stay in the outbox; relaying them is not part of the booking request
+        @Bean
+        OutboxRelay outboxRelay(PlatformTransactionManager transactionManager) {
+            return new OutboxRelay(null, null, null, transactionManager) {
+                @Override
+                public void requestRelay() {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.is442.backend.dto.DailyClinicMetrics;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Seeds one clinic-day in a real Postgres and checks every DailyClinicMetrics getter
+ * of AppointmentRepository.getDailyClinicMetrics, so an alias the projection cannot
+ * map shows up as a wrong value rather than a silently empty staff report.
+ * Needs Docker; run with: mvn test -DskipTests=false -Dtest=DailyClinicMetricsTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DailyClinicMetricsTests {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 2, 10);
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @BeforeEach
+    void seed() {
+        // appointment is owned by Supabase, so mirror the Appointment entity here
+        entityManager.createNativeQuery("""
+                create table if not exists public.appointment (
+                  appointment_id uuid primary key default gen_random_uuid(),
+                  patient_id varchar not null,
+                  doctor_id varchar not null,
+                  clinic_id varchar not null,
+                  booking_date date not null,
+                  start_time time not null,
+                  end_time time,
+                  status varchar not null default 'SCHEDULED',
+                  type varchar,
+                  created_at timestamp,
+                  updated_at timestamp
+                )""").executeUpdate();
+        // Completed 10, 30 and 50 minutes after the slot start
+        appointment("clinic-1", DAY, "09:00", "COMPLETED", "2025-02-10 09:10");
+        appointment("clinic-1", DAY, "09:15", "COMPLETED", "2025-02-10 09:45");
+        appointment("clinic-1", DAY, "09:30", "COMPLETED", "2025-02-10 10:20");
+        // Completed before its slot started: seen, but no waiting time
+        appointment("clinic-1", DAY, "11:00", "COMPLETED", "2025-02-10 10:50");
+        appointment("clinic-1", DAY, "10:00", "NO_SHOW", "2025-02-10 10:30");
+        appointment("clinic-1", DAY, "10:15", "SCHEDULED", "2025-02-09 12:00");
+        // Other clinics and days stay out of the report
+        appointment("clinic-2", DAY, "09:00", "NO_SHOW", "2025-02-10 09:30");
+        appointment("clinic-1", DAY.plusDays(1), "09:00", "COMPLETED", "2025-02-11 11:00");
+    }
+
+    @Test
+    void projectsEveryMetricOfTheClinicDay() {
+        DailyClinicMetrics metrics = appointmentRepository.getDailyClinicMetrics("clinic-1", DAY);
+
+        assertEquals(6L, metrics.getTotalAppointments());
+        assertEquals(4L, metrics.getPatientsSeen());
+        assertEquals(1L, metrics.getNoShowCount());
+        assertEquals(90L, metrics.getWaitMinutesSum());
+        assertEquals(3L, metrics.getWaitCount());
+        assertEquals(30.0, metrics.getWaitP50(), 1e-9);
+        assertEquals(46.0, metrics.getWaitP90(), 1e-9);
+    }
+
+    private void appointment(String clinicId, LocalDate date, String start, String status, String updatedAt) {
+        entityManager.createNativeQuery("insert into public.appointment "
+                        + "(patient_id, doctor_id, clinic_id, booking_date, start_time, status, type, created_at, updated_at) "
+                        + "values ('pat-1', 'doc-1', ?1, ?2, cast(?3 as time), ?4, 'BOOKING', now(), cast(?5 as timestamp))")
+                .setParameter(1, clinicId)
+                .setParameter(2, date)
+                .setParameter(3, start)
+                .setParameter(4, status)
+                .setParameter(5, updatedAt)
+                .executeUpdate();
+    }
+}
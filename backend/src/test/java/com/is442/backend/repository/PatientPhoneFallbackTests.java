@@ -0,0 +1,84 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.is442.backend.dto.PatientResponse;
+import com.is442.backend.model.Patient;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Patients whose own phone is blank keep the number on their users row. Checks the
+ * projection queries fall back to it the way PatientResponse(Patient) does. Runs on
+ * H2; run with: mvn test -DskipTests=false -Dtest=PatientPhoneFallbackTests
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class PatientPhoneFallbackTests {
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void seed() {
+        // Hibernate maps both phone fields to users.phone, so ddl-auto leaves out the Supabase patient.phone column
+        entityManager.createNativeQuery("ALTER TABLE patient ADD COLUMN IF NOT EXISTS phone varchar(255)")
+                .executeUpdate();
+        patient("own@example.com", "91110000", "82220000");
+        patient("blank@example.com", "", "82220001");
+        patient("spaces@example.com", "  ", "82220002");
+        patient("null@example.com", null, "82220003");
+        patient("none@example.com", "", null);
+        entityManager.clear();
+    }
+
+    @Test
+    void listingFallsBackToTheUserPhone() {
+        assertEquals(List.of("blank@example.com=82220001", "none@example.com=", "null@example.com=82220003",
+                        "own@example.com=91110000", "spaces@example.com=82220002"),
+                phonesByEmail(patientRepository.findAllPatientResponses()));
+    }
+
+    @Test
+    void emailSearchFallsBackToTheUserPhone() {
+        List<PatientResponse> prefix = patientRepository.searchByEmailPrefix("blank%", PageRequest.of(0, 10));
+        assertEquals(List.of("82220001"), prefix.stream().map(PatientResponse::getPhone).toList());
+
+        List<PatientResponse> infix = patientRepository.searchByEmailInfix("%ll@%", "ll@%", PageRequest.of(0, 10));
+        assertEquals(List.of("82220003"), infix.stream().map(PatientResponse::getPhone).toList());
+    }
+
+    private void patient(String email, String patientPhone, String userPhone) {
+        UUID id = UUID.randomUUID();
+        entityManager.persist(new Patient(id, email, "Pat", "Ient", "PATIENT", "ACTIVE", null, "1990-01-01", "F"));
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE patient SET phone = ?1 WHERE supabase_user_id = ?2")
+                .setParameter(1, patientPhone).setParameter(2, id).executeUpdate();
+        entityManager.createNativeQuery("UPDATE users SET phone = ?1 WHERE supabase_user_id = ?2")
+                .setParameter(1, userPhone).setParameter(2, id).executeUpdate();
+    }
+
+    private static List<String> phonesByEmail(List<PatientResponse> responses) {
+        return responses.stream()
+                .sorted(Comparator.comparing(PatientResponse::getEmail))
+                .map(r -> r.getEmail() + "=" + r.getPhone())
+                .toList();
+    }
+}
@@ -0,0 +1,161 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.is442.backend.Benchmarks;
+
+/**
+ * Runs the patient email search queries against a million patients in a real
+ * Postgres with PatientEmailSearch.sql applied. Every search must keep its median
+ * latency under 20 ms. Selective terms must also avoid a sequential scan of users;
+ * for common terms the planner may rightly prefer a seq scan that stops at the limit.
+ * Needs Docker; run with: mvn test -DskipTests=false -Dtest=PatientSearchQueryPlanTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class PatientSearchQueryPlanTests {
+
+    private static final Path MIGRATIONS = Path.of("..", "database", "migrations");
+    private static final int RUNS = 21;
+    private static final double MAX_MEDIAN_MILLIS = 20.0;
+
+    // PatientRepository.searchByEmail* with the page limit Hibernate adds for the first page
+    private static final String PREFIX_SQL = PatientRepository.PATIENT_RESPONSE_SQL
+            + " where lower(u.email) like ? escape '\\' limit 10";
+    private static final String INFIX_SQL = PatientRepository.PATIENT_RESPONSE_SQL
+            + " where lower(u.email) like ? escape '\\' and lower(u.email) not like ? escape '\\' limit 10";
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @BeforeAll
+    static void createSchema() throws Exception {
+        try (Connection conn = connect(); Statement st = conn.createStatement()) {
+            // users and patient are owned by Supabase, so mirror the User and Patient entities here
+            st.execute("""
+                    create table public.users (
+                      supabase_user_id uuid primary key,
+                      email varchar, first_name varchar, last_name varchar,
+                      role varchar, phone varchar, status varchar
+                    )""");
+            st.execute("""
+                    create table public.patient (
+                      supabase_user_id uuid primary key references public.users,
+                      phone varchar, date_of_birth varchar, gender varchar
+                    )""");
+            st.execute("""
+                    insert into public.users (supabase_user_id, email, first_name, last_name, role, phone, status)
+                    select gen_random_uuid(),
+                           (array['alex', 'sam', 'jordan', 'tan', 'lim', 'nur', 'wei', 'priya'])[1 + i % 8]
+                             || '.' || md5(i::text)::varchar(8) || i
+                             || (array['@gmail.com', '@yahoo.com', '@clinic.sg', '@hotmail.com'])[1 + i % 4],
+                           'First', 'Last ' || i, 'PATIENT', '9' || lpad(i::text, 7, '0'), 'ACTIVE'
+                      from generate_series(1, 1000000) as i""");
+            st.execute("insert into public.patient (supabase_user_id, date_of_birth, gender) "
+                    + "select supabase_user_id, '1990-01-01', 'F' from public.users");
+            st.execute(migration("PatientEmailSearch.sql"));
+            st.execute("analyze public.users");
+            st.execute("analyze public.patient");
+        }
+    }
+
+    static Stream<Arguments> searches() {
+        return Stream.of(
+                Arguments.of("short prefix", PREFIX_SQL, false, new String[] {"a%"}),
+                Arguments.of("name prefix", PREFIX_SQL, false, new String[] {"jordan.%"}),
+                Arguments.of("selective prefix", PREFIX_SQL, true, new String[] {"priya.c4ca4238%"}),
+                Arguments.of("selective infix", INFIX_SQL, true, new String[] {"%424242%", "424242%"}),
+                Arguments.of("domain infix", INFIX_SQL, false, new String[] {"%clinic.s%", "clinic.s%"}),
+                Arguments.of("no match infix", INFIX_SQL, true, new String[] {"%zzqx%", "zzqx%"}));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("searches")
+    void searchStaysUnderBudget(String name, String sql, boolean selective, String[] patterns) throws Exception {
+        try (Connection conn = connect()) {
+            if (selective) {
+                String plan = explain(conn, sql, patterns);
+                assertFalse(seqScansUsers(plan), () -> name + " scans the users table sequentially:\n" + plan);
+            }
+
+            double[] millis = new double[RUNS];
+            for (int i = 0; i < RUNS; i++) {
+                long started = System.nanoTime();
+                run(conn, sql, patterns);
+                millis[i] = (System.nanoTime() - started) / 1e6;
+            }
+            Arrays.sort(millis);
+            double median = millis[RUNS / 2];
+            Benchmarks.report("Patient search %-18s median %.2f ms", name, median);
+            assertTrue(median < MAX_MEDIAN_MILLIS,
+                    () -> String.format("%s took %.2f ms (median), budget is %.0f ms", name, median, MAX_MEDIAN_MILLIS));
+        }
+    }
+
+    private static boolean seqScansUsers(String plan) {
+        int at = plan.indexOf("\"Seq Scan\"");
+        while (at >= 0) {
+            int end = plan.indexOf('}', at);
+            if (plan.substring(at, end < 0 ? plan.length() : end).contains("\"Relation Name\": \"users\"")) {
+                return true;
+            }
+            at = plan.indexOf("\"Seq Scan\"", at + 1);
+        }
+        return false;
+    }
+
+    private static String explain(Connection conn, String sql, String[] patterns) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("explain (format json) " + sql)) {
+            bind(ps, patterns);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getString(1);
+            }
+        }
+    }
+
+    private static void run(Connection conn, String sql, String[] patterns) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, patterns);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    rs.getString(2);
+                }
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement ps, String[] patterns) throws SQLException {
+        for (int i = 0; i < patterns.length; i++) {
+            ps.setString(i + 1, patterns[i]);
+        }
+    }
+
+    private static String migration(String file) throws IOException {
+        return Files.readString(MIGRATIONS.resolve(file));
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+    }
+}
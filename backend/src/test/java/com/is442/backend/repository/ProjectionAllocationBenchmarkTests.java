@@ -0,0 +1,171 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import com.is442.backend.Benchmarks;
+import com.is442.backend.dto.DoctorDto;
+import com.is442.backend.dto.GpClinicDto;
+import com.is442.backend.dto.PatientResponse;
+import com.is442.backend.dto.StaffResponse;
+import com.is442.backend.dto.TimeSlotDto;
+import com.is442.backend.model.ClinicStaff;
+import com.is442.backend.model.Doctor;
+import com.is442.backend.model.GpClinic;
+import com.is442.backend.model.Patient;
+import com.is442.backend.model.TimeSlot;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Compares the old findAll()-then-map listing path with the constructor-expression
+ * projections, measuring bytes allocated by the calling thread and
+ * wall time per listing. Each round starts with an empty persistence context, as a
+ * request would. Runs on H2; run with:
+ * mvn test -DskipTests=false -Dtest=ProjectionAllocationBenchmarkTests
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class ProjectionAllocationBenchmarkTests {
+
+    private static final int DOCTORS = 200;
+    private static final int SLOTS_PER_DOCTOR = 40;
+    private static final int CLINICS = 1000;
+    private static final int PATIENTS = 2000;
+    private static final int STAFF = 500;
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+
+    @Autowired
+    private GpClinicRepository gpClinicRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @BeforeEach
+    void seed() {
+        // Hibernate maps both phone fields to users.phone, so ddl-auto leaves out the Supabase patient.phone column
+        entityManager.createNativeQuery("ALTER TABLE patient ADD COLUMN IF NOT EXISTS phone varchar(255)")
+                .executeUpdate();
+        for (int d = 0; d < DOCTORS; d++) {
+            String doctorId = "doc-" + d;
+            entityManager.persist(new Doctor(doctorId, "Dr " + d, "clinic-" + (d % 50), "Clinic " + (d % 50),
+                    d + " Orchard Road", "General"));
+            for (int s = 0; s < SLOTS_PER_DOCTOR; s++) {
+                LocalTime start = LocalTime.of(8, 0).plusMinutes(15L * (s % 8));
+                entityManager.persist(new TimeSlot(doctorId, "Dr " + d, "Day" + (s / 8), start, start.plusMinutes(15)));
+            }
+        }
+        for (int c = 0; c < CLINICS; c++) {
+            entityManager.persist(new GpClinic(c, "gp-" + c, "GP Clinic " + c, c + " Tampines Ave",
+                    "6123" + c, "PCN " + (c % 20), "08:00", "22:00"));
+        }
+        for (int p = 0; p < PATIENTS; p++) {
+            entityManager.persist(new Patient(UUID.randomUUID(), "patient" + p + "@example.com", "Pat", "Ient " + p,
+                    "PATIENT", "ACTIVE", p % 3 == 0 ? null : "9123" + p, "1990-01-01", "F"));
+        }
+        for (int s = 0; s < STAFF; s++) {
+            entityManager.persist(new ClinicStaff(UUID.randomUUID(), "staff" + s + "@example.com", "Sta", "Ff " + s,
+                    "STAFF", "ACTIVE", "Clinic " + (s % 50), "clinic-" + (s % 50), "Nurse"));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void projectionsAllocateLessThanEntityListings() {
+        compare("time slots (admin)",
+                () -> timeSlotRepository.findAll().stream()
+                        .map(t -> new TimeSlotDto(t.getTimeSlotId(), t.getDoctorId(), t.getDoctorName(),
+                                t.getDayOfWeek(), t.getStartTime(), t.getEndTime(), true))
+                        .toList(),
+                timeSlotRepository::findAllDtos);
+
+        compare("doctors",
+                () -> doctorRepository.findAll().stream()
+                        .map(d -> new DoctorDto(d.getDoctorId(), d.getDoctorName(), d.getClinicId(),
+                                d.getClinicName(), d.getClinicAddress(), d.getSpeciality()))
+                        .toList(),
+                doctorRepository::findAllDtos);
+
+        compare("gp clinics",
+                () -> gpClinicRepository.findAll(PageRequest.of(0, CLINICS)).stream()
+                        .map(g -> new GpClinicDto(g.getSn(), g.getClinicId(), g.getPcn(), g.getClinicName(),
+                                g.getAddress(), g.getTelephoneNum(), g.getOpeningHours(), g.getClosingHours()))
+                        .toList(),
+                () -> gpClinicRepository.findDtos(PageRequest.of(0, CLINICS)));
+
+        compare("patients",
+                () -> userRepository.findAll().stream()
+                        .filter(u -> u instanceof Patient)
+                        .map(u -> new PatientResponse((Patient) u))
+                        .toList(),
+                patientRepository::findAllPatientResponses);
+
+        compare("clinic staff",
+                () -> userRepository.findAll().stream()
+                        .filter(u -> u instanceof ClinicStaff)
+                        .map(u -> new StaffResponse((ClinicStaff) u))
+                        .toList(),
+                userRepository::findAllStaffResponses);
+    }
+
+    private void compare(String listing, Supplier<List<?>> entities, Supplier<List<?>> projection) {
+        assertEquals(entities.get().size(), projection.get().size(), listing + " row count");
+        entityManager.clear();
+
+        Measurement before = measure(entities);
+        Measurement after = measure(projection);
+
+        Benchmarks.report("%s listing: entities %.2f ms, projection %.2f ms", listing, before.millis, after.millis);
+        Benchmarks.assertCheaper(listing + " listing", "KB", "entities", before.bytes / 1024.0,
+                "projection", after.bytes / 1024.0, 1);
+    }
+
+    private Measurement measure(Supplier<List<?>> listing) {
+        for (int i = 0; i < WARMUP; i++) {
+            listing.get();
+            entityManager.clear();
+        }
+        long bytes = 0;
+        long nanos = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            long allocatedBefore = Benchmarks.allocatedBytes();
+            long started = System.nanoTime();
+            listing.get();
+            nanos += System.nanoTime() - started;
+            bytes += Benchmarks.allocatedBytes() - allocatedBefore;
+            entityManager.clear();
+        }
+        return new Measurement(bytes / ROUNDS, nanos / 1e6 / ROUNDS);
+    }
+
+    private record Measurement(long bytes, double millis) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.is442.backend.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import com.is442.backend.dto.TreatmentNoteResponse;
+import com.is442.backend.model.Appointment;
+import com.is442.backend.model.ClinicStaff;
+import com.is442.backend.model.Doctor;
+import com.is442.backend.model.TreatmentNote;
+import com.is442.backend.service.TreatmentNoteService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that reading a patient's treatment notes costs a fixed number of
+ * statements (notes joined to appointment and doctor, then one creator-name
+ * lookup) rather than a few per note. Runs on H2; run with:
+ * mvn test -DskipTests=false -Dtest=TreatmentNoteQueryCountTests
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@Import(TreatmentNoteService.class)
+class TreatmentNoteQueryCountTests {
+
+    private static final int APPOINTMENTS = 100;
+    private static final int NOTES_PER_APPOINTMENT = 3;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TreatmentNoteService treatmentNoteService;
+
+    private final UUID patientId = UUID.randomUUID();
+    private final UUID staffId = UUID.randomUUID();
+    private UUID firstAppointmentId;
+
+    @BeforeEach
+    void seed() {
+        entityManager.persist(new Doctor("doc-1", "Dr Tan", "clinic-1", "Orchard Clinic", "1 Orchard Road", "General"));
+        entityManager.persist(new ClinicStaff(staffId, "nurse@example.com", "Nora", "Lim", "STAFF", "ACTIVE",
+                "Orchard Clinic", "clinic-1", "Nurse"));
+        for (int a = 0; a < APPOINTMENTS; a++) {
+            Appointment appointment = new Appointment(patientId.toString(), "doc-1", "clinic-1",
+                    LocalDate.of(2025, 1, 1).plusDays(a), LocalTime.of(9, 0), LocalTime.of(9, 15));
+            appointment.setStatus("COMPLETED");
+            entityManager.persist(appointment);
+            if (a == 0) {
+                firstAppointmentId = appointment.getAppointmentId();
+            }
+            for (int n = 0; n < NOTES_PER_APPOINTMENT; n++) {
+                entityManager.persist(new TreatmentNote(appointment.getAppointmentId(), "TREATMENT_SUMMARY",
+                        "Note " + n, n == 0 ? staffId.toString() : "doc-1"));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void patientNotesCostTwoStatements() {
+        Statistics statistics = statistics();
+        List<TreatmentNoteResponse> notes = treatmentNoteService.getTreatmentNotesByPatient(patientId);
+
+        assertEquals(APPOINTMENTS * NOTES_PER_APPOINTMENT, notes.size());
+        assertTrue(statistics.getPrepareStatementCount() > 0 && statistics.getPrepareStatementCount() <= 2,
+                () -> statistics.getPrepareStatementCount() + " statements for " + notes.size() + " notes");
+
+        TreatmentNoteResponse byStaff = notes.stream()
+                .filter(n -> staffId.toString().equals(n.getCreatedBy())).findFirst().orElseThrow();
+        assertEquals("Nora Lim", byStaff.getCreatedByName());
+        assertEquals(patientId, byStaff.getPatientId());
+        assertEquals("Dr Tan", byStaff.getDoctorName());
+        assertEquals("Orchard Clinic", byStaff.getClinicName());
+    }
+
+    @Test
+    void appointmentNotesCostTwoStatements() {
+        Statistics statistics = statistics();
+        List<TreatmentNoteResponse> notes = treatmentNoteService.getTreatmentNotesByAppointment(firstAppointmentId);
+
+        assertEquals(NOTES_PER_APPOINTMENT, notes.size());
+        assertTrue(statistics.getPrepareStatementCount() > 0 && statistics.getPrepareStatementCount() <= 2,
+                () -> statistics.getPrepareStatementCount() + " statements for " + notes.size() + " notes");
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,111 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.dto.NotificationEvent;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Drives the EMAIL channel directly against GreenMail (a local SMTP stand-in, like
+ * MailHog in docker-compose) and reports emails per second next to the old
+ * one-send-per-record path. Run with:
+ * mvn test -DskipTests=false -Dtest=EmailNotificationChannelTests
+ */
+class EmailNotificationChannelTests {
+
+    private static final int EMAILS = 500;
+    private static final int BATCH_SIZE = 100;
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final ObjectMapper om = new ObjectMapper();
+    private JavaMailSenderImpl mailSender;
+    private EmailNotificationChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        channel = new EmailNotificationChannel(mailSender, new NotificationTemplates(), "noreply@clinic.local");
+    }
+
+    @Test
+    void batchesSendFasterThanOneConnectionPerEmail() throws Exception {
+        List<NotificationEvent> events = new ArrayList<>();
+        for (int i = 0; i < EMAILS; i++) {
+            events.add(event(i, "patient" + i + "@example.com"));
+        }
+
+        // Old path: one send, and so one SMTP connection, per record
+        long started = System.nanoTime();
+        for (NotificationEvent evt : events) {
+            mailSender.send(channel.toMessage(evt));
+        }
+        double singleRate = Benchmarks.perSecond(EMAILS, started);
+
+        int failed = 0;
+        started = System.nanoTime();
+        for (int from = 0; from < EMAILS; from += BATCH_SIZE) {
+            failed += channel.deliver(events.subList(from, Math.min(from + BATCH_SIZE, EMAILS))).size();
+        }
+        double batchRate = Benchmarks.perSecond(EMAILS, started);
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 2 * EMAILS));
+        assertEquals(0, failed);
+        Benchmarks.assertFaster("Notification email throughput", "emails/s", "one per connection", singleRate,
+                "batches of " + BATCH_SIZE, batchRate, 1);
+    }
+
+    @Test
+    void badEventsAreReportedAndTheRestSent() throws Exception {
+        NotificationEvent garbage = new NotificationEvent("N3_AWAY", "clinic-1", "appt-1", "pat-1", "EMAIL",
+                "{not json", 0L);
+        List<NotificationEvent> batch = List.of(event(0, "a@example.com"), garbage, event(2, "not an address"),
+                event(3, "b@example.com"), event(4, ""));
+
+        Map<Integer, Exception> failures = channel.deliver(batch);
+
+        assertEquals(List.of(1, 2), failures.keySet().stream().sorted().toList());
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 2));
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Appointment & Queue Update – SingHealth Clinic", received[0].getSubject());
+    }
+
+    @Test
+    void unreachableServerFailsTheWholeBatch() throws Exception {
+        mailSender.setPort(1);
+        List<NotificationEvent> batch = List.of(event(0, "a@example.com"), event(1, "b@example.com"));
+
+        assertThrows(MailSendException.class, () -> channel.deliver(batch));
+    }
+
+    private NotificationEvent event(long n, String email) throws Exception {
+        ObjectNode payload = om.createObjectNode();
+        payload.putObject("patient").put("email", email).put("name", "Patient " + n).put("queue_number", n);
+        payload.put("clinicName", "Orchard Clinic");
+        payload.put("doctorName", "Dr Tan");
+        return new NotificationEvent("N3_AWAY", "clinic-1", "appt-" + n, "pat-" + n, "EMAIL",
+                om.writeValueAsString(payload), 0L);
+    }
+}
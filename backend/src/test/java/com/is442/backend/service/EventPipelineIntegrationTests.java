@@ -0,0 +1,455 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongConsumer;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.util.EventCodec;
+import com.is442.backend.util.EventSerializer;
+
+/**
+ * End-to-end run of both event pipelines on an embedded Kafka broker, with GreenMail as
+ * the SMTP server:
+ * <ul>
+ * <li>queue events: KafkaQueueEventProducer, clinic-queue-updates, KafkaQueueEventConsumer,
+ * SSE fan-out;</li>
+ * <li>notifications: NotificationEventProducer, notification-events, NotificationDispatcher,
+ * EmailNotificationChannel.</li>
+ * </ul>
+ * Both are fed at a fixed rate for a fixed time, using the application's producer
+ * profile. The run checks that every event arrives exactly once, that each clinic's
+ * events arrive in the order they were published, and that p99 latency (publish call
+ * to SSE emit, or to SMTP accept) stays within each pipeline's bound. It writes a JSON
+ * report either way, so a pipeline regression can be compared across builds.
+ * <p>
+ * System properties, defaults in brackets: pipeline.queue-rate [200 events/s],
+ * pipeline.notification-rate [20 events/s], pipeline.seconds [5], pipeline.clinics [20],
+ * pipeline.queue-max-p99-ms [1000], pipeline.notification-max-p99-ms [5000],
+ * pipeline.report [target/event-pipeline-report.json]. The defaults hold on a single
+ * core, where each GreenMail session costs a few hundred milliseconds; raise the rates
+ * on a bigger machine.
+ * Run with: mvn test -DskipTests=false -Dtest=EventPipelineIntegrationTests
+ */
+class EventPipelineIntegrationTests {
+
+    private static final int QUEUE_RATE = Integer.getInteger("pipeline.queue-rate", 200);
+    private static final int NOTIFICATION_RATE = Integer.getInteger("pipeline.notification-rate", 20);
+    private static final int SECONDS = Integer.getInteger("pipeline.seconds", 5);
+    private static final int CLINICS = Integer.getInteger("pipeline.clinics", 20);
+    private static final long QUEUE_MAX_P99_MILLIS = Long.getLong("pipeline.queue-max-p99-ms", 1_000);
+    private static final long NOTIFICATION_MAX_P99_MILLIS = Long.getLong("pipeline.notification-max-p99-ms", 5_000);
+    private static final Path REPORT = Path.of(System.getProperty("pipeline.report", "target/event-pipeline-report.json"));
+
+    private static final String PRIME_KEY = "prime";
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, KafkaConfig.TOPIC_PARTITIONS,
+                KafkaConfig.QUEUE_UPDATES_TOPIC, KafkaConfig.NOTIFICATION_EVENTS_TOPIC);
+        broker.afterPropertiesSet();
+        primePartitions();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void queueAndNotificationEventsFlowEndToEndInOrder() throws Exception {
+        Stage queue = new Stage("queue", QUEUE_RATE, QUEUE_MAX_P99_MILLIS);
+        Stage notification = new Stage("notification", NOTIFICATION_RATE, NOTIFICATION_MAX_P99_MILLIS);
+        List<ConsumerRecord<?, ?>> deadLetters = Collections.synchronizedList(new ArrayList<>());
+
+        // Receiving side: the SSE fan-out for queue events, the dispatcher for notifications
+        QueueSseService sse = new QueueSseService() {
+            @Override
+            public void publishToClinic(String clinicId, String json) {
+                try {
+                    JsonNode evt = om.readTree(json);
+                    queue.received(clinicId, evt.get("version").asLong(), evt.get("ts").asLong());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        KafkaQueueEventConsumer queueConsumer = new KafkaQueueEventConsumer(sse);
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        EmailNotificationChannel email = new EmailNotificationChannel(mailSender, new NotificationTemplates(),
+                "noreply@clinic.local");
+        NotificationChannel timedEmail = new NotificationChannel() {
+            @Override
+            public String name() {
+                return email.name();
+            }
+
+            @Override
+            public Map<Integer, Exception> deliver(List<NotificationEvent> events) throws Exception {
+                Map<Integer, Exception> failures = email.deliver(events);
+                long now = System.currentTimeMillis();
+                for (int i = 0; i < events.size(); i++) {
+                    if (!failures.containsKey(i)) {
+                        notification.delivered(now - events.get(i).ts());
+                    }
+                }
+                return failures;
+            }
+        };
+        NotificationChannelWorker emailWorker = new NotificationChannelWorker(timedEmail, 4, 200, 10_000, 5, 30_000);
+        NotificationDispatcher dispatcher = new NotificationDispatcher(List.of(emailWorker),
+                (rec, e) -> deadLetters.add(rec));
+
+        ConcurrentMessageListenerContainer<String, byte[]> queueListener = container(
+                KafkaConfig.QUEUE_UPDATES_TOPIC, "pipeline-queue-sse",
+                (MessageListener<String, byte[]>) rec -> {
+                    if (!PRIME_KEY.equals(rec.key())) {
+                        queueConsumer.listen(rec.value());
+                    }
+                });
+        ConcurrentMessageListenerContainer<String, byte[]> notificationListener = container(
+                KafkaConfig.NOTIFICATION_EVENTS_TOPIC, "pipeline-notification-dispatcher",
+                (BatchMessageListener<String, byte[]>) records -> {
+                    List<ConsumerRecord<String, byte[]>> events = new ArrayList<>(records.size());
+                    for (ConsumerRecord<String, byte[]> rec : records) {
+                        if (!PRIME_KEY.equals(rec.key())) {
+                            events.add(rec);
+                            notification.received(rec.key(), sequenceOf(rec.value()), -1);
+                        }
+                    }
+                    dispatcher.onEvents(events);
+                });
+        notificationListener.getContainerProperties().getKafkaConsumerProperties()
+                .setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, "100");
+
+        KafkaTemplate<String, Object> template = template();
+        KafkaEventPublisher publisher = new KafkaEventPublisher(template, 10_000,
+                KafkaEventPublisher.OverflowPolicy.BLOCK, 200);
+        KafkaQueueEventProducer queueProducer = new KafkaQueueEventProducer(publisher, 10_000);
+        NotificationEventProducer notificationProducer = new NotificationEventProducer(publisher);
+        try {
+            queueListener.start();
+            notificationListener.start();
+            awaitFullAssignment(queueListener);
+            awaitFullAssignment(notificationListener);
+
+            Map<String, AtomicLong> versions = new HashMap<>();
+            Thread queueLoad = Thread.ofPlatform().name("pipeline-queue-load").start(() ->
+                    queue.offer(i -> {
+                        String clinicId = "clinic-" + (i % CLINICS);
+                        long version = versions.computeIfAbsent(clinicId, c -> new AtomicLong()).incrementAndGet();
+                        queueProducer.publishQueueEvent(new QueueEvent(i % 3 == 2 ? "NOW_SERVING" : "CHECKED_IN",
+                                clinicId, "appt-" + i, "pat-" + i, (int) (i % 10) + 1, version,
+                                System.currentTimeMillis(), version));
+                    }));
+            Map<String, AtomicLong> sequences = new HashMap<>();
+            Thread notificationLoad = Thread.ofPlatform().name("pipeline-notification-load").start(() ->
+                    notification.offer(i -> {
+                        String clinicId = "clinic-" + (i % CLINICS);
+                        long seq = sequences.computeIfAbsent(clinicId, c -> new AtomicLong()).incrementAndGet();
+                        notificationProducer.publish(notificationEvent(clinicId, seq));
+                    }));
+            queueLoad.join();
+            notificationLoad.join();
+
+            await(() -> queue.delivered() >= queue.sent() && notification.delivered() >= notification.sent()
+                    && greenMail.getReceivedMessages().length >= notification.sent());
+            // Anything extra (redelivery after a rebalance) would show up in this grace period
+            Thread.sleep(500);
+        } finally {
+            queueProducer.close();
+            template.destroy();
+            queueListener.stop();
+            notificationListener.stop();
+            dispatcher.close();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("run_at", Instant.now().toString());
+        report.put("seconds", SECONDS);
+        report.put("clinics", CLINICS);
+        report.put("partitions", KafkaConfig.TOPIC_PARTITIONS);
+        report.put("queue", queue.report());
+        Map<String, Object> notifications = notification.report();
+        notifications.put("emails_received", greenMail.getReceivedMessages().length);
+        notifications.put("dead_lettered", deadLetters.size());
+        report.put("notification", notifications);
+        report.put("publisher", publisher.getMetrics().get("topics"));
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        om.writer().with(SerializationFeature.INDENT_OUTPUT).writeValue(REPORT.toFile(), report);
+        Benchmarks.report("Event pipeline report (%s): %s", REPORT, om.writeValueAsString(report));
+
+        for (Stage stage : List.of(queue, notification)) {
+            assertEquals(stage.sent(), stage.delivered(), stage.name + " events delivered");
+            assertEquals(0, stage.duplicates.get(), stage.name + " events delivered twice");
+            assertEquals(0, stage.outOfOrder.get(), stage.name + " events out of order within a clinic");
+            long p99 = stage.percentile(99);
+            assertTrue(p99 <= stage.maxP99Millis, stage.name + " p99 " + p99 + " ms over " + stage.maxP99Millis + " ms");
+        }
+        assertEquals(notification.sent(), greenMail.getReceivedMessages().length);
+        assertTrue(deadLetters.isEmpty(), deadLetters::toString);
+        assertEquals(0, queueProducer.droppedCount());
+    }
+
+    /**
+     * One pipeline's load and what came out the other end. Order is checked where events
+     * leave Kafka: queue events by their clinic version at the SSE fan-out, notifications
+     * by a per-clinic sequence as the dispatcher receives them (its worker pool may then
+     * send a clinic's emails in parallel).
+     */
+    private static final class Stage {
+        final String name;
+        final int rate;
+        final long maxP99Millis;
+        final AtomicLong offered = new AtomicLong();
+        final AtomicLong duplicates = new AtomicLong();
+        final AtomicLong outOfOrder = new AtomicLong();
+        final Map<String, Long> lastSeen = new ConcurrentHashMap<>();
+        final List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+        volatile double achievedRate;
+
+        Stage(String name, int rate, long maxP99Millis) {
+            this.name = name;
+            this.rate = rate;
+            this.maxP99Millis = maxP99Millis;
+        }
+
+        /** Calls publish at {@code rate} per second for the run's duration. */
+        void offer(LongConsumer publish) {
+            long total = (long) rate * SECONDS;
+            long intervalNanos = 1_000_000_000L / rate;
+            long started = System.nanoTime();
+            for (long i = 0; i < total; i++) {
+                long wait = started + i * intervalNanos - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                publish.accept(i);
+                offered.incrementAndGet();
+            }
+            achievedRate = total / ((System.nanoTime() - started) / 1e9);
+        }
+
+        /**
+         * @param tsMillis when the event was published, or -1 when arriving here is not the
+         *                 end of this pipeline (latency is then recorded by delivered)
+         */
+        void received(String clinicId, long seq, long tsMillis) {
+            Long previous = lastSeen.put(clinicId, seq);
+            // Clinic events are handled one at a time by their partition's consumer thread
+            if (previous != null && seq == previous) {
+                duplicates.incrementAndGet();
+            } else if (previous != null && seq < previous) {
+                outOfOrder.incrementAndGet();
+            }
+            if (tsMillis >= 0) {
+                latencies.add(System.currentTimeMillis() - tsMillis);
+            }
+        }
+
+        void delivered(long latencyMillis) {
+            latencies.add(latencyMillis);
+        }
+
+        long sent() {
+            return offered.get();
+        }
+
+        long delivered() {
+            return latencies.size();
+        }
+
+        long percentile(int p) {
+            List<Long> sorted;
+            synchronized (latencies) {
+                sorted = new ArrayList<>(latencies);
+            }
+            if (sorted.isEmpty()) {
+                return 0;
+            }
+            Collections.sort(sorted);
+            int index = (int) Math.ceil(p / 100.0 * sorted.size()) - 1;
+            return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+        }
+
+        Map<String, Object> report() {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("target_rate", rate);
+            report.put("achieved_rate", Math.round(achievedRate));
+            report.put("sent", sent());
+            report.put("delivered", delivered());
+            report.put("duplicates", duplicates.get());
+            report.put("out_of_order", outOfOrder.get());
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", percentile(50));
+            latency.put("p95", percentile(95));
+            latency.put("p99", percentile(99));
+            latency.put("max", percentile(100));
+            report.put("latency_ms", latency);
+            report.put("max_p99_ms", maxP99Millis);
+            return report;
+        }
+    }
+
+    private NotificationEvent notificationEvent(String clinicId, long seq) {
+        ObjectNode payload = om.createObjectNode();
+        // One mailbox per clinic: GreenMail creates a user per new recipient
+        payload.putObject("patient").put("email", clinicId + "@example.com").put("phone", "91234567")
+                .put("name", "Patient").put("queue_number", seq);
+        payload.put("clinicName", "Clinic " + clinicId);
+        // The appointment id carries the clinic sequence the ordering check reads back
+        return new NotificationEvent("NOW_SERVING", clinicId, clinicId + ":" + seq, "pat-" + seq, "EMAIL",
+                payload.toString(), System.currentTimeMillis());
+    }
+
+    private static long sequenceOf(byte[] value) {
+        try {
+            String appointmentId = EventCodec.decodeNotificationEvent(value).appointmentId();
+            return Long.parseLong(appointmentId.substring(appointmentId.lastIndexOf(':') + 1));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable notification in pipeline run", e);
+        }
+    }
+
+    private static ConcurrentMessageListenerContainer<String, byte[]> container(String topic, String group,
+                                                                               Object listener) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+
+        ContainerProperties props = new ContainerProperties(topic);
+        props.setGroupId(group);
+        props.setMessageListener(listener);
+        ConcurrentMessageListenerContainer<String, byte[]> container =
+                new ConcurrentMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(config), props);
+        container.setConcurrency(4);
+        if (listener instanceof BatchMessageListener<?, ?>) {
+            props.setAckMode(ContainerProperties.AckMode.BATCH);
+        }
+        return container;
+    }
+
+    /**
+     * The producer profile from application.properties, except idempotence: on the
+     * embedded broker it adds a quarter of a second to every ack, which real brokers do
+     * not. One request in flight keeps each partition in order across retries instead.
+     */
+    private static KafkaTemplate<String, Object> template() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4");
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, 65536);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+    }
+
+    /** See KafkaProducerThroughputTests: the first sends would otherwise retry while partitions load. */
+    private static void primePartitions() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        config.put(ProducerConfig.ACKS_CONFIG, "1");
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+        try {
+            for (String topic : List.of(KafkaConfig.QUEUE_UPDATES_TOPIC, KafkaConfig.NOTIFICATION_EVENTS_TOPIC)) {
+                for (int partition = 0; partition < KafkaConfig.TOPIC_PARTITIONS; partition++) {
+                    template.send(topic, partition, PRIME_KEY, "{}").get(30, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            template.destroy();
+        }
+    }
+
+    /**
+     * Until every consumer thread holds partitions. The first members to join take all
+     * of them, and a rebalance as the rest join mid-run would show up as a latency spike.
+     */
+    private static void awaitFullAssignment(ConcurrentMessageListenerContainer<?, ?> container)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (container.getContainers().stream().anyMatch(c -> c.getAssignedPartitions() == null
+                || c.getAssignedPartitions().isEmpty())
+                || container.getAssignedPartitions().size() != KafkaConfig.TOPIC_PARTITIONS) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("Consumers never all got partitions: " + container.getAssignmentsByClientId());
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                return; // the assertions report what is missing
+            }
+            Thread.sleep(50);
+        }
+    }
+}
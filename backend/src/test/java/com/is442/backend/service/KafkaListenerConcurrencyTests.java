@@ -0,0 +1,178 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import com.is442.backend.Benchmarks;
+import com.is442.backend.config.KafkaConfig;
+
+/**
+ * Drains a 20-partition topic of clinic-keyed events with one consumer thread and then
+ * with several, each record costing a couple of milliseconds of I/O like an SMTP send.
+ * Checks that more threads drain faster, that every clinic's events still arrive in
+ * order, and that the lag report reaches zero. Run with:
+ * mvn test -DskipTests=false -Dtest=KafkaListenerConcurrencyTests
+ */
+class KafkaListenerConcurrencyTests {
+
+    private static final int CLINICS = 40;
+    private static final int EVENTS_PER_CLINIC = 50;
+    private static final int EVENTS = CLINICS * EVENTS_PER_CLINIC;
+    private static final long WORK_MILLIS = 2;
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, KafkaConfig.TOPIC_PARTITIONS, "listen-single", "listen-concurrent");
+        broker.afterPropertiesSet();
+        publish("listen-single");
+        publish("listen-concurrent");
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void concurrentListenersDrainFasterAndKeepClinicOrder() throws Exception {
+        double single = drain("listen-single", 1);
+        double concurrent = drain("listen-concurrent", KafkaConfig.TOPIC_PARTITIONS / 2);
+
+        Benchmarks.assertFaster("Listener throughput", "events/s", "1 thread", single,
+                KafkaConfig.TOPIC_PARTITIONS / 2 + " threads", concurrent, 2);
+    }
+
+    private double drain(String topic, int concurrency) throws Exception {
+        String group = topic + "-group";
+        CountDownLatch received = new CountDownLatch(EVENTS);
+        Map<String, Integer> lastSeq = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AtomicInteger outOfOrder = new AtomicInteger();
+
+        ContainerProperties props = new ContainerProperties(topic);
+        props.setGroupId(group);
+        props.setMessageListener((MessageListener<String, String>) (ConsumerRecord<String, String> rec) -> {
+            int seq = Integer.parseInt(rec.value());
+            Integer previous = lastSeq.put(rec.key(), seq);
+            if (previous != null && previous + 1 != seq) {
+                outOfOrder.incrementAndGet();
+            }
+            threads.add(Thread.currentThread().getName());
+            try {
+                Thread.sleep(WORK_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.countDown();
+        });
+
+        ConcurrentMessageListenerContainer<String, String> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory(), props);
+        container.setConcurrency(concurrency);
+        long started = System.nanoTime();
+        container.start();
+        try {
+            assertTrue(received.await(120, TimeUnit.SECONDS), "listener did not drain " + topic);
+            double rate = Benchmarks.perSecond(EVENTS, started);
+
+            assertEquals(0, outOfOrder.get(), "events for a clinic arrived out of order");
+            assertEquals(CLINICS, lastSeq.size());
+            lastSeq.values().forEach(seq -> assertEquals(EVENTS_PER_CLINIC - 1, seq));
+            assertTrue(concurrency == 1 ? threads.size() == 1 : threads.size() > 1, threads::toString);
+            assertLagDrains(topic, group);
+            return rate;
+        } finally {
+            container.stop();
+        }
+    }
+
+    private void assertLagDrains(String topic, String group) throws Exception {
+        KafkaConsumerLagService lag = new KafkaConsumerLagService(
+                new KafkaAdmin(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString())),
+                new KafkaListenerEndpointRegistry());
+        List<TopicPartition> partitions = IntStream.range(0, KafkaConfig.TOPIC_PARTITIONS)
+                .mapToObj(p -> new TopicPartition(topic, p)).toList();
+        try {
+            long deadline = System.currentTimeMillis() + 10_000;
+            Map<String, Object> result = lag.lagFor(group, partitions);
+            // Offsets are committed after each poll, so the last commit can trail the last record
+            while ((long) result.get("total_lag") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+                result = lag.lagFor(group, partitions);
+            }
+            assertEquals(0L, result.get("total_lag"));
+            assertEquals(KafkaConfig.TOPIC_PARTITIONS, ((List<?>) result.get("partitions")).size());
+        } finally {
+            lag.close();
+        }
+    }
+
+    private static DefaultKafkaConsumerFactory<String, String> consumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName());
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    private static void publish(String topic) throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Non-idempotent, as in KafkaProducerThroughputTests: partitions may still be loading
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        config.put(ProducerConfig.ACKS_CONFIG, "1");
+        config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 1);
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+        try {
+            List<CompletableFuture<?>> sends = new ArrayList<>(EVENTS);
+            for (int seq = 0; seq < EVENTS_PER_CLINIC; seq++) {
+                for (int clinic = 0; clinic < CLINICS; clinic++) {
+                    sends.add(template.send(topic, "clinic-" + clinic, String.valueOf(seq)));
+                }
+            }
+            // Drains are timed from a full topic
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(60, TimeUnit.SECONDS);
+        } finally {
+            template.destroy();
+        }
+    }
+}
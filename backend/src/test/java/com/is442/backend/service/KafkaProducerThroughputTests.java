@@ -0,0 +1,155 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import com.is442.backend.Benchmarks;
+/**
+ * Publishes queue-event sized records through KafkaEventPublisher to an embedded
+ * broker, once with the old producer settings (serializers only) and once with the
+ * application.properties producer profile, and checks the tuned profile is faster.
+ * Also checks the DROP overflow policy keeps the in-flight buffer bounded.
+ * Run with: mvn test -DskipTests=false -Dtest=KafkaProducerThroughputTests
+ */
+class KafkaProducerThroughputTests {
+
+    private static final int RECORDS = 100_000;
+    private static final int CLINICS = 20;
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    private static final String[] TOPICS = {"bench-warmup", "bench-default", "bench-tuned", "bench-overflow"};
+
+    @BeforeAll
+    static void startBroker() throws Exception {
+        // One topic per producer: the embedded broker hands every producer id 0, so a second
+        // idempotent producer on the same partitions would be rejected as out of sequence
+        broker = new EmbeddedKafkaKraftBroker(1, CLINICS, TOPICS);
+        broker.afterPropertiesSet();
+        primePartitions();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void tunedProducerOutpublishesDefaults() throws Exception {
+        // Warm up broker and JIT so the first measured run is not penalised
+        publish(Map.of(), "bench-warmup", 10_000);
+
+        double baseline = publish(Map.of(), "bench-default", RECORDS);
+        double tuned = publish(Map.of(
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+                ProducerConfig.BATCH_SIZE_CONFIG, 65536,
+                ProducerConfig.LINGER_MS_CONFIG, 5,
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5), "bench-tuned", RECORDS);
+
+        Benchmarks.assertFaster("Kafka producer throughput", "records/s", "defaults", baseline,
+                "tuned profile", tuned, 1);
+    }
+
+    @Test
+    void dropPolicyBoundsInFlightRecords() throws Exception {
+        KafkaTemplate<String, Object> template = template(Map.of());
+        try {
+            KafkaEventPublisher publisher = new KafkaEventPublisher(template, 50,
+                    KafkaEventPublisher.OverflowPolicy.DROP, 0);
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                sends.add(publisher.send(record("bench-overflow", i)));
+                assertTrue((int) publisher.getMetrics().get("in_flight") <= 50);
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0]))
+                    .exceptionally(e -> null).get(60, TimeUnit.SECONDS);
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> topic = (Map<String, Object>) ((Map<String, Object>) publisher.getMetrics()
+                    .get("topics")).get("bench-overflow");
+            long acked = (long) topic.get("acked");
+            long dropped = (long) topic.get("dropped");
+            Benchmarks.report("DROP policy with 50 in flight: %d acked, %d dropped", acked, dropped);
+            assertEquals(20_000, acked + dropped + (long) topic.get("failed"));
+            assertTrue(acked > 0);
+            assertEquals(0, publisher.getMetrics().get("in_flight"));
+        } finally {
+            template.destroy();
+        }
+    }
+
+    private double publish(Map<String, Object> overrides, String topic, int count) throws Exception {
+        KafkaTemplate<String, Object> template = template(overrides);
+        try {
+            KafkaEventPublisher publisher = new KafkaEventPublisher(template, 10_000,
+                    KafkaEventPublisher.OverflowPolicy.BLOCK, 30_000);
+            List<CompletableFuture<?>> sends = new ArrayList<>(count);
+            long started = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                sends.add(publisher.send(record(topic, i)));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(120, TimeUnit.SECONDS);
+            return Benchmarks.perSecond(count, started);
+        } finally {
+            template.destroy();
+        }
+    }
+
+    /**
+     * The controller reports leaders before the broker has loaded every partition, and
+     * an idempotent producer turns the NOT_LEADER retries of that window into
+     * out-of-sequence failures. Prime each partition with a plain producer first.
+     */
+    private static void primePartitions() throws Exception {
+        KafkaTemplate<String, Object> template = template(Map.of(
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false,
+                ProducerConfig.ACKS_CONFIG, "1"));
+        try {
+            for (String topic : TOPICS) {
+                for (int partition = 0; partition < CLINICS; partition++) {
+                    template.send(topic, partition, "prime", "{}").get(30, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            template.destroy();
+        }
+    }
+
+    private static KafkaTemplate<String, Object> template(Map<String, Object> overrides) {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.putAll(overrides);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(config);
+        return new KafkaTemplate<>(factory);
+    }
+
+    private static ProducerRecord<String, Object> record(String topic, int i) {
+        String clinicId = "clinic-" + (i % CLINICS);
+        String json = "{\"type\":\"POSITION_CHANGED\",\"clinicId\":\"" + clinicId
+                + "\",\"appointmentId\":\"6f1c2a4e-0000-4000-8000-" + String.format("%012d", i)
+                + "\",\"patientId\":\"2b7d9e10-0000-4000-8000-" + String.format("%012d", i % 5000)
+                + "\",\"position\":" + (i % 40) + ",\"ts\":" + (1_735_000_000_000L + i) + "}";
+        return new ProducerRecord<>(topic, clinicId, json);
+    }
+}
@@ -0,0 +1,92 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.SendResult;
+
+import com.is442.backend.Benchmarks;
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.dto.QueueEvent;
+
+/**
+ * Stalls the publisher (as a full in-flight buffer or missing broker metadata would) and
+ * checks that publishing a queue event still returns at once, that events reach the
+ * publisher in order and keyed by clinic, and that a full hand-off buffer drops and
+ * counts instead of blocking. No broker needed.
+ * Run with: mvn test -DskipTests=false -Dtest=KafkaQueueEventProducerTests
+ */
+class KafkaQueueEventProducerTests {
+
+    private final CountDownLatch unstall = new CountDownLatch(1);
+    private final List<ProducerRecord<String, Object>> sent = new CopyOnWriteArrayList<>();
+    private final KafkaEventPublisher stalledPublisher = new KafkaEventPublisher(null, 10,
+            KafkaEventPublisher.OverflowPolicy.BLOCK, 200) {
+        @Override
+        public CompletableFuture<SendResult<String, Object>> send(ProducerRecord<String, Object> record) {
+            try {
+                unstall.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.add(record);
+            return CompletableFuture.completedFuture(null);
+        }
+    };
+
+    @Test
+    void publishingDoesNotWaitForTheBroker() throws Exception {
+        KafkaQueueEventProducer producer = new KafkaQueueEventProducer(stalledPublisher, 100);
+        long started = System.nanoTime();
+        for (long version = 1; version <= 50; version++) {
+            producer.publishQueueEvent(event("clinic-" + (version % 3), version), "doctor-1");
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        Benchmarks.report("50 queue events handed off in %d ms with the publisher stalled", elapsedMillis);
+        assertTrue(elapsedMillis < 200, "hand-off took " + elapsedMillis + " ms");
+        assertTrue(sent.isEmpty());
+
+        unstall.countDown();
+        producer.close();
+
+        assertEquals(50, sent.size());
+        for (int i = 0; i < sent.size(); i++) {
+            ProducerRecord<String, Object> record = sent.get(i);
+            QueueEvent evt = (QueueEvent) record.value();
+            assertEquals(KafkaConfig.QUEUE_UPDATES_TOPIC, record.topic());
+            assertEquals(evt.clinicId(), record.key());
+            assertEquals(i + 1L, evt.version());
+            assertEquals("doctor-1", new String(record.headers().lastHeader("doctorId").value()));
+        }
+        assertEquals(0, producer.droppedCount());
+    }
+
+    @Test
+    void fullBufferDropsAndCounts() throws Exception {
+        KafkaQueueEventProducer producer = new KafkaQueueEventProducer(stalledPublisher, 5);
+        // One event held by the stalled publishing thread, five waiting, the rest dropped
+        producer.publishQueueEvent(event("clinic-1", 1));
+        Thread.sleep(50);
+        for (long version = 2; version <= 10; version++) {
+            producer.publishQueueEvent(event("clinic-1", version));
+        }
+        assertEquals(4, producer.droppedCount());
+
+        unstall.countDown();
+        producer.close();
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L),
+                sent.stream().map(r -> ((QueueEvent) r.value()).version()).toList());
+    }
+
+    private static QueueEvent event(String clinicId, long version) {
+        return new QueueEvent("CHECKED_IN", clinicId, null, null, 1, version, System.currentTimeMillis(), version);
+    }
+}
@@ -0,0 +1,144 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.util.EventCodec;
+import com.is442.backend.util.EventSerializer;
+
+/**
+ * Dead-letters notifications through the application's DeadLetterPublishingRecoverer
+ * on an embedded Kafka broker, then replays them with NotificationDeadLetterReplayer:
+ * checks replays are bounded by max, resume from the committed offsets, skip records
+ * that do not decode and send the rest back with their original key and value.
+ * Run with: mvn test -DskipTests=false -Dtest=NotificationDeadLetterReplayerTests
+ */
+class NotificationDeadLetterReplayerTests {
+
+    private static final int PARTITIONS = 2;
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS,
+                KafkaConfig.NOTIFICATION_EVENTS_TOPIC, KafkaConfig.NOTIFICATION_EVENTS_DLT);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void replaysDeadLettersBackToTheTopic() throws Exception {
+        KafkaTemplate<String, Object> template = template();
+        try {
+            DeadLetterPublishingRecoverer recoverer = new KafkaConfig().notificationDeadLetterRecoverer(template);
+            byte[] first = EventCodec.encode(event("appt-1"));
+            byte[] second = EventCodec.encode(event("appt-2"));
+            TimeoutException reason = new TimeoutException("EMAIL delivery took longer than 30000 ms");
+            recoverer.accept(new ConsumerRecord<>(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, 0, 0L, "clinic-1", first), reason);
+            recoverer.accept(new ConsumerRecord<>(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, 0, 1L, "clinic-1",
+                    "{not json".getBytes(StandardCharsets.UTF_8)), reason);
+            recoverer.accept(new ConsumerRecord<>(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, 1, 0L, "clinic-2", second), reason);
+
+            NotificationDeadLetterReplayer replayer = new NotificationDeadLetterReplayer(consumerFactory(),
+                    new KafkaEventPublisher(template, 100, KafkaEventPublisher.OverflowPolicy.BLOCK, 200));
+
+            Map<String, Object> partial = replayer.replay(1);
+            assertEquals(1, partial.get("replayed"));
+            assertEquals(2L, partial.get("remaining"));
+
+            Map<String, Object> rest = replayer.replay(10);
+            assertEquals(1, rest.get("replayed"));
+            assertEquals(1, rest.get("skipped_undecodable"));
+            assertEquals(0L, rest.get("remaining"));
+
+            Map<String, Object> again = replayer.replay(10);
+            assertEquals(0, again.get("replayed"));
+            assertEquals(0, again.get("skipped_undecodable"));
+
+            Map<String, byte[]> republished = new HashMap<>();
+            for (ConsumerRecord<Object, Object> rec : readAll(KafkaConfig.NOTIFICATION_EVENTS_TOPIC, 2)) {
+                republished.put((String) rec.key(), (byte[]) rec.value());
+            }
+            assertEquals(2, republished.size());
+            assertArrayEquals(first, republished.get("clinic-1"));
+            assertArrayEquals(second, republished.get("clinic-2"));
+        } finally {
+            template.destroy();
+        }
+    }
+
+    private static NotificationEvent event(String appointmentId) {
+        return new NotificationEvent("NOW_SERVING", "clinic-1", appointmentId, "pat-1", "EMAIL",
+                "{\"patient\":{\"email\":\"" + appointmentId + "@example.com\"}}", 0L);
+    }
+
+    private static List<ConsumerRecord<Object, Object>> readAll(String topic, int expected) {
+        List<ConsumerRecord<Object, Object>> records = new ArrayList<>();
+        try (Consumer<Object, Object> consumer = consumerFactory().createConsumer("replay-check", null)) {
+            List<TopicPartition> partitions = new ArrayList<>();
+            for (int p = 0; p < PARTITIONS; p++) {
+                partitions.add(new TopicPartition(topic, p));
+            }
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (records.size() < expected && System.currentTimeMillis() < deadline) {
+                consumer.poll(Duration.ofMillis(200)).forEach(records::add);
+            }
+            // Anything replayed twice would turn up here
+            consumer.poll(Duration.ofMillis(500)).forEach(records::add);
+        }
+        assertEquals(expected, records.size(), "records on " + topic);
+        return records;
+    }
+
+    private static DefaultKafkaConsumerFactory<Object, Object> consumerFactory() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        return new DefaultKafkaConsumerFactory<>(config);
+    }
+
+    private static KafkaTemplate<String, Object> template() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventSerializer.class);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false);
+        config.put(ProducerConfig.ACKS_CONFIG, "all");
+        return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(config));
+    }
+}
@@ -0,0 +1,312 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.service.NotificationChannelWorker.BreakerState;
+import com.is442.backend.util.EventCodec;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Drives NotificationDispatcher against local stand-ins for every channel: GreenMail for
+ * EMAIL, a JDK HttpServer as the SMS and WEBHOOK gateway, and the log-only PUSH
+ * channel. A stalled SMTP server is simulated with a channel that sleeps.
+ * Run with: mvn test -DskipTests=false -Dtest=NotificationDispatcherTests
+ */
+class NotificationDispatcherTests {
+
+    @RegisterExtension
+    static final GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final List<ConsumerRecord<?, ?>> deadLetters = Collections.synchronizedList(new ArrayList<>());
+    private final List<Exception> deadLetterReasons = Collections.synchronizedList(new ArrayList<>());
+    private final ConcurrentLinkedQueue<String> gatewayRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicLong lastGatewayNanos = new AtomicLong();
+    private final List<NotificationChannelWorker> workers = new ArrayList<>();
+    private HttpServer gateway;
+    private long offset;
+
+    @BeforeEach
+    void startGateway() throws IOException {
+        gateway = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        gateway.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            gatewayRequests.add(exchange.getRequestHeaders().getFirst("X-Notification-Channel"));
+            lastGatewayNanos.set(System.nanoTime());
+            // The webhook gateway refuses one appointment
+            int status = body.contains("\"appt-refused\"") ? 500 : 202;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        gateway.start();
+    }
+
+    @AfterEach
+    void stop() {
+        workers.forEach(NotificationChannelWorker::close);
+        gateway.stop(0);
+    }
+
+    @Test
+    void eachChannelReachesItsStandIn() throws Exception {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        HttpNotificationChannel push = new HttpNotificationChannel("PUSH", "", Duration.ofSeconds(2));
+        NotificationDispatcher dispatcher = dispatcher(
+                worker(new EmailNotificationChannel(mailSender, new NotificationTemplates(), "noreply@clinic.local"), 2, 10, 5_000),
+                worker(new HttpNotificationChannel("SMS", gatewayUrl("/sms"), Duration.ofSeconds(2)), 2, 10, 5_000),
+                worker(push, 1, 10, 5_000),
+                worker(new HttpNotificationChannel("WEBHOOK", gatewayUrl("/webhook"), Duration.ofSeconds(2)), 1, 10, 5_000));
+
+        ConsumerRecord<String, byte[]> garbage = new ConsumerRecord<>("notification-events", 0, offset++, "k",
+                "{not json".getBytes(StandardCharsets.UTF_8));
+        ConsumerRecord<String, byte[]> fax = record("FAX", "appt-fax");
+        ConsumerRecord<String, byte[]> refused = record("WEBHOOK", "appt-refused");
+        // Written as JSON before the switch to the binary format
+        ConsumerRecord<String, byte[]> json = new ConsumerRecord<>("notification-events", 0, offset++, "clinic-1",
+                EventCodec.encode(event("sms", "appt-json"), EventCodec.Format.JSON));
+        dispatcher.onEvents(List.of(record("EMAIL", "appt-1"), record("SMS", "appt-2"), record("PUSH", "appt-3"),
+                record("WEBHOOK", "appt-4"), garbage, fax, refused, json, record("email", "appt-5")));
+
+        // The listener returns only once every channel has settled its share, so the
+        // offsets committed after it never cover an event still in flight
+        assertEquals(2, greenMail.getReceivedMessages().length);
+        assertEquals(4, gatewayRequests.size());
+        assertEquals(List.of(garbage, fax, refused), deadLetters);
+        assertEquals(2, gatewayRequests.stream().filter("SMS"::equals).count());
+        assertEquals(2, gatewayRequests.stream().filter("WEBHOOK"::equals).count());
+        assertEquals(1, push.standInDeliveries());
+
+        Map<String, Object> metrics = dispatcher.getMetrics();
+        assertEquals(List.of("EMAIL", "SMS", "PUSH", "WEBHOOK"), new ArrayList<>(metrics.keySet()));
+        assertEquals(1L, ((Map<?, ?>) metrics.get("WEBHOOK")).get("failed"));
+    }
+
+    @Test
+    void stalledSmtpHoldsThePollOnlyUntilTheChannelGivesUp() throws Exception {
+        long smtpStallMillis = 2_000;
+        long emailTimeoutMillis = 200;
+        int polls = 5;
+        int smsPerPoll = 20;
+        AtomicInteger smtpAttempts = new AtomicInteger();
+        NotificationChannel stalledEmail = new StubChannel("EMAIL", events -> {
+            smtpAttempts.incrementAndGet();
+            Thread.sleep(smtpStallMillis);
+            return Map.of();
+        });
+        NotificationChannelWorker email = worker(stalledEmail, 1, 1, emailTimeoutMillis, 2, 60_000);
+        NotificationDispatcher dispatcher = dispatcher(email,
+                worker(new HttpNotificationChannel("SMS", gatewayUrl("/sms"), Duration.ofSeconds(2)), 4, 10, 5_000));
+
+        long started = System.nanoTime();
+        long smsMillis = 0;
+        for (int p = 0; p < polls; p++) {
+            List<ConsumerRecord<String, byte[]>> poll = new ArrayList<>();
+            poll.add(record("EMAIL", "appt-email-" + p));
+            for (int i = 0; i < smsPerPoll; i++) {
+                poll.add(record("SMS", "appt-" + p + "-" + i));
+            }
+            dispatcher.onEvents(poll);
+            if (p == 0) {
+                // When the gateway saw the poll's last SMS, rather than when the listener returned
+                smsMillis = (lastGatewayNanos.get() - started) / 1_000_000;
+            }
+        }
+        long listenerMillis = (System.nanoTime() - started) / 1_000_000;
+        long firstPollSmsMillis = smsMillis;
+
+        Benchmarks.report("Stalled SMTP (%d ms per batch, %d ms timeout): listener settled %d polls in %d ms, "
+                        + "first poll's SMS done in %d ms (waiting on SMTP would take %d ms)",
+                smtpStallMillis, emailTimeoutMillis, polls, listenerMillis, smsMillis, polls * smtpStallMillis);
+        // Two polls wait out the EMAIL timeout, then the open circuit fails email at once
+        assertTrue(listenerMillis < smtpStallMillis, () -> "listener waited on SMTP: " + listenerMillis + " ms");
+        assertTrue(smsMillis < smtpStallMillis, () -> "SMS waited on SMTP: " + firstPollSmsMillis + " ms");
+        assertEquals(polls * smsPerPoll, gatewayRequests.size());
+        // Every email is dead-lettered by the time its poll returns: timed out or circuit open
+        assertEquals(polls, deadLetters.size());
+        assertTrue(deadLetters.stream().allMatch(rec -> rec.key().equals("EMAIL")));
+        assertTrue(deadLetterReasons.stream().anyMatch(TimeoutException.class::isInstance));
+        assertTrue(smtpAttempts.get() <= 2, () -> smtpAttempts + " SMTP attempts after the circuit opened");
+        assertEquals(BreakerState.OPEN, email.breakerState());
+    }
+
+    @Test
+    void unstorableDeadLetterFailsTheBatchFromThatRecord() throws Exception {
+        List<ConsumerRecord<?, ?>> stored = new ArrayList<>();
+        NotificationDispatcher dispatcher = new NotificationDispatcher(
+                List.of(worker(new HttpNotificationChannel("SMS", gatewayUrl("/sms"), Duration.ofSeconds(2)), 1, 10, 5_000)),
+                (rec, e) -> {
+                    if (rec.key().equals("FAX")) {
+                        throw new IllegalStateException("DLT unavailable");
+                    }
+                    stored.add(rec);
+                });
+        ConsumerRecord<String, byte[]> garbage = new ConsumerRecord<>("notification-events", 0, offset++, "k",
+                "{not json".getBytes(StandardCharsets.UTF_8));
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class,
+                () -> dispatcher.onEvents(List.of(record("SMS", "appt-1"), garbage, record("FAX", "appt-fax"),
+                        record("SMS", "appt-2"), garbage)));
+
+        // Redelivery starts at the fax: the garbage before it is dead-lettered once and the
+        // garbage after it is left for the redelivery. Both SMS went out, so appt-2 is sent
+        // again when the poll is redelivered (at-least-once)
+        assertEquals(2, failure.getIndex());
+        assertEquals(List.of(garbage), stored);
+        assertEquals(2, gatewayRequests.size());
+    }
+
+    @Test
+    void fullQueueFailsFast() throws Exception {
+        NotificationChannelWorker worker = worker(new StubChannel("SMS", events -> {
+            Thread.sleep(500);
+            return Map.of();
+        }), 1, 1, 5_000);
+        List<CompletableFuture<Map<Integer, Exception>>> results = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            results.add(worker.submit(List.of(event("SMS", "appt-" + i))));
+        }
+
+        // One running, one queued, the third rejected without waiting
+        assertTrue(results.get(2).isDone());
+        assertInstanceOf(RejectedExecutionException.class, results.get(2).join().get(0));
+        assertEquals(Map.of(), results.get(0).join());
+        assertEquals(Map.of(), results.get(1).join());
+        assertEquals(1L, worker.getMetrics().get("rejected"));
+    }
+
+    @Test
+    void circuitOpensAfterFailuresAndClosesOnASuccessfulTrial() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        NotificationChannelWorker worker = worker(new StubChannel("PUSH", events -> {
+            if (calls.incrementAndGet() <= 2) {
+                throw new IOException("push service unavailable");
+            }
+            return Map.of();
+        }), 1, 10, 5_000, 2, 300);
+        CompletableFuture<Map<Integer, Exception>> a = worker.submit(List.of(event("PUSH", "a")));
+        CompletableFuture<Map<Integer, Exception>> b = worker.submit(List.of(event("PUSH", "b")));
+        assertInstanceOf(IOException.class, a.join().get(0));
+        assertInstanceOf(IOException.class, b.join().get(0));
+        assertEquals(BreakerState.OPEN, worker.breakerState());
+
+        CompletableFuture<Map<Integer, Exception>> c = worker.submit(List.of(event("PUSH", "c")));
+        assertTrue(c.isDone());
+        assertInstanceOf(IllegalStateException.class, c.join().get(0));
+        assertEquals(2, calls.get());
+
+        Thread.sleep(350);
+        assertEquals(Map.of(), worker.submit(List.of(event("PUSH", "d"))).join());
+        assertEquals(BreakerState.CLOSED, worker.breakerState());
+        assertEquals(1L, worker.getMetrics().get("delivered"));
+    }
+
+    @Test
+    void closeSettlesABatchStuckInASendThatIgnoresInterrupts() throws Exception {
+        NotificationChannelWorker worker = worker(new StubChannel("EMAIL", events -> {
+            if (events.get(0).appointmentId().equals("slow")) {
+                Thread.sleep(250);
+                return Map.of();
+            }
+            // Like a JavaMail write to a hung server before its socket timeout
+            long until = System.nanoTime() + 1_000_000_000L;
+            while (System.nanoTime() < until) {
+                Thread.interrupted();
+                LockSupport.parkNanos(until - System.nanoTime());
+            }
+            return Map.of();
+        }), 1, 10, 300);
+        CompletableFuture<Map<Integer, Exception>> slow = worker.submit(List.of(event("EMAIL", "slow")));
+        CompletableFuture<Map<Integer, Exception>> stuck = worker.submit(List.of(event("EMAIL", "stuck")));
+
+        // The stuck batch starts 250 ms into the 300 ms shutdown wait, so its own timeout
+        // would only fire after the timer is gone
+        worker.close();
+
+        assertEquals(Map.of(), slow.join());
+        assertTrue(stuck.isDone());
+        assertInstanceOf(IllegalStateException.class, stuck.join().get(0));
+    }
+
+    private interface Delivery {
+        Map<Integer, Exception> deliver(List<NotificationEvent> events) throws Exception;
+    }
+
+    private record StubChannel(String name, Delivery delivery) implements NotificationChannel {
+        @Override
+        public Map<Integer, Exception> deliver(List<NotificationEvent> events) throws Exception {
+            return delivery.deliver(events);
+        }
+    }
+
+    private NotificationDispatcher dispatcher(NotificationChannelWorker... channelWorkers) {
+        return new NotificationDispatcher(List.of(channelWorkers), (rec, e) -> {
+            deadLetterReasons.add(e);
+            deadLetters.add(rec);
+        });
+    }
+
+    private NotificationChannelWorker worker(NotificationChannel channel, int threads, int queueCapacity, long timeoutMillis) {
+        return worker(channel, threads, queueCapacity, timeoutMillis, 5, 30_000);
+    }
+
+    private NotificationChannelWorker worker(NotificationChannel channel, int threads, int queueCapacity, long timeoutMillis,
+                                             int breakerFailures, long breakerOpenMillis) {
+        NotificationChannelWorker worker = new NotificationChannelWorker(channel, threads, queueCapacity, timeoutMillis,
+                breakerFailures, breakerOpenMillis);
+        workers.add(worker);
+        return worker;
+    }
+
+    private String gatewayUrl(String path) {
+        return "http://localhost:" + gateway.getAddress().getPort() + path;
+    }
+
+    private ConsumerRecord<String, byte[]> record(String channel, String appointmentId) throws Exception {
+        return new ConsumerRecord<>("notification-events", 0, offset++, channel.toUpperCase(),
+                EventCodec.encode(event(channel, appointmentId)));
+    }
+
+    private NotificationEvent event(String channel, String appointmentId) throws Exception {
+        ObjectNode payload = om.createObjectNode();
+        payload.putObject("patient").put("email", appointmentId + "@example.com").put("phone", "91234567")
+                .put("name", "Patient").put("queue_number", 7);
+        return new NotificationEvent("NOW_SERVING", "clinic-1", appointmentId, "pat-1", channel,
+                om.writeValueAsString(payload), 0L);
+    }
+}
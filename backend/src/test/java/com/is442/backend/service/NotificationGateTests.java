@@ -0,0 +1,126 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.is442.backend.config.QueueScriptsConfig;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.service.NotificationGate.Decision;
+
+/**
+ * Runs the notification gate script against a real Redis: repeated N3_AWAY events for
+ * one appointment, a patient over the rate limit and a clinic burst past its token
+ * bucket. Needs Docker; run with: mvn test -DskipTests=false -Dtest=NotificationGateTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class NotificationGateTests {
+
+    @Container
+    static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private final List<NotificationEvent> published = new ArrayList<>();
+    private final NotificationEventProducer producer = new NotificationEventProducer(null) {
+        @Override
+        public void publish(NotificationEvent evt) {
+            published.add(evt);
+        }
+    };
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+
+    @BeforeEach
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.getConnectionFactory().getConnection().serverCommands().flushAll();
+    }
+
+    @AfterEach
+    void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void repeatedNotificationForTheSameAppointmentIsDropped() {
+        NotificationGate gate = gate(5, 200, 20);
+        String appointment = UUID.randomUUID().toString();
+        String patient = UUID.randomUUID().toString();
+
+        assertEquals(Decision.SENT, gate.publish(event("N3_AWAY", "clinic-1", appointment, patient)));
+        // checkAndNotifyN3Away after a callNext or fast-track lands on the same patient again
+        assertEquals(Decision.DUPLICATE, gate.publish(event("N3_AWAY", "clinic-1", appointment, patient)));
+        assertEquals(Decision.SENT, gate.publish(event("NOW_SERVING", "clinic-1", appointment, patient)));
+
+        assertEquals(2, published.size());
+        assertEquals(1, gate.count(Decision.DUPLICATE));
+    }
+
+    @Test
+    void patientOverTheLimitIsDropped() {
+        NotificationGate gate = gate(3, 200, 20);
+        String patient = UUID.randomUUID().toString();
+        for (int i = 0; i < 5; i++) {
+            gate.publish(event("N3_AWAY", "clinic-1", UUID.randomUUID().toString(), patient));
+        }
+        // Another patient is unaffected
+        gate.publish(event("N3_AWAY", "clinic-1", UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+
+        assertEquals(4, published.size());
+        assertEquals(2, gate.count(Decision.PATIENT_RATE_LIMITED));
+    }
+
+    @Test
+    void clinicBurstIsThrottledThenRefills() throws Exception {
+        NotificationGate gate = gate(5, 10, 2);
+        for (int i = 0; i < 15; i++) {
+            gate.publish(event("NOW_SERVING", "clinic-7", UUID.randomUUID().toString(), UUID.randomUUID().toString()));
+        }
+        assertEquals(10, published.size());
+        assertEquals(5, gate.count(Decision.CLINIC_THROTTLED));
+        // Other clinics have their own bucket
+        assertEquals(Decision.SENT,
+                gate.publish(event("NOW_SERVING", "clinic-8", UUID.randomUUID().toString(), UUID.randomUUID().toString())));
+
+        Thread.sleep(600);
+        assertEquals(Decision.SENT,
+                gate.publish(event("NOW_SERVING", "clinic-7", UUID.randomUUID().toString(), UUID.randomUUID().toString())));
+    }
+
+    @Test
+    void redisOutagePublishesUnchecked() {
+        LettuceConnectionFactory down = new LettuceConnectionFactory("localhost", 1);
+        down.afterPropertiesSet();
+        try {
+            NotificationGate gate = new NotificationGate(new StringRedisTemplate(down),
+                    new QueueScriptsConfig().notificationGateScript(), producer, 60_000, 5, 60_000, 200, 20);
+            assertEquals(Decision.SENT, gate.publish(event("N3_AWAY", "clinic-1", "a", "p")));
+            assertEquals(1, published.size());
+            assertEquals(1L, gate.getMetrics().get("redis_errors"));
+        } finally {
+            down.destroy();
+        }
+    }
+
+    private NotificationGate gate(int patientLimit, int clinicCapacity, double refillPerSecond) {
+        return new NotificationGate(redis, new QueueScriptsConfig().notificationGateScript(), producer,
+                60_000, patientLimit, 60_000, clinicCapacity, refillPerSecond);
+    }
+
+    private static NotificationEvent event(String type, String clinicId, String appointmentId, String patientId) {
+        return new NotificationEvent(type, clinicId, appointmentId, patientId, "EMAIL", "{}", System.currentTimeMillis());
+    }
+}
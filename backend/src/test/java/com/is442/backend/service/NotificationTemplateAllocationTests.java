@@ -0,0 +1,164 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.service.NotificationTemplates.PayloadField;
+import com.is442.backend.util.MessageTemplate;
+
+/**
+ * Checks the compiled templates render exactly what the String.format email body and
+ * the escapeJson payload builder produced, then compares bytes allocated per message
+ * by the calling thread. Run with:
+ * mvn test -DskipTests=false -Dtest=NotificationTemplateAllocationTests
+ */
+class NotificationTemplateAllocationTests {
+
+    private static final int WARMUP = 50_000;
+    private static final int RUNS = 200_000;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final NotificationTemplates templates = new NotificationTemplates();
+    private final EmailNotificationChannel email = new EmailNotificationChannel(null, templates, "noreply@clinic.local");
+
+    @Test
+    void templatesMatchTheOldOutput() throws Exception {
+        for (String type : List.of("N3_AWAY", "NOW_SERVING")) {
+            String payload = renderPayload(type, "Tan \"Ah\" Wei\\Jr", "9123\t4567");
+            assertEquals(oldPayload(type, "Tan \"Ah\" Wei\\Jr", "9123\t4567"), payload);
+
+            NotificationEvent evt = event(type, payload);
+            assertEquals(oldBody(evt, om.readTree(payload)), email.buildTemplateBody(evt, om.readTree(payload)));
+        }
+        NotificationEvent other = event("CANCELLED", "{\"body\":\"Your appointment was cancelled.\"}");
+        assertEquals(oldBody(other, om.readTree(other.payload())),
+                email.buildTemplateBody(other, om.readTree(other.payload())));
+    }
+
+    @Test
+    void controlCharactersAreEscapedAndUnknownPlaceholdersRejected() throws Exception {
+        String payload = renderPayload("N3_AWAY", "Name\u0001", "");
+        assertEquals("Name\u0001", om.readTree(payload).path("patient").path("name").asText());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MessageTemplate.compile("t", "Hi {{patientNmae}}", List.of("patientName"), MessageTemplate.Escaping.NONE));
+        assertThrows(IllegalArgumentException.class, () -> templates.renderPayload("UNKNOWN", new CharSequence[8]));
+    }
+
+    @Test
+    void compiledTemplatesAllocateLess() throws Exception {
+        String payload = renderPayload("NOW_SERVING", "Tan Wei", "91234567");
+        NotificationEvent evt = event("NOW_SERVING", payload);
+        JsonNode tree = om.readTree(payload);
+
+        Benchmarks.Op old = () -> oldBody(evt, tree).length() + oldPayload("NOW_SERVING", "Tan Wei", "91234567").length();
+        Benchmarks.Op compiled = () -> email.buildTemplateBody(evt, tree).length()
+                + renderPayload("NOW_SERVING", "Tan Wei", "91234567").length();
+        Benchmarks.bytesPerOp(WARMUP, old);
+        Benchmarks.bytesPerOp(WARMUP, compiled);
+        double oldBytes = Benchmarks.bytesPerOp(RUNS, old);
+        double newBytes = Benchmarks.bytesPerOp(RUNS, compiled);
+
+        Benchmarks.assertCheaper("Notification body + payload", "bytes/message", "String.format/escapeJson", oldBytes,
+                "templates", newBytes, 2);
+    }
+
+    private String renderPayload(String type, String name, String phone) {
+        CharSequence[] values = new CharSequence[NotificationTemplates.PAYLOAD_FIELDS];
+        values[PayloadField.CLINIC_ID.ordinal()] = "clinic-12";
+        values[PayloadField.DOCTOR_ID.ordinal()] = "doc-4";
+        values[PayloadField.DOCTOR_NAME.ordinal()] = "Dr Lim";
+        values[PayloadField.PATIENT_NAME.ordinal()] = name;
+        values[PayloadField.EMAIL.ordinal()] = "tan.wei@example.com";
+        values[PayloadField.PHONE.ordinal()] = phone;
+        values[PayloadField.APPOINTMENT_ID.ordinal()] = "6f1c2a4e-0000-4000-8000-000000000042";
+        values[PayloadField.QUEUE_NUMBER.ordinal()] = "1042";
+        return templates.renderPayload(type, values);
+    }
+
+    private static NotificationEvent event(String type, String payload) {
+        return new NotificationEvent(type, "clinic-12", "6f1c2a4e-0000-4000-8000-000000000042", "p", "EMAIL", payload, 0L);
+    }
+
+    // RedisQueueService.buildNotificationPayload before the templates
+    private static String oldPayload(String eventType, String name, String phone) {
+        String queueNumber = "1042";
+        String subject;
+        String body;
+        if ("N3_AWAY".equals(eventType)) {
+            subject = "You're 3 away";
+            body = String.format("Please return to the waiting area. Your queue number is %s.", queueNumber);
+        } else {
+            subject = "You're being called";
+            body = String.format("%s, please proceed to the consultation room. Your queue number is %s.",
+                    name, queueNumber);
+        }
+        return String.format(
+                "{\"subject\":\"%s\",\"body\":\"%s\",\"clinicId\":\"%s\",\"doctorId\":\"%s\",\"doctorName\":\"%s\",\"patient\":{\"name\":\"%s\",\"email\":\"%s\",\"phone\":\"%s\",\"appointment_id\":\"%s\",\"queue_number\":\"%s\"}}",
+                escapeJson(subject), escapeJson(body), escapeJson("clinic-12"), escapeJson("doc-4"),
+                escapeJson("Dr Lim"), escapeJson(name), escapeJson("tan.wei@example.com"), escapeJson(phone),
+                escapeJson("6f1c2a4e-0000-4000-8000-000000000042"), escapeJson(queueNumber));
+    }
+
+    private static String escapeJson(String str) {
+        return str.replace("\\", "\\\\")
+                .replace("\"", "\\\"")
+                .replace("\n", "\\n")
+                .replace("\r", "\\r")
+                .replace("\t", "\\t");
+    }
+
+    // EmailNotificationChannel.buildTemplateBody before the templates
+    private static String oldBody(NotificationEvent evt, JsonNode payload) {
+        JsonNode patientNode = payload.path("patient");
+        String patientName = orDefault(safe(patientNode, "name"), "Patient");
+        String clinicName = safe(payload, "clinicName");
+        if (clinicName.isBlank()) {
+            clinicName = safe(payload, "clinicId");
+        }
+        clinicName = orDefault(clinicName, "SingHealth Clinic");
+        String doctorName = orDefault(safe(payload, "doctorName"), "Doctor");
+        String queueNumber = orDefault(safe(patientNode, "queue_number"), "-");
+        String appointmentDateTime = orDefault(safe(payload, "appointmentDateTime"), "As per your appointment booking");
+
+        String queueUpdateLine;
+        if ("N3_AWAY".equalsIgnoreCase(evt.type())) {
+            queueUpdateLine = "You are currently 3 patients away. Please proceed closer to the consultation room.";
+        } else if ("NOW_SERVING".equalsIgnoreCase(evt.type())) {
+            queueUpdateLine = "It’s your turn. Kindly enter the consultation room.";
+        } else {
+            queueUpdateLine = orDefault(safe(payload, "body"), "Your queue status has been updated.");
+        }
+        return String.format(
+                "Dear %s,%n%n" +
+                        "Thank you for booking your appointment at %s.%n%n" +
+                        "• Doctor: %s%n" +
+                        "• Date & Time: %s%n" +
+                        "• Queue Number: %s%n%n" +
+                        "We will notify you again when your turn is approaching. " +
+                        "Please be present at the clinic when your queue number is called.%n%n" +
+                        "Queue Update Notifications:%n" +
+                        "• %s%n%n" +
+                        "We look forward to serving you.%n%n" +
+                        "Warm regards,%n" +
+                        "SingHealth Clinic Team%n",
+                patientName, clinicName, doctorName, appointmentDateTime, queueNumber, queueUpdateLine);
+    }
+
+    private static String safe(JsonNode node, String field) {
+        JsonNode n = node.path(field);
+        return n.isMissingNode() || n.isNull() ? "" : n.asText("");
+    }
+
+    private static String orDefault(String value, String fallback) {
+        return value.isBlank() ? fallback : value;
+    }
+}
@@ -0,0 +1,135 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.WindowStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.is442.backend.config.KafkaConfig;
+import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.service.QueueAnalyticsTopology.WaitStats;
+import com.is442.backend.util.EventCodec;
+
+/**
+ * Feeds queue events through QueueAnalyticsTopology with TopologyTestDriver (no broker)
+ * and reads the results back the way QueueAnalyticsService serves them.
+ * Run with: mvn test -DskipTests=false -Dtest=QueueAnalyticsTopologyTests
+ */
+class QueueAnalyticsTopologyTests {
+
+    private static final Instant T0 = Instant.parse("2026-03-02T09:00:00Z");
+
+    @TempDir
+    Path stateDir;
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, byte[]> queueUpdates;
+    private final QueueAnalyticsService service = new QueueAnalyticsService(null, 15, 30);
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        QueueAnalyticsTopology.build(builder, KafkaConfig.QUEUE_UPDATES_TOPIC, Duration.ofMinutes(30), Duration.ofHours(24));
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "queue-analytics-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "unused:9092");
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir.toString());
+        driver = new TopologyTestDriver(builder.build(), props);
+        queueUpdates = driver.createInputTopic(KafkaConfig.QUEUE_UPDATES_TOPIC,
+                new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void ratesWaitsAndPredictionsPerClinic() throws Exception {
+        // clinic-1: a check-in every minute for 10 minutes, then the first six called two minutes apart
+        for (int i = 0; i < 10; i++) {
+            send("CHECKED_IN", "clinic-1", "appt-" + i, T0.plus(Duration.ofMinutes(i)));
+        }
+        for (int i = 0; i < 6; i++) {
+            // appt-i checked in at minute i and is called at minute 10 + 2i: waits 10, 11, ... 15 minutes
+            send("NOW_SERVING", "clinic-1", "appt-" + i, T0.plus(Duration.ofMinutes(10 + 2L * i)));
+        }
+        // Removed before being called: no wait recorded even if a stray NOW_SERVING follows
+        send("REMOVED", "clinic-1", "appt-9", T0.plus(Duration.ofMinutes(20)));
+        send("NOW_SERVING", "clinic-1", "appt-9", T0.plus(Duration.ofMinutes(21)));
+        // Another clinic's traffic stays separate
+        send("CHECKED_IN", "clinic-2", "appt-x", T0.plus(Duration.ofMinutes(5)));
+
+        long now = T0.plus(Duration.ofMinutes(21)).plusSeconds(30).toEpochMilli();
+        Map<String, Object> clinic1 = compute("clinic-1", now);
+
+        // Window 07:..21: check-ins at minutes 7-9 (3), called at 10,12,...,20 and 21 (7)
+        assertEquals(round(3 / 15.0), clinic1.get("arrivals_per_min"));
+        assertEquals(round(7 / 15.0), clinic1.get("service_rate_per_min"));
+        assertEquals(6L, clinic1.get("waits_sampled"));
+        assertEquals(12.5, clinic1.get("avg_wait_minutes"));
+        Map<?, ?> predicted = (Map<?, ?>) clinic1.get("predicted_wait_minutes");
+        assertEquals(round(1 / (7 / 15.0)), predicted.get("1"));
+        assertEquals(round(5 / (7 / 15.0)), predicted.get("5"));
+        assertEquals(15, ((List<?>) clinic1.get("per_minute")).size());
+
+        Map<String, Object> clinic2 = compute("clinic-2", now);
+        assertEquals(0L, clinic2.get("waits_sampled"));
+        assertNull(clinic2.get("avg_wait_minutes"));
+        assertNull(((Map<?, ?>) clinic2.get("predicted_wait_minutes")).get("1"));
+    }
+
+    @Test
+    void legacyAndUnreadableRecordsAreHandled() throws Exception {
+        // Check-ins published before CHECKED_IN existed, in the JSON format
+        QueueEvent legacy = new QueueEvent("POSITION_CHANGED", "clinic-1", "appt-1", "pat-1", 1, 1L,
+                T0.toEpochMilli(), null);
+        queueUpdates.pipeInput("clinic-1", EventCodec.encode(legacy, EventCodec.Format.JSON), T0);
+        // /test-kafka strings share the topic
+        queueUpdates.pipeInput(null, "hello".getBytes(StandardCharsets.UTF_8), T0);
+        queueUpdates.pipeInput("clinic-1", "not an event".getBytes(StandardCharsets.UTF_8), T0);
+        send("NOW_SERVING", "clinic-1", "appt-1", T0.plus(Duration.ofMinutes(4)));
+
+        WindowStore<String, Long> arrivals = driver.getWindowStore(QueueAnalyticsTopology.ARRIVALS_STORE);
+        assertEquals(1L, arrivals.fetch("clinic-1", T0.toEpochMilli()));
+        Map<String, Object> clinic1 = compute("clinic-1", T0.plus(Duration.ofMinutes(5)).toEpochMilli());
+        assertEquals(1L, clinic1.get("waits_sampled"));
+        assertEquals(4.0, clinic1.get("avg_wait_minutes"));
+    }
+
+    private Map<String, Object> compute(String clinicId, long now) {
+        WindowStore<String, Long> arrivals = driver.getWindowStore(QueueAnalyticsTopology.ARRIVALS_STORE);
+        WindowStore<String, Long> served = driver.getWindowStore(QueueAnalyticsTopology.SERVED_STORE);
+        WindowStore<String, WaitStats> waits = driver.getWindowStore(QueueAnalyticsTopology.WAITS_STORE);
+        return service.compute(clinicId, List.of(1, 5), now, arrivals, served, waits);
+    }
+
+    private void send(String type, String clinicId, String appointmentId, Instant at) {
+        QueueEvent evt = new QueueEvent(type, clinicId, appointmentId, "pat-" + appointmentId, null, null,
+                at.toEpochMilli(), null);
+        // Broker time lags the event; windows must follow the event's own ts
+        queueUpdates.pipeInput(clinicId, EventCodec.encode(evt), at.plusSeconds(5));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,168 @@
+package com.is442.backend.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.is442.backend.config.QueueScriptsConfig;
+import com.is442.backend.dto.QueueEvent;
+import com.is442.backend.model.Patient;
+import com.is442.backend.model.User;
+
+/**
+ * Drives RedisQueueService against a real Redis and checks that every queue change
+ * publishes one QueueEvent keyed by its clinic, with the clinic version increasing by
+ * one per change and handed off in that order, including when several requests interleave.
+ * Needs Docker; run with: mvn test -DskipTests=false -Dtest=QueueEventPublishingTests
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class QueueEventPublishingTests {
+
+    @Container
+    static final GenericContainer<?> redisContainer = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private final List<QueueEvent> published = Collections.synchronizedList(new ArrayList<>());
+    private final KafkaQueueEventProducer producer = new KafkaQueueEventProducer(null, 1) {
+        @Override
+        public void publishQueueEvent(QueueEvent evt, String doctorId) {
+            published.add(evt);
+        }
+    };
+    private final UserService users = new UserService() {
+        @Override
+        public User findBySupabaseUserId(UUID supabaseUserId) {
+            Patient patient = new Patient();
+            patient.setSupabaseUserId(supabaseUserId);
+            patient.setEmail("patient@example.com");
+            patient.setFirstName("Tan");
+            patient.setLastName("Wei");
+            patient.setPhone("+6590000000");
+            return patient;
+        }
+    };
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redis;
+    private RedisQueueService queue;
+
+    @BeforeEach
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void connect() {
+        connectionFactory = new LettuceConnectionFactory(redisContainer.getHost(), redisContainer.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.getConnectionFactory().getConnection().serverCommands().flushAll();
+
+        QueueScriptsConfig scripts = new QueueScriptsConfig();
+        DefaultRedisScript<List<Object>> dequeue = (DefaultRedisScript) scripts.dequeueScript();
+        queue = new RedisQueueService(redis, null, dequeue, scripts.enqueueScript(), scripts.fastTrackScript(),
+                scripts.removeFromQueueScript(), scripts.resetQueueScript());
+        ReflectionTestUtils.setField(queue, "userService", users);
+        ReflectionTestUtils.setField(queue, "queueEventProducer", producer);
+    }
+
+    @AfterEach
+    void disconnect() throws InterruptedException {
+        producer.close();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void everyQueueChangeIsPublishedWithTheNextClinicVersion() {
+        List<String> appointments = new ArrayList<>();
+        List<String> patients = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            appointments.add(UUID.randomUUID().toString());
+            patients.add(UUID.randomUUID().toString());
+            queue.checkIn("clinic-1", appointments.get(i), patients.get(i), false, null);
+        }
+        queue.fastTrack(appointments.get(2));
+        queue.callNext("clinic-1");
+        queue.removeFromQueue(appointments.get(1));
+        queue.resetQnumber("clinic-1");
+        // Another clinic keeps its own version
+        queue.checkIn("clinic-2", UUID.randomUUID().toString(), UUID.randomUUID().toString(), false, null);
+
+        assertEquals(List.of("CHECKED_IN", "CHECKED_IN", "CHECKED_IN", "FAST_TRACKED", "NOW_SERVING", "REMOVED",
+                "QUEUE_RESET", "CHECKED_IN"), published.stream().map(QueueEvent::type).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 1L),
+                published.stream().map(QueueEvent::version).toList());
+
+        QueueEvent thirdCheckIn = published.get(2);
+        assertEquals(3, thirdCheckIn.position());
+        assertEquals(3L, thirdCheckIn.queueNumber());
+
+        // The fast-tracked appointment is called first, with its own ticket number
+        QueueEvent nowServing = published.get(4);
+        assertEquals(appointments.get(2), nowServing.appointmentId());
+        assertEquals(patients.get(2), nowServing.patientId());
+        assertEquals(3L, nowServing.queueNumber());
+
+        QueueEvent removed = published.get(5);
+        assertEquals(patients.get(1), removed.patientId());
+        assertEquals(2L, removed.queueNumber());
+    }
+
+    @Test
+    void fastTrackingAnAppointmentThatLeftTheQueueIsRejected() {
+        String appointmentId = UUID.randomUUID().toString();
+        queue.checkIn("clinic-1", appointmentId, UUID.randomUUID().toString(), false, null);
+        // Its hash is still there, but it is no longer queued
+        redis.opsForZSet().remove("clinic:clinic-1:queue", appointmentId);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> queue.fastTrack(appointmentId));
+        assertEquals("Appointment not found in queue: " + appointmentId, e.getMessage());
+        assertEquals(1, published.size());
+    }
+
+    @Test
+    void concurrentChangesAreHandedOffInVersionOrder() throws Exception {
+        int checkIns = 40;
+        int calls = 20;
+        ExecutorService replicas = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < checkIns; i++) {
+                futures.add(replicas.submit(() -> queue.checkIn("clinic-1", UUID.randomUUID().toString(),
+                        UUID.randomUUID().toString(), false, null)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            futures.clear();
+            for (int i = 0; i < calls; i++) {
+                futures.add(replicas.submit(() -> queue.callNext("clinic-1")));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            replicas.shutdown();
+        }
+
+        // Handed to the publisher in version order, not just with distinct versions
+        List<Long> versions = published.stream().map(QueueEvent::version).toList();
+        assertEquals(LongStream.rangeClosed(1, checkIns + calls).boxed().toList(), versions);
+        assertTrue(published.stream().allMatch(p -> "clinic-1".equals(p.clinicId())));
+    }
+}
@@ -0,0 +1,153 @@
+package com.is442.backend.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.is442.backend.Benchmarks;
+import com.is442.backend.dto.NotificationEvent;
+import com.is442.backend.dto.QueueEvent;
+
+/**
+ * Round trips both event types through the binary and JSON encodings, checks old JSON
+ * records still decode, and compares size and encode + decode time against the
+ * previous path (ObjectMapper for the event, then readTree for the notification
+ * payload). Run with: mvn test -DskipTests=false -Dtest=EventCodecTests
+ */
+class EventCodecTests {
+
+    private static final int WARMUP = 200_000;
+    private static final int RUNS = 1_000_000;
+
+    private final ObjectMapper om = new ObjectMapper();
+
+    private final QueueEvent queueEvent = new QueueEvent("POSITION_CHANGED", "clinic-12",
+            UUID.randomUUID().toString(), UUID.randomUUID().toString(), 3, 1042L, 1_735_000_000_000L, 5_812L);
+    private final NotificationEvent notificationEvent = new NotificationEvent("N3_AWAY", "clinic-12",
+            UUID.randomUUID().toString(), UUID.randomUUID().toString(), "EMAIL",
+            "{\"patient\":{\"email\":\"tan.wei@example.com\",\"name\":\"Tan Wei\",\"queue_number\":1042},"
+                    + "\"clinicName\":\"Orchard Clinic\",\"doctorName\":\"Dr Lim\"}", 1_735_000_000_000L);
+
+    @Test
+    void binaryRoundTripsBothEvents() throws IOException {
+        byte[] queue = EventCodec.encode(queueEvent);
+        byte[] notification = EventCodec.encode(notificationEvent);
+
+        assertTrue(EventCodec.isBinary(queue));
+        assertEquals(queueEvent, EventCodec.decodeQueueEvent(queue));
+        assertEquals(notificationEvent, EventCodec.decodeNotificationEvent(notification));
+    }
+
+    @Test
+    void nullsNegativesAndNonCanonicalIdsSurvive() throws IOException {
+        QueueEvent sparse = new QueueEvent("NOW_SERVING", null, "not-a-uuid", "6F1C2A4E-0000-4000-8000-000000000001",
+                null, -5L, Long.MAX_VALUE, null);
+        assertEquals(sparse, EventCodec.decodeQueueEvent(EventCodec.encode(sparse)));
+
+        NotificationEvent unicode = new NotificationEvent("NOW_SERVING", "clinic-1", "", null, "EMAIL",
+                "It’s your turn – 轮到您了", Long.MIN_VALUE);
+        assertEquals(unicode, EventCodec.decodeNotificationEvent(EventCodec.encode(unicode)));
+    }
+
+    @Test
+    void jsonRecordsStillDecode() throws IOException {
+        byte[] json = om.writeValueAsBytes(queueEvent);
+        assertFalse(EventCodec.isBinary(json));
+        assertEquals(queueEvent, EventCodec.decodeQueueEvent(json));
+        assertEquals(notificationEvent,
+                EventCodec.decodeNotificationEvent(EventCodec.encode(notificationEvent, EventCodec.Format.JSON)));
+
+        // Fields added by newer producers are ignored
+        byte[] extended = "{\"type\":\"CHECKED_IN\",\"clinicId\":\"c\",\"ts\":1,\"room\":\"4\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        assertEquals(new QueueEvent("CHECKED_IN", "c", null, null, null, null, 1L, null), EventCodec.decodeQueueEvent(extended));
+    }
+
+    @Test
+    void laterVersionsWithAppendedFieldsDecode() throws IOException {
+        byte[] v1 = EventCodec.encode(queueEvent);
+        byte[] v2 = Arrays.copyOf(v1, v1.length + 3);
+        v2[1] = 2;
+        assertEquals(queueEvent, EventCodec.decodeQueueEvent(v2));
+    }
+
+    @Test
+    void presenceIsAVarintSoEventsCanGrowPastEightFields() throws IOException {
+        // All eight queue event fields set: bits 0-6 in the first byte, bit 7 in the second
+        byte[] all = EventCodec.encode(queueEvent);
+        assertEquals((byte) 0xFF, all[3]);
+        assertEquals(1, all[4]);
+
+        QueueEvent noVersion = new QueueEvent("CHECKED_IN", "clinic-12", UUID.randomUUID().toString(),
+                UUID.randomUUID().toString(), 4, 1043L, 1_735_000_000_000L, null);
+        byte[] seven = EventCodec.encode(noVersion);
+        assertEquals(0x7F, seven[3]);
+        assertEquals(noVersion, EventCodec.decodeQueueEvent(seven));
+    }
+
+    @Test
+    void malformedBinaryFailsWithIOException() {
+        byte[] queue = EventCodec.encode(queueEvent);
+        assertThrows(IOException.class, () -> EventCodec.decodeQueueEvent(Arrays.copyOf(queue, queue.length - 4)));
+        assertThrows(IOException.class, () -> EventCodec.decodeNotificationEvent(queue));
+        assertThrows(IOException.class, () -> EventCodec.decodeQueueEvent(new byte[] {EventCodec.MAGIC, 1}));
+    }
+
+    @Test
+    void serializerFollowsConfiguredFormat() throws IOException {
+        try (EventSerializer json = new EventSerializer(EventCodec.Format.JSON);
+                EventSerializer binary = new EventSerializer()) {
+            assertEquals(queueEvent, om.readValue(json.serialize("t", queueEvent), QueueEvent.class));
+            assertArrayEquals("raw".getBytes(StandardCharsets.UTF_8), json.serialize("t", "raw"));
+
+            assertTrue(EventCodec.isBinary(binary.serialize("t", notificationEvent)));
+            assertFalse(EventCodec.isBinary(binary.serialize("t", Map.of("appointment", "a"))));
+        }
+    }
+
+    @Test
+    void binaryIsSmallerAndFasterThanJson() throws Exception {
+        int jsonQueueBytes = om.writeValueAsBytes(queueEvent).length;
+        int binaryQueueBytes = EventCodec.encode(queueEvent).length;
+        int jsonNotificationBytes = om.writeValueAsBytes(notificationEvent).length;
+        int binaryNotificationBytes = EventCodec.encode(notificationEvent).length;
+
+        // Warm up the JIT for both paths before measuring
+        Benchmarks.nanosPerOp(WARMUP, this::jsonRoundTrip);
+        Benchmarks.nanosPerOp(WARMUP, this::binaryRoundTrip);
+        double jsonNanos = Benchmarks.nanosPerOp(RUNS, this::jsonRoundTrip);
+        double binaryNanos = Benchmarks.nanosPerOp(RUNS, this::binaryRoundTrip);
+
+        Benchmarks.assertCheaper("QueueEvent size", "bytes", "json", jsonQueueBytes, "binary", binaryQueueBytes, 2);
+        Benchmarks.assertCheaper("NotificationEvent size", "bytes", "json", jsonNotificationBytes,
+                "binary", binaryNotificationBytes, 1);
+        Benchmarks.assertCheaper("Encode + decode both events", "ns/op", "json", jsonNanos, "binary", binaryNanos, 1);
+    }
+
+    private long jsonRoundTrip() throws IOException {
+        // The old path: event JSON in the producer, readValue and then readTree on the payload in the consumer
+        QueueEvent queue = om.readValue(om.writeValueAsBytes(queueEvent), QueueEvent.class);
+        NotificationEvent notification = om.readValue(om.writeValueAsBytes(notificationEvent), NotificationEvent.class);
+        JsonNode payload = om.readTree(notification.payload());
+        return queue.position() + payload.path("patient").path("email").asText().length();
+    }
+
+    private long binaryRoundTrip() throws IOException {
+        QueueEvent queue = EventCodec.decodeQueueEvent(EventCodec.encode(queueEvent));
+        NotificationEvent notification = EventCodec.decodeNotificationEvent(EventCodec.encode(notificationEvent));
+        JsonNode payload = om.readTree(notification.payload());
+        return queue.position() + payload.path("patient").path("email").asText().length();
+    }
+}
@@ -0,0 +1,35 @@
+-- Reject double-booked doctors at the database level so concurrent bookings
+-- cannot both pass the application-side conflict check.
+create extension if not exists btree_gist;
+
+-- Existing overlaps must be resolved before the constraint can be added:
+-- select a.appointment_id, b.appointment_id
+--   from public.appointment a
+--   join public.appointment b
+--     on a.doctor_id = b.doctor_id
+--    and a.appointment_id < b.appointment_id
+--    and tsrange(a.booking_date + a.start_time, a.booking_date + a.end_time)
+--     && tsrange(b.booking_date + b.start_time, b.booking_date + b.end_time)
+--  where a.status = 'SCHEDULED' and b.status = 'SCHEDULED'
+--    and a.type is distinct from 'WALK_IN' and b.type is distinct from 'WALK_IN';
+
+do $$
+begin
+  if not exists (
+    select 1 from pg_constraint where conname = 'appointment_no_double_booking'
+  ) then
+    -- walk-ins are queued rather than slotted and start out UNASSIGNED, so they are left out
+    alter table public.appointment
+      add constraint appointment_no_double_booking
+      exclude using gist (
+        doctor_id with =,
+        tsrange(booking_date + start_time, booking_date + end_time) with &&
+      )
+      where (
+        status = 'SCHEDULED'
+        and type is distinct from 'WALK_IN'
+        and doctor_id <> 'UNASSIGNED'
+        and end_time is not null
+      );
+  end if;
+end $$;
@@ -0,0 +1,40 @@
+-- Indexes backing the AppointmentRepository access paths.
+-- Column order follows the equality filters first, then the range/sort columns.
+
+-- findByPatientId, findByPatientIdAndStatus, findUpcomingAppointmentsByPatient
+-- (a patient has few rows, so the status filter is cheap on top of this index)
+create index if not exists idx_appointment_patient_date
+  on public.appointment (patient_id, booking_date, start_time);
+
+-- Superseded by idx_appointment_patient_date, which serves the same queries
+drop index if exists public.idx_appointment_patient_scheduled;
+
+-- findByDoctorId, findByDoctorIdAndBookingDate, findByDoctorIdInAndBookingDateBetween
+create index if not exists idx_appointment_doctor_date
+  on public.appointment (doctor_id, booking_date, start_time);
+
+-- findConflictingAppointments (covers walk-ins, which the exclusion constraint skips)
+create index if not exists idx_appointment_doctor_scheduled
+  on public.appointment (doctor_id, booking_date, start_time, end_time)
+  where status = 'SCHEDULED';
+
+-- findByClinicId and the per-day staff report
+create index if not exists idx_appointment_clinic_date
+  on public.appointment (clinic_id, booking_date);
+
+-- findByBookingDate and the admin statistics for today
+create index if not exists idx_appointment_date_status
+  on public.appointment (booking_date, status);
+
+-- findByStatus
+create index if not exists idx_appointment_status_date
+  on public.appointment (status, booking_date);
+
+-- findUpcomingAppointments
+create index if not exists idx_appointment_upcoming
+  on public.appointment (booking_date, start_time)
+  where status in ('SCHEDULED', 'CHECKED-IN', 'IN_CONSULTATION');
+
+-- TreatmentNoteRepository joins notes to appointments and sorts by created_at
+create index if not exists idx_treatment_notes_appointment
+  on public.treatment_notes (appointment_id, created_at desc);
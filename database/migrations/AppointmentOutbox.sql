@@ -0,0 +1,20 @@
+-- Transactional outbox for appointment events, written in the same transaction
+-- as the appointment change and relayed to STOMP, SSE and Kafka afterwards
+create table if not exists public.appointment_outbox (
+  id bigserial primary key,
+  dedupe_key varchar not null unique, -- sent with every delivery so consumers can drop repeats
+  event_type varchar not null,        -- APPOINTMENT_STATUS | SLOT_UPDATE
+  appointment_id varchar not null,
+  clinic_id varchar,
+  destination varchar not null,       -- STOMP destination, e.g. /topic/appointments/status
+  payload text not null,              -- JSON body
+  created_at timestamptz not null default now(),
+  published_at timestamptz,           -- acknowledged by Kafka
+  broadcast_at timestamptz,           -- pushed to STOMP and SSE, which are not repeated on a Kafka retry
+  claimed_until timestamptz,          -- lease of the instance relaying this row
+  attempts integer not null default 0,
+  last_error varchar
+);
+
+create index if not exists idx_appointment_outbox_pending on public.appointment_outbox (id) where published_at is null;
+create index if not exists idx_appointment_outbox_published on public.appointment_outbox (published_at) where published_at is not null;
@@ -0,0 +1,12 @@
+-- Indexes backing the staff patient search (PatientRepository.searchByEmailPrefix / searchByEmailInfix).
+-- Both match on lower(u.email) in the native projection SQL.
+
+create extension if not exists pg_trgm;
+
+-- Prefix matches (lower(email) like 'abc%'): B-tree range scan that stops at the result limit
+create index if not exists idx_users_email_lower_prefix
+  on public.users (lower(email) text_pattern_ops);
+
+-- Infix matches (lower(email) like '%abc%'), for search terms of 3+ characters
+create index if not exists idx_users_email_trgm
+  on public.users using gin (lower(email) gin_trgm_ops);
@@ -16,3 +16,7 @@ create table if not exists public.staff_reports (
 
 create index if not exists idx_staff_reports_clinic_date on public.staff_reports (clinic_id, report_date desc);
 
+
+-- Waiting-time percentiles from the per-day metrics query
+alter table public.staff_reports add column if not exists waiting_time_p50_minutes numeric(10, 2);
+alter table public.staff_reports add column if not exists waiting_time_p90_minutes numeric(10, 2);
@@ -0,0 +1,3 @@
+-- Supports the per doctor/day lookups and the overlap check used by bulk slot generation
+create index if not exists idx_time_slot_doctor_day_start
+  on public.time_slot (doctor_id, day_of_week, start_time);